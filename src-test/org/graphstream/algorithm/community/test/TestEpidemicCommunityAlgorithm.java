@@ -0,0 +1,232 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.community.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.graphstream.algorithm.community.Crowdz;
+import org.graphstream.algorithm.community.DecentralizedCommunityAlgorithm;
+import org.graphstream.algorithm.community.DynSharc;
+import org.graphstream.algorithm.community.EpidemicCommunityAlgorithm;
+import org.graphstream.algorithm.community.Leung;
+import org.graphstream.algorithm.community.MobileLeung;
+import org.graphstream.algorithm.community.NewSawSharc;
+import org.graphstream.algorithm.community.Sharc;
+import org.graphstream.algorithm.test.TestToolkit;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+public class TestEpidemicCommunityAlgorithm {
+
+	/**
+	 * Label each node with the lowest index of the nodes in its community.
+	 */
+	protected int[] partition(Graph graph, String marker) {
+		HashMap<Object, Integer> first = new HashMap<Object, Integer>();
+		int[] labels = new int[graph.getNodeCount()];
+		for (int i = 0; i < labels.length; i++) {
+			Object c = graph.getNode(i).getAttribute(marker);
+			assertNotNull(c);
+			if (!first.containsKey(c))
+				first.put(c, i);
+			labels[i] = first.get(c);
+		}
+		return labels;
+	}
+
+	protected int[] run(DecentralizedCommunityAlgorithm algorithm,
+			int threads) {
+		Graph graph = TestToolkit.randomGraph(new SingleGraph("random"),
+				1000, 6, false, 1234);
+		algorithm.setRandom(new Random(42));
+		algorithm.setSynchronous(true);
+		algorithm.setParallelism(threads);
+		algorithm.staticMode();
+		algorithm.init(graph);
+		for (int i = 0; i < 10; i++)
+			algorithm.compute();
+		algorithm.terminate();
+		return partition(graph, algorithm.getMarker());
+	}
+
+	@Test
+	public void testSynchronousParallel() {
+		DecentralizedCommunityAlgorithm[][] algorithms = {
+				{ new EpidemicCommunityAlgorithm(),
+						new EpidemicCommunityAlgorithm() },
+				{ new Sharc(), new Sharc() }, { new Leung(), new Leung() } };
+
+		for (DecentralizedCommunityAlgorithm[] pair : algorithms) {
+			int[] expected = run(pair[0], 1);
+			int[] labels = run(pair[1], 4);
+			for (int i = 0; i < expected.length; i++)
+				assertEquals(expected[i], labels[i]);
+		}
+
+		// Algorithms writing the node attributes in computeNode()
+		DecentralizedCommunityAlgorithm[] unsupported = { new DynSharc(),
+				new NewSawSharc(), new Crowdz(), new MobileLeung() };
+		for (DecentralizedCommunityAlgorithm algorithm : unsupported) {
+			try {
+				algorithm.setSynchronous(true);
+				fail();
+			} catch (UnsupportedOperationException e) {
+				assertFalse(algorithm.isSynchronous());
+			}
+		}
+
+		// DynSharc still runs in asynchronous mode
+		Graph graph = TestToolkit.randomGraph(new SingleGraph("random"),
+				1000, 6, false, 1234);
+		DynSharc dynSharc = new DynSharc();
+		dynSharc.setRandom(new Random(42));
+		dynSharc.staticMode();
+		dynSharc.init(graph);
+		for (int i = 0; i < 10; i++)
+			dynSharc.compute();
+		dynSharc.terminate();
+		partition(graph, dynSharc.getMarker());
+	}
+
+	@Test
+	public void testSynchronousRound() {
+		Graph graph = new SingleGraph("pair");
+		Node a = graph.addNode("A");
+		Node b = graph.addNode("B");
+		graph.addEdge("AB", "A", "B");
+
+		EpidemicCommunityAlgorithm algorithm = new EpidemicCommunityAlgorithm();
+		algorithm.setSynchronous(true);
+		algorithm.staticMode();
+		algorithm.init(graph);
+		String marker = algorithm.getMarker();
+
+		// Nobody is heard in the first round
+		algorithm.compute();
+		Object ca = a.getAttribute(marker);
+		Object cb = b.getAttribute(marker);
+		assertNotNull(ca);
+		assertNotNull(cb);
+		assertEquals(0.0, (Double) a.getAttribute(marker + ".score"), 0);
+
+		// Each node takes the community its neighbor had before the round
+		algorithm.compute();
+		assertSame(cb, a.getAttribute(marker));
+		assertSame(ca, b.getAttribute(marker));
+		assertEquals(1.0, (Double) a.getAttribute(marker + ".score"), 0);
+	}
+
+	@Test
+	public void testFrontierScheduling() {
+		for (DecentralizedCommunityAlgorithm algorithm : new DecentralizedCommunityAlgorithm[] {
+				new EpidemicCommunityAlgorithm(), new Sharc(), new Leung() }) {
+			Graph graph = TestToolkit.randomGraph(new SingleGraph("random"),
+					1000, 6, false, 1234);
+			algorithm.setRandom(new Random(42));
+			algorithm.setFrontierScheduling(true);
+			algorithm.init(graph);
+
+			algorithm.compute();
+			assertEquals(1000, algorithm.getActiveSetSize());
+
+			int steps = 1;
+			while (algorithm.getActiveSetSize() > 0 && steps < 200) {
+				algorithm.compute();
+				steps++;
+			}
+			assertEquals(0, algorithm.getActiveSetSize());
+
+			// Converged: nothing to do until the graph changes
+			algorithm.compute();
+			assertEquals(0, algorithm.getActiveSetSize());
+
+			// A new edge activates its extremities and their neighbors
+			Node a = graph.getNode(10);
+			Node b = graph.getNode(900);
+			graph.addEdge("new", a.getId(), b.getId());
+			algorithm.compute();
+			assertTrue(algorithm.getActiveSetSize() > 0);
+			assertTrue(algorithm.getActiveSetSize() <= a.getDegree()
+					+ b.getDegree() + 2);
+
+			// Nor do the display attributes
+			a.setAttribute("ui.style", "fill-color: red;");
+			while (algorithm.getActiveSetSize() > 0)
+				algorithm.compute();
+			a.setAttribute("ui.style", "fill-color: blue;");
+			algorithm.compute();
+			assertEquals(0, algorithm.getActiveSetSize());
+
+			// Other attributes activate the node
+			a.setAttribute("speed", 10.0);
+			algorithm.compute();
+			assertTrue(algorithm.getActiveSetSize() > 0);
+
+			algorithm.requestFullSweep();
+			algorithm.compute();
+			assertEquals(1000, algorithm.getActiveSetSize());
+		}
+	}
+
+	@Test
+	public void testSynchronousFrontier() {
+		int[][] labels = new int[2][];
+		for (int t = 0; t < 2; t++) {
+			Graph graph = TestToolkit.randomGraph(new SingleGraph("random"),
+					1000, 6, false, 1234);
+			EpidemicCommunityAlgorithm algorithm = new EpidemicCommunityAlgorithm();
+			algorithm.setRandom(new Random(42));
+			algorithm.setSynchronous(true);
+			algorithm.setParallelism(t == 0 ? 1 : 4);
+			algorithm.setFrontierScheduling(true);
+			algorithm.init(graph);
+			for (int i = 0; i < 20; i++)
+				algorithm.compute();
+			assertTrue(algorithm.getActiveSetSize() < 1000);
+			algorithm.terminate();
+			labels[t] = partition(graph, algorithm.getMarker());
+		}
+
+		for (int i = 0; i < labels[0].length; i++)
+			assertEquals(labels[0][i], labels[1][i]);
+	}
+}
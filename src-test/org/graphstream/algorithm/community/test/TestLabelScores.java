@@ -0,0 +1,90 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.community.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.graphstream.algorithm.community.LabelScores;
+import org.junit.Test;
+
+public class TestLabelScores {
+
+	@Test
+	public void testAdd() {
+		LabelScores scores = new LabelScores();
+		String a = "a", b = "b";
+		scores.add(7, a, 1.0);
+		scores.add(-1, b, 0.5);
+		scores.add(7, a, 2.0);
+
+		assertEquals(2, scores.size());
+		assertEquals(7, scores.label(0));
+		assertSame(a, scores.community(0));
+		assertEquals(3.0, scores.score(0), 0);
+		assertEquals(-1, scores.label(1));
+		assertEquals(0.5, scores.get(-1), 0);
+		assertTrue(Double.isNaN(scores.get(3)));
+
+		scores.clear();
+		assertEquals(0, scores.size());
+		assertTrue(Double.isNaN(scores.get(7)));
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(1234);
+		LabelScores scores = new LabelScores();
+		HashMap<Integer, Double> expected = new HashMap<Integer, Double>();
+
+		for (int round = 0; round < 10; round++) {
+			scores.clear();
+			expected.clear();
+			for (int i = 0; i < 1000; i++) {
+				int label = random.nextInt(500) * (round + 1);
+				double value = random.nextDouble();
+				scores.add(label, null, value);
+				Double old = expected.get(label);
+				expected.put(label, old == null ? value : old + value);
+			}
+
+			assertEquals(expected.size(), scores.size());
+			for (int i = 0; i < scores.size(); i++)
+				assertEquals(expected.get(scores.label(i)), scores.score(i),
+						1e-9);
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.community.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.graphstream.algorithm.community.Sharc_my;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+public class TestSimilarityCache {
+
+	/**
+	 * Neighborhood similarity computed from scratch.
+	 */
+	protected double similarity(Node a, Node b) {
+		double similarity = 0.0;
+		for (Edge e : a.getEnteringEdgeSet())
+			if (!b.hasEdgeFrom(e.getOpposite(a).getId()))
+				similarity += 1.0;
+		for (Edge e : b.getEnteringEdgeSet())
+			if (!a.hasEdgeFrom(e.getOpposite(b).getId()))
+				similarity += 1.0;
+
+		if (a.getDegree() == 0 && b.getDegree() == 0)
+			return 0.0;
+		else if (a.getDegree() == 1 && b.getDegree() == 1)
+			return 1.0;
+		else
+			return 1 - (similarity / (a.getDegree() + b.getDegree()));
+	}
+
+	protected void check(Graph graph, Sharc_my sharc) {
+		for (Edge e : graph.getEachEdge()) {
+			Node a = e.getNode0();
+			Node b = e.getNode1();
+			assertEquals(similarity(a, b), sharc.similarity(a, b), 1e-12);
+			assertEquals(similarity(b, a), sharc.similarity(b, a), 1e-12);
+		}
+	}
+
+	@Test
+	public void testDynamicGraph() {
+		Random random = new Random(1234);
+		Graph graph = new SingleGraph("dynamic");
+		Sharc_my sharc = new Sharc_my(graph);
+		int nodeIds = 0, edgeIds = 0;
+
+		for (int i = 0; i < 50; i++)
+			graph.addNode("n" + nodeIds++);
+
+		for (int step = 0; step < 200; step++) {
+			int action = random.nextInt(10);
+			if (action < 5) {
+				Node a = graph.getNode(random.nextInt(graph.getNodeCount()));
+				Node b = graph.getNode(random.nextInt(graph.getNodeCount()));
+				if (a != b && a.getEdgeBetween(b) == null)
+					graph.addEdge("e" + edgeIds++, a.getId(), b.getId(),
+							random.nextBoolean());
+			} else if (action < 8 && graph.getEdgeCount() > 0) {
+				graph.removeEdge(random.nextInt(graph.getEdgeCount()));
+			} else if (action == 8 && graph.getNodeCount() > 10) {
+				graph.removeNode(random.nextInt(graph.getNodeCount()));
+			} else {
+				graph.addNode("n" + nodeIds++);
+			}
+
+			check(graph, sharc);
+		}
+	}
+}
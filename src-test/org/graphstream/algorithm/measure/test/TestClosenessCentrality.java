@@ -0,0 +1,92 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.measure.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.graphstream.algorithm.measure.AbstractCentrality.NormalizationMode;
+import org.graphstream.algorithm.measure.ClosenessCentrality;
+import org.graphstream.algorithm.test.TestToolkit;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.junit.Test;
+
+public class TestClosenessCentrality {
+	Graph g;
+
+	public TestClosenessCentrality() {
+		g = TestToolkit.randomWeights(TestToolkit.barabasiAlbertGraph(
+				new AdjacencyListGraph("test"), 2, 200, 1), 1, 2);
+	}
+
+	@Test
+	public void testSearchesMatchAPSP() {
+		for (boolean dangalchev : new boolean[] { false, true }) {
+			ClosenessCentrality apsp = new ClosenessCentrality("apsp",
+					NormalizationMode.NONE, true, dangalchev);
+			apsp.init(g);
+			apsp.compute();
+
+			ClosenessCentrality searches = new ClosenessCentrality(
+					"searches", NormalizationMode.NONE, true, dangalchev);
+			searches.setPerSourceSearch(true);
+			searches.setParallelism(3);
+			searches.init(g);
+			searches.compute();
+
+			for (Node node : g)
+				assertEquals(node.getNumber("apsp"),
+						node.getNumber("searches"), 1e-9);
+		}
+	}
+
+	@Test
+	public void testSampling() {
+		ClosenessCentrality exact = new ClosenessCentrality("exact",
+				NormalizationMode.NONE, true, false);
+		exact.setPerSourceSearch(true);
+		exact.init(g);
+		exact.compute();
+
+		ClosenessCentrality sampled = new ClosenessCentrality("sampled",
+				NormalizationMode.NONE, true, false);
+		sampled.setSampleSize(100);
+		sampled.setRandomSeed(3);
+		sampled.init(g);
+		sampled.compute();
+
+		for (Node node : g)
+			assertEquals(1, node.getNumber("sampled")
+					/ node.getNumber("exact"), 0.2);
+	}
+}
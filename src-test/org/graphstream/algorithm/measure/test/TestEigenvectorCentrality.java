@@ -0,0 +1,112 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.measure.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.graphstream.algorithm.measure.AbstractCentrality.NormalizationMode;
+import org.graphstream.algorithm.measure.EigenvectorCentrality;
+import org.graphstream.algorithm.test.TestToolkit;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.junit.Test;
+
+public class TestEigenvectorCentrality {
+	Graph g;
+
+	public TestEigenvectorCentrality() {
+		g = TestToolkit.barabasiAlbertGraph(new AdjacencyListGraph("test"), 2,
+				500, 1);
+	}
+
+	@Test
+	public void testConvergence() {
+		EigenvectorCentrality ec = new EigenvectorCentrality("ec",
+				NormalizationMode.NONE, 1000, "weight");
+		ec.setTolerance(1e-9);
+		ec.init(g);
+		ec.compute();
+
+		assertTrue(ec.getIterationCount() < 1000);
+
+		/*
+		 * The result is an eigenvector: A.x = lambda.x
+		 */
+		double lambda = 0;
+		Node hub = g.getNode(0);
+
+		for (Edge e : hub.getEachEdge())
+			lambda += e.getOpposite(hub).getNumber("ec");
+
+		lambda /= hub.getNumber("ec");
+
+		for (Node node : g) {
+			double sum = 0;
+
+			for (Edge e : node.getEachEdge())
+				sum += e.getOpposite(node).getNumber("ec");
+
+			assertEquals(lambda * node.getNumber("ec"), sum, 1e-6);
+		}
+	}
+
+	@Test
+	public void testWarmStartAndParallelism() {
+		EigenvectorCentrality ec = new EigenvectorCentrality("ec",
+				NormalizationMode.NONE, 1000, "weight");
+		ec.setTolerance(1e-9);
+		ec.init(g);
+		ec.compute();
+
+		int cold = ec.getIterationCount();
+
+		g.addEdge("new", g.getNode(10).getId(), g.getNode(20).getId());
+		ec.setWarmStart(true);
+		ec.compute();
+
+		assertTrue(ec.getIterationCount() < cold);
+
+		EigenvectorCentrality parallel = new EigenvectorCentrality("parallel",
+				NormalizationMode.NONE, 1000, "weight");
+		parallel.setTolerance(1e-9);
+		parallel.setParallelism(4);
+		parallel.init(g);
+		parallel.compute();
+
+		for (Node node : g)
+			assertEquals(node.getNumber("ec"), node.getNumber("parallel"),
+					1e-7);
+	}
+}
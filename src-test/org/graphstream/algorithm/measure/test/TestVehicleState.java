@@ -0,0 +1,163 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.measure.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.graphstream.algorithm.measure.MobilityMeasure;
+import org.graphstream.algorithm.measure.VehicleState;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.junit.Test;
+
+public class TestVehicleState {
+
+	protected VehicleState newState(Graph g) {
+		VehicleState state = new VehicleState("speed", "angle",
+				"timeMeanSpeed", "lane");
+		state.init(g);
+		return state;
+	}
+
+	@Test
+	public void testAttributes() {
+		Graph g = new AdjacencyListGraph("test");
+		Node a = g.addNode("A");
+		a.setAttribute("speed", 12.5);
+		a.setAttribute("angle", 90.0);
+		a.setAttribute("lane", "l0");
+		Node b = g.addNode("B");
+
+		VehicleState state = newState(g);
+
+		assertEquals(12.5, state.speed(a), 0);
+		assertEquals(90.0, state.angle(a), 0);
+		assertFalse(state.hasTimeMeanSpeed(a));
+		assertEquals(0, state.lane(a));
+
+		// Missing values read as 0, unknown lane as -1
+		assertEquals(0, state.speed(b), 0);
+		assertEquals(0, state.timeMeanSpeed(b), 0);
+		assertEquals(-1, state.lane(b));
+
+		// Attribute events
+		a.setAttribute("speed", 3.0);
+		b.setAttribute("timeMeanSpeed", 7);
+		b.setAttribute("lane", "l1");
+		assertEquals(3.0, state.speed(a), 0);
+		assertTrue(state.hasTimeMeanSpeed(b));
+		assertEquals(7.0, state.timeMeanSpeed(b), 0);
+		assertEquals(1, state.lane(b));
+		b.setAttribute("lane", "l0");
+		assertEquals(0, state.lane(b));
+		b.removeAttribute("timeMeanSpeed");
+		assertFalse(state.hasTimeMeanSpeed(b));
+		assertEquals(0, state.timeMeanSpeed(b), 0);
+
+		// Nodes added after the initialization
+		Node c = g.addNode("C");
+		c.setAttribute("angle", -45.0);
+		assertEquals(-45.0, state.angle(c), 0);
+
+		// Detached store
+		state.terminate();
+		a.setAttribute("speed", 4.0);
+		assertEquals(3.0, state.speed(a), 0);
+	}
+
+	@Test
+	public void testRemoval() {
+		Graph g = new AdjacencyListGraph("test");
+		Random random = new Random(1);
+		VehicleState state = newState(g);
+
+		for (int i = 0; i < 500; i++) {
+			int op = random.nextInt(4);
+			if (op == 0 && g.getNodeCount() > 0) {
+				g.removeNode(random.nextInt(g.getNodeCount()));
+			} else if (op == 1 && g.getNodeCount() > 0) {
+				Node n = g.getNode(random.nextInt(g.getNodeCount()));
+				n.setAttribute("speed", random.nextDouble() * 30);
+			} else {
+				Node n = g.addNode("n" + i);
+				n.setAttribute("speed", random.nextDouble() * 30);
+				n.setAttribute("angle", random.nextDouble() * 360 - 180);
+			}
+
+			for (Node n : g) {
+				assertEquals(n.getNumber("speed"), state.speed(n), 0);
+				assertEquals(n.getNumber("angle"), state.angle(n), 0);
+			}
+		}
+	}
+
+	@Test
+	public void testMobilityMeasure() {
+		Graph g = new AdjacencyListGraph("test");
+		Random random = new Random(2);
+		for (int i = 0; i < 20; i++) {
+			Node n = g.addNode("n" + i);
+			// some stopped vehicles
+			n.setAttribute("speed", i % 4 == 0 ? 0.0 : random.nextDouble() * 30);
+			n.setAttribute("angle", random.nextDouble() * 360 - 180);
+			n.setAttribute("timeMeanSpeed", random.nextDouble() * 30);
+		}
+		VehicleState state = newState(g);
+
+		for (Node u : g)
+			for (Node v : g) {
+				Double speedU = (Double) u.getAttribute("speed");
+				Double speedV = (Double) v.getAttribute("speed");
+				Double angleU = (Double) u.getAttribute("angle");
+				Double angleV = (Double) v.getAttribute("angle");
+				Double meanU = (Double) u.getAttribute("timeMeanSpeed");
+				Double meanV = (Double) v.getAttribute("timeMeanSpeed");
+
+				assertEquals(MobilityMeasure.computeRelativeMobility(u, v,
+						"speed", "angle"), MobilityMeasure
+						.computeRelativeMobility(state, u, v), 0);
+				assertEquals(MobilityMeasure
+						.calculateDegreeOfCongestionDependence(speedU, speedV,
+								angleU, angleV), MobilityMeasure
+						.calculateDegreeOfCongestionDependence(state, u, v,
+								false), 0);
+				assertEquals(MobilityMeasure
+						.calculateDegreeOfCongestionDependence(meanU, meanV,
+								angleU, angleV), MobilityMeasure
+						.calculateDegreeOfCongestionDependence(state, u, v,
+								true), 0);
+			}
+	}
+}
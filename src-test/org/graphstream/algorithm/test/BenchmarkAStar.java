@@ -0,0 +1,201 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.test;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import org.graphstream.algorithm.AStar;
+import org.graphstream.algorithm.AStarEngine;
+import org.graphstream.algorithm.generator.GridGenerator;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.junit.Ignore;
+
+/**
+ * Compare the A* open queue with the former linear scan of the open set, and
+ * with the array based engine, on random point to point queries in a weighted
+ * grid.
+ */
+@Ignore
+public class BenchmarkAStar {
+	private static final int SIZE = 150;
+	private static final int QUERIES = 200;
+
+	/**
+	 * A* as it was before the open queue: the best node is found by scanning
+	 * the whole open set.
+	 */
+	static class ScanAStar extends AStar {
+		ScanAStar(Graph graph) {
+			super(graph);
+		}
+
+		@Override
+		protected void aStar(Node sourceNode, Node targetNode) {
+			clearAll();
+			open.put(sourceNode, new AStarNode(sourceNode, null, null, 0,
+					costs.heuristic(sourceNode, targetNode)));
+
+			pathFound = false;
+
+			while (!open.isEmpty()) {
+				AStarNode current = scan();
+
+				if (current.node == targetNode) {
+					pathFound = true;
+					result = buildPath(current);
+					return;
+				}
+
+				open.remove(current.node);
+				closed.put(current.node, current);
+
+				Iterator<? extends Edge> nexts = current.node
+						.getLeavingEdgeIterator();
+
+				while (nexts.hasNext()) {
+					Edge edge = nexts.next();
+					Node next = edge.getOpposite(current.node);
+					double h = costs.heuristic(next, targetNode);
+					double g = current.g + costs.cost(current.node, edge, next);
+					double f = g + h;
+
+					AStarNode alreadyInOpen = open.get(next);
+
+					if (alreadyInOpen != null && alreadyInOpen.rank <= f)
+						continue;
+
+					AStarNode alreadyInClosed = closed.get(next);
+
+					if (alreadyInClosed != null && alreadyInClosed.rank <= f)
+						continue;
+
+					closed.remove(next);
+					open.put(next, new AStarNode(next, edge, current, g, h));
+				}
+			}
+		}
+
+		protected AStarNode scan() {
+			double min = Float.MAX_VALUE;
+			AStarNode theChosenOne = null;
+
+			for (AStarNode node : open.values()) {
+				if (node.rank < min) {
+					theChosenOne = node;
+					min = node.rank;
+				}
+			}
+
+			return theChosenOne;
+		}
+	}
+
+	public static void main(String[] args) {
+		Graph g = new AdjacencyListGraph("grid");
+		GridGenerator gen = new GridGenerator();
+		Random rnd = new Random(1234);
+
+		gen.addSink(g);
+		gen.begin();
+		for (int i = 1; i < SIZE; i++)
+			gen.nextEvents();
+		gen.end();
+
+		for (Edge e : g.getEachEdge())
+			e.addAttribute("weight", 1.0 + rnd.nextInt(10));
+
+		int n = g.getNodeCount();
+		String[] sources = new String[QUERIES];
+		String[] targets = new String[QUERIES];
+
+		for (int i = 0; i < QUERIES; i++) {
+			sources[i] = g.getNode(rnd.nextInt(n)).getId();
+			targets[i] = g.getNode(rnd.nextInt(n)).getId();
+		}
+
+		AStar heap = new AStar(g);
+		AStar scan = new ScanAStar(g);
+		AStarEngine engine = new AStarEngine(g);
+
+		System.out.printf("%d nodes, %d edges, %d queries%n", n,
+				g.getEdgeCount(), QUERIES);
+
+		// Run twice, the first round warms the JIT up.
+
+		for (int round = 0; round < 2; round++) {
+			long t1 = run(heap, sources, targets);
+			long t2 = run(scan, sources, targets);
+			long t3 = run(engine, sources, targets);
+
+			System.out.printf("round %d: queue %d ms, scan %d ms, engine %d ms%n",
+					round, t1, t2, t3);
+		}
+
+		for (int i = 0; i < QUERIES; i++) {
+			heap.compute(sources[i], targets[i]);
+			scan.compute(sources[i], targets[i]);
+
+			engine.compute(sources[i], targets[i]);
+
+			double w1 = heap.getShortestPath().getPathWeight("weight");
+			double w2 = scan.getShortestPath().getPathWeight("weight");
+			double w3 = engine.getPathLength();
+
+			if (w1 != w2 || w1 != w3)
+				System.out.printf("different lengths for %s -> %s: %f %f %f%n",
+						sources[i], targets[i], w1, w2, w3);
+		}
+	}
+
+	private static long run(AStar astar, String[] sources, String[] targets) {
+		long start = System.currentTimeMillis();
+
+		for (int i = 0; i < sources.length; i++)
+			astar.compute(sources[i], targets[i]);
+
+		return System.currentTimeMillis() - start;
+	}
+
+	private static long run(AStarEngine engine, String[] sources,
+			String[] targets) {
+		long start = System.currentTimeMillis();
+
+		for (int i = 0; i < sources.length; i++)
+			engine.compute(sources[i], targets[i]);
+
+		return System.currentTimeMillis() - start;
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.graphstream.algorithm.Dijkstra;
+import org.graphstream.algorithm.generator.GridGenerator;
+import org.graphstream.algorithm.util.CompressedAdjacency;
+import org.graphstream.algorithm.util.FibonacciHeap;
+import org.graphstream.algorithm.util.IndexedPriorityQueue;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.junit.Ignore;
+
+/**
+ * Compare the priority queues on Dijkstra's algorithm in a grid with integer
+ * weights: first the queues alone, on a compressed adjacency, then through the
+ * {@link Dijkstra} class. Each measure is repeated after a warm up run.
+ */
+@Ignore
+public class BenchmarkPriorityQueues {
+	private static final int SIZE = 300;
+	private static final int SOURCES = 20;
+	private static final int RUNS = 3;
+
+	public static void main(String args[]) {
+		Graph graph = new AdjacencyListGraph("grid");
+		GridGenerator gen = new GridGenerator(false, false, true);
+		Random random = new Random(1234);
+
+		gen.addSink(graph);
+		gen.begin();
+		for (int i = 1; i < SIZE; i++)
+			gen.nextEvents();
+		gen.end();
+
+		for (Edge edge : graph.getEachEdge())
+			edge.setAttribute("weight", 1.0 + random.nextInt(100));
+
+		int n = graph.getNodeCount();
+		int[] sources = new int[SOURCES];
+
+		for (int i = 0; i < SOURCES; i++)
+			sources[i] = random.nextInt(n);
+
+		System.out.printf("%d nodes, %d edges, %d sources%n", n,
+				graph.getEdgeCount(), SOURCES);
+
+		CompressedAdjacency adj = new CompressedAdjacency(graph, "weight",
+				CompressedAdjacency.Direction.LEAVING);
+		double[] dist = new double[n];
+
+		for (int run = 0; run <= RUNS; run++) {
+			long t = System.nanoTime();
+			double check = 0;
+
+			for (int s : sources)
+				check += fibonacci(adj, s, dist);
+
+			report(run, "queue only, FibonacciHeap", t, check);
+
+			for (IndexedPriorityQueue.Type type : IndexedPriorityQueue.Type
+					.values()) {
+				IndexedPriorityQueue queue = type.create(n);
+				t = System.nanoTime();
+				check = 0;
+
+				for (int s : sources)
+					check += indexed(adj, s, dist, queue);
+
+				report(run, "queue only, " + type, t, check);
+			}
+		}
+
+		for (int run = 0; run <= RUNS; run++) {
+			Dijkstra dijkstra = new Dijkstra(Dijkstra.Element.EDGE, "result",
+					"weight");
+			dijkstra.init(graph);
+			long t = System.nanoTime();
+
+			for (int s : sources) {
+				dijkstra.setSource(graph.getNode(s));
+				dijkstra.compute();
+			}
+
+			report(run, "Dijkstra, FibonacciHeap", t, 0);
+			dijkstra.clear();
+
+			for (IndexedPriorityQueue.Type type : IndexedPriorityQueue.Type
+					.values()) {
+				dijkstra = new Dijkstra(Dijkstra.Element.EDGE, "result",
+						"weight");
+				dijkstra.setQueueType(type);
+				dijkstra.setArrayStorage(true);
+				dijkstra.init(graph);
+				t = System.nanoTime();
+
+				for (int s : sources) {
+					dijkstra.setSource(graph.getNode(s));
+					dijkstra.compute();
+				}
+
+				report(run, "Dijkstra, arrays, " + type, t, 0);
+			}
+		}
+	}
+
+	private static void report(int run, String what, long start, double check) {
+		if (run > 0)
+			System.out.printf("%-40s %8.1f ms  (%.0f)%n", what,
+					(System.nanoTime() - start) / 1e6, check);
+	}
+
+	private static double fibonacci(CompressedAdjacency adj, int s,
+			double[] dist) {
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		FibonacciHeap<Double, Integer>.Node[] handles = new FibonacciHeap.Node[adj.nodeCount];
+		FibonacciHeap<Double, Integer> heap = new FibonacciHeap<Double, Integer>();
+		double sum = 0;
+
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		dist[s] = 0;
+		handles[s] = heap.add(0.0, s);
+
+		while (!heap.isEmpty()) {
+			int u = heap.extractMin();
+			handles[u] = null;
+			sum += dist[u];
+
+			for (int p = adj.offsets[u]; p < adj.offsets[u + 1]; p++) {
+				int v = adj.neighbors[p];
+				double d = dist[u] + adj.weights[p];
+
+				if (d < dist[v]) {
+					if (handles[v] == null)
+						handles[v] = heap.add(d, v);
+					else
+						heap.decreaseKey(handles[v], d);
+
+					dist[v] = d;
+				}
+			}
+		}
+
+		return sum;
+	}
+
+	private static double indexed(CompressedAdjacency adj, int s,
+			double[] dist, IndexedPriorityQueue queue) {
+		double sum = 0;
+
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		queue.clear();
+		dist[s] = 0;
+		queue.add(s, 0);
+
+		while (!queue.isEmpty()) {
+			int u = queue.extractMin();
+			sum += dist[u];
+
+			for (int p = adj.offsets[u]; p < adj.offsets[u + 1]; p++) {
+				int v = adj.neighbors[p];
+				double d = dist[u] + adj.weights[p];
+
+				if (d < dist[v]) {
+					dist[v] = d;
+					queue.addOrDecrease(v, d);
+				}
+			}
+		}
+
+		return sum;
+	}
+}
@@ -33,9 +33,12 @@ package org.graphstream.algorithm.test;
 
 import java.io.*;
 import java.util.Iterator;
+import java.util.Random;
 
 import org.graphstream.algorithm.*;
+import org.graphstream.algorithm.util.DistanceMatrix;
 import org.graphstream.graph.*;
+import org.graphstream.graph.implementations.MultiGraph;
 import org.graphstream.graph.implementations.SingleGraph;
 import org.graphstream.stream.*;
 
@@ -236,6 +239,278 @@ public class TestAPSP {
 		assertArrayEquals(npath, npath2);
 	}
 
+	@Test
+	public void TestMatrixStorage() {
+		Graph G = new SingleGraph("Test APSP matrix", false, true);
+
+		buildGraph1(G);
+
+		APSP apsp = new APSP(G, "weight", true);
+		apsp.setMatrixStorage(true);
+		apsp.compute();
+
+		Node A = G.getNode("A");
+		Node B = G.getNode("B");
+		Node C = G.getNode("C");
+		Node D = G.getNode("D");
+		Node E = G.getNode("E");
+
+		APSP.APSPInfo info = A.getAttribute(APSP.APSPInfo.ATTRIBUTE_NAME);
+		assertTrue(info instanceof APSP.MatrixAPSPInfo);
+		assertFalse(apsp.getDistanceMatrix().isOffHeap());
+
+		Path path = info.getShortestPathTo("E");
+		Object npath1[] = { A, B, C, D, E };
+
+		assertArrayEquals(npath1, path.getNodePath().toArray());
+		assertEquals(0.5, info.getLengthTo("B"), 0);
+		assertEquals(2.0, info.getLengthTo("E"), 0);
+		assertEquals(0.5, info.getMinimumLength(), 0);
+		assertEquals(2.0, info.getMaximumLength(), 0);
+
+		info = E.getAttribute(APSP.APSPInfo.ATTRIBUTE_NAME);
+		path = info.getShortestPathTo("C");
+		Object npath2[] = { E, D, B, C };
+
+		assertArrayEquals(npath2, path.getNodePath().toArray());
+		assertEquals(1.5, info.getLengthTo("C"), 0);
+	}
+
+	@Test
+	public void TestMatrixStorageOffHeap() {
+		Graph G1 = new SingleGraph("Test APSP tables", false, true);
+		Graph G2 = new SingleGraph("Test APSP off-heap matrix", false, true);
+
+		buildGraph1(G1);
+		buildGraph1(G2);
+
+		APSP tables = new APSP(G1, "weight", true);
+		APSP matrix = new APSP(G2, "weight", true);
+
+		matrix.setMatrixStorage(true);
+		matrix.setOffHeapThreshold(-1);
+
+		tables.compute();
+		matrix.compute();
+
+		assertTrue(matrix.getDistanceMatrix().isOffHeap());
+
+		for (Node n1 : G1) {
+			APSP.APSPInfo info1 = n1.getAttribute(APSP.APSPInfo.ATTRIBUTE_NAME);
+			APSP.APSPInfo info2 = G2.getNode(n1.getId()).getAttribute(
+					APSP.APSPInfo.ATTRIBUTE_NAME);
+
+			for (Node n2 : G1) {
+				if (n1 != n2) {
+					double d = info1.getLengthTo(n2.getId());
+
+					assertEquals(d, info2.getLengthTo(n2.getId()), 0);
+					assertEquals(d < 0,
+							info2.getShortestPathTo(n2.getId()) == null);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void TestMatrixParallel() {
+		Graph G = new SingleGraph("Test APSP parallel", false, true);
+
+		TestToolkit.randomWeights(TestToolkit.randomGraph(G, 80, 3, true, 1234),
+				0.5, 1234);
+
+		int n = G.getNodeCount();
+		double[][] expected = new double[n][n];
+
+		APSP tables = new APSP(G, "weight", true);
+		tables.compute();
+
+		for (int i = 0; i < n; i++) {
+			APSP.APSPInfo info = G.getNode(i).getAttribute(
+					APSP.APSPInfo.ATTRIBUTE_NAME);
+
+			for (int j = 0; j < n; j++)
+				expected[i][j] = info.getLengthTo(G.getNode(j).getId());
+		}
+
+		final double[] lastProgress = { 0 };
+
+		APSP matrix = new APSP(G, "weight", true);
+		matrix.setMatrixStorage(true);
+		matrix.setMethod(APSP.Method.FLOYD_WARSHALL);
+		matrix.setParallelism(4);
+		matrix.setBlockSize(7);
+		matrix.registerProgressIndicator(new APSP.Progress() {
+			public void progress(double percent) {
+				assertTrue(percent >= lastProgress[0]);
+				lastProgress[0] = percent;
+			}
+		});
+		matrix.compute();
+
+		assertEquals(1.0, lastProgress[0], 0);
+
+		for (int i = 0; i < n; i++) {
+			APSP.APSPInfo info = G.getNode(i).getAttribute(
+					APSP.APSPInfo.ATTRIBUTE_NAME);
+
+			for (int j = 0; j < n; j++)
+				if (i != j)
+					assertEquals(expected[i][j],
+							info.getLengthTo(G.getNode(j).getId()), 1e-9);
+		}
+	}
+
+	@Test
+	public void TestMatrixShortestPathTrees() {
+		Graph G = new SingleGraph("Test APSP trees", false, true);
+
+		TestToolkit.randomWeights(TestToolkit.randomGraph(G, 80, 3, true, 1234),
+				0.5, 1234);
+
+		// Weighted graph with Dijkstra, then unweighted with a BFS.
+
+		String[] weights = { "weight", null };
+
+		for (String weight : weights) {
+			APSP tables = new APSP(G, weight == null ? "none" : weight, true);
+			tables.compute();
+
+			int n = G.getNodeCount();
+			double[][] expected = new double[n][n];
+
+			for (int i = 0; i < n; i++) {
+				APSP.APSPInfo info = G.getNode(i).getAttribute(
+						APSP.APSPInfo.ATTRIBUTE_NAME);
+
+				for (int j = 0; j < n; j++)
+					expected[i][j] = info.getLengthTo(G.getNode(j).getId());
+			}
+
+			// Both matrix methods agree with the tables, including the
+			// cycles from each node back to itself.
+
+			APSP.Method[] methods = { APSP.Method.SHORTEST_PATH_TREES,
+					APSP.Method.FLOYD_WARSHALL };
+
+			for (APSP.Method method : methods) {
+				APSP trees = new APSP(G, weight, true);
+				trees.setMatrixStorage(true);
+				trees.setMethod(method);
+				trees.setParallelism(3);
+				trees.compute();
+
+				for (int i = 0; i < n; i++) {
+					APSP.APSPInfo info = G.getNode(i).getAttribute(
+							APSP.APSPInfo.ATTRIBUTE_NAME);
+
+					for (int j = 0; j < n; j++) {
+						String id = G.getNode(j).getId();
+						Path path = info.getShortestPathTo(id);
+
+						assertEquals(expected[i][j], info.getLengthTo(id), 1e-9);
+
+						if (expected[i][j] < 0)
+							assertNull(path);
+						else if (weight == null)
+							assertEquals(expected[i][j] + 1,
+									path.getNodeCount(), 0);
+					}
+				}
+
+				G.removeSink(trees);
+			}
+
+			G.removeSink(tables);
+		}
+	}
+
+	@Test
+	public void TestMatrixParallelEdges() {
+		Graph G = new MultiGraph("Test APSP multigraph");
+
+		G.addNode("A");
+		G.addNode("B");
+		G.addNode("C");
+		G.addEdge("AB1", "A", "B", true).addAttribute("weight", 5.0);
+		G.addEdge("AB2", "A", "B", true).addAttribute("weight", 1.0);
+		G.addEdge("AB3", "A", "B", true).addAttribute("weight", 3.0);
+		G.addEdge("BC1", "B", "C", true).addAttribute("weight", 2.0);
+		G.addEdge("BC2", "B", "C", true).addAttribute("weight", 4.0);
+
+		for (APSP.Method method : APSP.Method.values()) {
+			APSP apsp = new APSP(G, "weight", true);
+			apsp.setMatrixStorage(true);
+			apsp.setMethod(method);
+			apsp.compute();
+
+			APSP.APSPInfo info = G.getNode("A").getAttribute(
+					APSP.APSPInfo.ATTRIBUTE_NAME);
+			Path path = info.getShortestPathTo("C");
+
+			assertEquals(3.0, info.getLengthTo("C"), 0);
+			assertEquals(3.0, path.getPathWeight("weight"), 0);
+			assertEquals("AB2", path.getEdgePath().get(0).getId());
+			assertEquals("BC1", path.getEdgePath().get(1).getId());
+
+			G.removeSink(apsp);
+		}
+	}
+
+	@Test
+	public void TestIncremental() {
+		Graph G = new SingleGraph("Test APSP incremental", false, true);
+		Random random = new Random(4321);
+
+		TestToolkit.randomWeights(TestToolkit.randomGraph(G, 60, 3, true, 1234),
+				0.5, 1234);
+
+		APSP apsp = new APSP(G, "weight", false);
+		apsp.setMatrixStorage(true);
+		apsp.setIncremental(true);
+		apsp.compute();
+
+		DistanceMatrix repaired = apsp.getDistanceMatrix();
+
+		for (int step = 0; step < 200; step++) {
+			int action = random.nextInt(4);
+
+			if (action == 0) {
+				Node a = G.getNode(random.nextInt(G.getNodeCount()));
+				Node b = G.getNode(random.nextInt(G.getNodeCount()));
+
+				Edge e = a == b ? null : G.addEdge("new" + step, a, b,
+						random.nextBoolean());
+
+				if (e != null)
+					e.addAttribute("weight", 1 + random.nextInt(10));
+			} else if (action == 1 && G.getEdgeCount() > 0) {
+				G.removeEdge(random.nextInt(G.getEdgeCount()));
+			} else if (G.getEdgeCount() > 0) {
+				G.getEdge(random.nextInt(G.getEdgeCount())).setAttribute(
+						"weight", 1 + random.nextInt(10) * 0.5);
+			}
+
+			// No full computation is needed.
+
+			apsp.compute();
+			assertSame(repaired, apsp.getDistanceMatrix());
+
+			APSP fresh = new APSP(G, "weight", false);
+			fresh.setMatrixStorage(true);
+			fresh.compute();
+			G.removeSink(fresh);
+
+			DistanceMatrix expected = fresh.getDistanceMatrix();
+
+			for (int i = 0; i < G.getNodeCount(); i++)
+				for (int j = 0; j < G.getNodeCount(); j++)
+					if (i != j)
+						assertEquals(expected.getDistance(i, j),
+								repaired.getDistance(i, j), 1e-9);
+		}
+	}
+
 	protected void buildGraph1(Graph G) {
 		// 
 		//  +--0.5-->B<--0.5--+
@@ -33,8 +33,10 @@ package org.graphstream.algorithm.test;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
 import org.graphstream.algorithm.AStar;
+import org.graphstream.algorithm.AStarEngine;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
@@ -362,4 +364,182 @@ public class TestAStar {
 		assertTrue(e.getId().equals("BF3"));
 		assertTrue(!i.hasNext());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testAStarEngine() {
+		// The engine must find the same paths as AStar, several queries in a
+		// row reusing the same state.
+
+		AB.setAttribute("weight", 1.0);
+		BC.setAttribute("weight", 0.1);
+		BF.setAttribute("weight", 1.0);
+		CD.setAttribute("weight", 0.1);
+		DE.setAttribute("weight", 0.1);
+		EF.setAttribute("weight", 0.1);
+
+		AStarEngine engine = new AStarEngine(graph);
+		engine.setCosts(new AStar.DefaultCosts("weight"));
+
+		int[] nodes = new int[graph.getNodeCount()];
+		int[] edges = new int[graph.getNodeCount()];
+
+		for (Node s : graph) {
+			for (Node t : graph) {
+				astar.compute(s.getId(), t.getId());
+				assertTrue(engine.compute(s.getId(), t.getId()));
+
+				Path expected = astar.getShortestPath();
+
+				assertEquals(expected.getEdgePath(), engine.getShortestPath()
+						.getEdgePath());
+				assertEquals(expected.getPathWeight("weight"),
+						engine.getPathLength(), 1e-6);
+
+				int count = engine.getPathNodes(nodes);
+				assertEquals(expected.getEdgeCount(), engine.getPathEdges(edges));
+
+				if (s == t) {
+					assertEquals(1, count);
+				} else {
+					assertEquals(expected.getNodeCount(), count);
+
+					for (int i = 0; i < count; i++)
+						assertEquals(expected.getNodePath().get(i).getIndex(),
+								nodes[i]);
+				}
+			}
+		}
+
+		engine.compute("A", "F");
+		assertArrayEquals(new int[] { A.getIndex(), B.getIndex(),
+				C.getIndex(), D.getIndex(), E.getIndex(), F.getIndex() },
+				engine.getPathNodeIndices());
+	}
+
+	@Test
+	public void testLandmarksAndBidirectional() {
+		// A directed grid with random weights, so that forward and backward
+		// landmark distances differ. All the variants must find paths of the
+		// same length as Dijkstra.
+
+		Graph grid = new MultiGraph("grid");
+		Random random = new Random(1234);
+		int size = 12;
+
+		for (int i = 0; i < size * size; i++)
+			grid.addNode(String.valueOf(i));
+
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				int i = x * size + y;
+
+				if (x + 1 < size) {
+					grid.addEdge(i + ">" + (i + size), i, i + size, true)
+							.setAttribute("time", 1.0 + random.nextInt(10));
+					grid.addEdge((i + size) + ">" + i, i + size, i, true)
+							.setAttribute("time", 1.0 + random.nextInt(10));
+				}
+
+				if (y + 1 < size && random.nextInt(4) > 0) {
+					grid.addEdge(i + ">" + (i + 1), i, i + 1, true)
+							.setAttribute("time", 1.0 + random.nextInt(10));
+					grid.addEdge((i + 1) + ">" + i, i + 1, i, true)
+							.setAttribute("time", 1.0 + random.nextInt(10));
+				}
+			}
+		}
+
+		AStar.LandmarkCosts farthest = new AStar.LandmarkCosts("time", 4,
+				AStar.LandmarkCosts.Selection.FARTHEST);
+		AStar.LandmarkCosts degree = new AStar.LandmarkCosts("time", 4,
+				AStar.LandmarkCosts.Selection.DEGREE);
+		farthest.init(grid);
+		degree.init(grid);
+
+		assertEquals(4, farthest.getLandmarks().length);
+
+		AStarEngine dijkstra = new AStarEngine(grid);
+		dijkstra.setCosts(new AStar.DefaultCosts("time"));
+
+		AStarEngine[] engines = new AStarEngine[4];
+		AStar.Costs[] costs = { new AStar.DefaultCosts("time"), farthest,
+				degree, farthest };
+
+		for (int i = 0; i < engines.length; i++) {
+			engines[i] = new AStarEngine(grid);
+			engines[i].setCosts(costs[i]);
+			engines[i].setBidirectional(i != 2);
+		}
+
+		AStar astar = new AStar(grid);
+		astar.setCosts(farthest);
+
+		long dijkstraSettled = 0, altSettled = 0;
+
+		for (int q = 0; q < 200; q++) {
+			int s = random.nextInt(size * size);
+			int t = random.nextInt(size * size);
+
+			assertTrue(dijkstra.compute(s, t));
+			double expected = dijkstra.getPathLength();
+			dijkstraSettled += dijkstra.getSettledNodeCount();
+
+			for (AStarEngine engine : engines) {
+				assertTrue(engine.compute(s, t));
+				assertEquals(expected, engine.getPathLength(), 1e-9);
+
+				Path path = engine.getShortestPath();
+				double weight = path.getPathWeight("time");
+
+				assertEquals(expected, weight, 1e-9);
+				assertEquals(s, path.getRoot().getIndex());
+				assertEquals(engine.getPathNodeCount(), path.getNodeCount());
+			}
+
+			altSettled += engines[3].getSettledNodeCount();
+
+			astar.compute(grid.getNode(s).getId(), grid.getNode(t).getId());
+			double weight = astar.getShortestPath().getPathWeight("time");
+			assertEquals(expected, weight, 1e-9);
+		}
+
+		assertTrue(altSettled < dijkstraSettled);
+	}
+
+	@Test
+	public void testEngineSameSourceAndTarget() {
+		AStarEngine engine = new AStarEngine(graph);
+
+		for (boolean bidirectional : new boolean[] { false, true }) {
+			engine.setBidirectional(bidirectional);
+			assertTrue(engine.compute(0, 0));
+
+			Path path = engine.getShortestPath();
+
+			assertEquals(0, engine.getPathLength(), 0);
+			assertEquals(graph.getNode(0), path.getRoot());
+			assertEquals(1, path.getNodeCount());
+			assertEquals(0, path.getEdgeCount());
+		}
+	}
+
+	@Test
+	public void testFarthestLandmarks() {
+		// On a path, the first landmark is the end far from node 0, and the
+		// second one is node 0 itself.
+		Graph path = new MultiGraph("path");
+		for (int i = 0; i < 10; i++) {
+			path.addNode("n" + i);
+			if (i > 0)
+				path.addEdge("e" + i, "n" + (i - 1), "n" + i)
+						.setAttribute("time", 1.0);
+		}
+
+		AStar.LandmarkCosts costs = new AStar.LandmarkCosts("time", 2,
+				AStar.LandmarkCosts.Selection.FARTHEST);
+		costs.init(path);
+
+		assertEquals(9, costs.getLandmarks()[0]);
+		assertEquals(0, costs.getLandmarks()[1]);
+	}
+}
@@ -32,8 +32,10 @@
 package org.graphstream.algorithm.test;
 
 import java.util.Collection;
+import java.util.Random;
 
 import org.graphstream.algorithm.BetweennessCentrality;
+import org.graphstream.algorithm.util.IndexedPriorityQueue;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
@@ -242,6 +244,167 @@ public class TestBetweenessCentrality {
 		testIfWeightedAndUnweightedAreEqual(graph1, graph2, bcb );
 	}
 
+	@Test
+	public void testQueueTypes() {
+		// All the queues must give the same centralities, the radix heap
+		// needs integer weights.
+		Graph graph = TestToolkit.randomWeights(TestToolkit.randomGraph(
+				new SingleGraph("random"), 200, 4, false, 1234), 1, 1234);
+		BetweennessCentrality bcb = new BetweennessCentrality("Cb", "weight");
+		bcb.init(graph);
+		bcb.compute();
+
+		double[] expected = new double[graph.getNodeCount()];
+		for (Node node : graph)
+			expected[node.getIndex()] = bcb.centrality(node);
+
+		for (IndexedPriorityQueue.Type type : IndexedPriorityQueue.Type
+				.values()) {
+			bcb.setQueueType(type);
+			bcb.compute();
+
+			for (Node node : graph)
+				assertEquals(expected[node.getIndex()], bcb.centrality(node),
+						1e-9);
+		}
+	}
+
+	@Test
+	public void testParallel() {
+		for (boolean weighted : new boolean[] { false, true }) {
+			Graph graph = TestToolkit.randomWeights(TestToolkit.randomGraph(
+					new SingleGraph("random"), 300, 5, false, 4321), 1, 4321);
+			BetweennessCentrality bcb = new BetweennessCentrality();
+			if (weighted)
+				bcb.setWeightAttributeName("weight");
+			bcb.init(graph);
+			bcb.compute();
+
+			double[] nodes = new double[graph.getNodeCount()];
+			double[] edges = new double[graph.getEdgeCount()];
+			for (Node node : graph)
+				nodes[node.getIndex()] = bcb.centrality(node);
+			for (Edge edge : graph.getEachEdge())
+				edges[edge.getIndex()] = bcb.centrality(edge);
+
+			final int[] calls = new int[1];
+			bcb.setParallelism(4);
+			bcb.registerProgressIndicator(new BetweennessCentrality.Progress() {
+				public void progress(float percent) {
+					calls[0]++;
+				}
+			});
+			bcb.compute();
+
+			assertEquals(graph.getNodeCount(), calls[0]);
+			for (Node node : graph)
+				assertEquals(nodes[node.getIndex()], bcb.centrality(node),
+						1e-6);
+			for (Edge edge : graph.getEachEdge())
+				assertEquals(edges[edge.getIndex()], bcb.centrality(edge),
+						1e-6);
+		}
+
+		// The small graphs with known values.
+		Graph graph = new SingleGraph("Betweeness Centrality Test 2");
+		BetweennessCentrality bcb = new BetweennessCentrality();
+		buildGraph2(graph, bcb);
+		bcb.setWeightAttributeName("weight");
+		bcb.setParallelism(3);
+		bcb.init(graph);
+		bcb.compute();
+		assertEquals(4.0, (Double) graph.getNode("A").getAttribute("Cb"), 0.0);
+		assertEquals(0.0, (Double) graph.getNode("B").getAttribute("Cb"), 0.0);
+		assertEquals(0.0, (Double) graph.getNode("C").getAttribute("Cb"), 0.0);
+		assertEquals(4.0, (Double) graph.getNode("D").getAttribute("Cb"), 0.0);
+	}
+
+	@Test
+	public void testSampling() {
+		Graph graph = TestToolkit.randomWeights(TestToolkit.randomGraph(
+				new SingleGraph("random"), 200, 4, false, 99), 1, 99);
+		int n = graph.getNodeCount();
+		BetweennessCentrality bcb = new BetweennessCentrality();
+		bcb.init(graph);
+		bcb.compute();
+
+		double[] exact = new double[n];
+		for (Node node : graph)
+			exact[node.getIndex()] = bcb.centrality(node);
+
+		double epsilon = 0.05;
+
+		for (BetweennessCentrality.Sampling sampling : new BetweennessCentrality.Sampling[] {
+				BetweennessCentrality.Sampling.UNIFORM,
+				BetweennessCentrality.Sampling.DEGREE,
+				BetweennessCentrality.Sampling.PATHS }) {
+			final int[] calls = new int[1];
+			bcb.setSampling(sampling);
+			bcb.setSampleError(epsilon, 0.9);
+			bcb.setRandomSeed(1234);
+			bcb.registerProgressIndicator(new BetweennessCentrality.Progress() {
+				public void progress(float percent) {
+					calls[0]++;
+				}
+			});
+			bcb.compute();
+
+			assertTrue(bcb.getSampleSize() > 0);
+			assertEquals(bcb.getSampleSize(), calls[0]);
+
+			// The error bound is on centralities divided by n(n-1).
+			for (Node node : graph)
+				assertEquals(exact[node.getIndex()] / (n * (n - 1.0)),
+						bcb.centrality(node) / (n * (n - 1.0)), epsilon);
+		}
+
+		// A fixed sample size with the same seed gives the same result.
+		bcb.registerProgressIndicator(null);
+		bcb.setSampling(BetweennessCentrality.Sampling.UNIFORM);
+		bcb.setSampleSize(20);
+		bcb.setRandomSeed(5);
+		bcb.compute();
+		double first = bcb.centrality(graph.getNode(0));
+		bcb.setRandomSeed(5);
+		bcb.compute();
+		assertEquals(20, bcb.getSampleSize());
+		assertEquals(first, bcb.centrality(graph.getNode(0)), 0);
+	}
+
+	@Test
+	public void testPathSamplingDirected() {
+		// n0 reaches every node in one hop, but n1 -> n2 -> ... -> n7 is a
+		// shortest path of 7 nodes.
+		Graph graph = new SingleGraph("directed");
+		int n = 8;
+		for (int i = 0; i < n; i++)
+			graph.addNode("n" + i);
+		for (int i = 1; i < n; i++) {
+			graph.addEdge("s" + i, "n0", "n" + i, true);
+			if (i < n - 1)
+				graph.addEdge("p" + i, "n" + i, "n" + (i + 1), true);
+		}
+
+		double epsilon = 0.1, confidence = 0.9;
+		int expected = (int) Math.ceil((Math.floor(Math.log(n - 2)
+				/ Math.log(2))
+				+ 1 + Math.log(1 / (1 - confidence)))
+				/ (2 * epsilon * epsilon));
+
+		BetweennessCentrality bcb = new BetweennessCentrality();
+		bcb.setSampling(BetweennessCentrality.Sampling.PATHS);
+		bcb.setSampleError(epsilon, confidence);
+		bcb.init(graph);
+
+		// Whatever the source of the estimation, the bound is n.
+		Random seeds = new Random(3);
+		for (int i = 0; i < 50; i++) {
+			bcb.setRandomSeed(seeds.nextLong());
+			bcb.compute();
+			assertEquals(expected, bcb.getSampleSize());
+		}
+	}
+
 	protected static void buildGraph1(Graph graph, BetweennessCentrality bcb) {
 		//
 		// Unweighted graph:
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.graphstream.algorithm.ContractionHierarchy;
+import org.graphstream.algorithm.Dijkstra;
+import org.graphstream.algorithm.generator.Generator;
+import org.graphstream.algorithm.generator.RandomGenerator;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.Path;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+public class TestContractionHierarchy {
+
+	@Test
+	public void testToyGraph() {
+		Graph g = TestDijkstra.toyGraph();
+		ContractionHierarchy ch = new ContractionHierarchy("length");
+		ch.init(g);
+		ch.compute();
+
+		assertEquals(20, ch.getPathLength(g.getNode("A"), g.getNode("F")),
+				0);
+		assertEquals(0, ch.getPathLength(g.getNode("A"), g.getNode("A")), 0);
+		assertEquals(Double.POSITIVE_INFINITY,
+				ch.getPathLength(g.getNode("A"), g.getNode("G")), 0);
+		assertNull(ch.getShortestPath(g.getNode("A"), g.getNode("G")));
+
+		Path path = ch.getShortestPath(g.getNode("A"), g.getNode("F"));
+		assertEquals("[A, C, F]", path.getNodePath().toString());
+		assertEquals(0, ch.getShortestPath(g.getNode("B"), g.getNode("B"))
+				.getEdgeCount());
+
+		// Ranks are a permutation of the node indices.
+
+		boolean[] seen = new boolean[g.getNodeCount()];
+
+		for (Node n : g)
+			seen[ch.getRank(n)] = true;
+
+		for (boolean b : seen)
+			assertTrue(b);
+	}
+
+	@Test
+	public void testUndirected() {
+		Graph g = new SingleGraph("random");
+		Generator gen = new RandomGenerator(4, false);
+		Random random = new Random(1234);
+
+		gen.addSink(g);
+		gen.begin();
+		for (int i = 0; i < 300; i++)
+			gen.nextEvents();
+		gen.end();
+
+		for (Edge e : g.getEachEdge())
+			e.addAttribute("time", 1.0 + random.nextInt(20));
+
+		checkAgainstDijkstra(g, random);
+	}
+
+	@Test
+	public void testDirectedAndCustomize() {
+		Graph g = new SingleGraph("grid", false, true);
+		Random random = new Random(4321);
+		int size = 15;
+
+		for (int i = 0; i < size * size; i++)
+			g.addNode(String.valueOf(i));
+
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				int i = x * size + y;
+
+				if (x + 1 < size) {
+					g.addEdge(i + ">" + (i + size), i, i + size, true);
+					g.addEdge((i + size) + ">" + i, i + size, i, true);
+				}
+
+				if (y + 1 < size && random.nextInt(3) > 0)
+					g.addEdge(i + ">" + (i + 1), i, i + 1, true);
+				else if (y + 1 < size)
+					g.addEdge((i + 1) + ">" + i, i + 1, i, true);
+			}
+		}
+
+		for (Edge e : g.getEachEdge())
+			e.addAttribute("time", 1.0 + random.nextInt(10));
+
+		ContractionHierarchy ch = checkAgainstDijkstra(g, random);
+		int[] ranks = new int[g.getNodeCount()];
+
+		for (Node n : g)
+			ranks[n.getIndex()] = ch.getRank(n);
+
+		// New weights, same order.
+
+		for (Edge e : g.getEachEdge())
+			e.addAttribute("time", 0.5 + random.nextInt(50));
+
+		ch.customize();
+		checkQueries(ch, g, random);
+
+		for (Node n : g)
+			assertEquals(ranks[n.getIndex()], ch.getRank(n));
+	}
+
+	protected ContractionHierarchy checkAgainstDijkstra(Graph g, Random random) {
+		ContractionHierarchy ch = new ContractionHierarchy("time");
+		ch.init(g);
+		ch.compute();
+		checkQueries(ch, g, random);
+		return ch;
+	}
+
+	protected void checkQueries(ContractionHierarchy ch, Graph g,
+			Random random) {
+		Dijkstra dijkstra = new Dijkstra(Dijkstra.Element.EDGE, null, "time");
+		dijkstra.init(g);
+
+		for (int q = 0; q < 20; q++) {
+			Node s = g.getNode(random.nextInt(g.getNodeCount()));
+
+			dijkstra.setSource(s);
+			dijkstra.compute();
+
+			for (Node t : g) {
+				double expected = dijkstra.getPathLength(t);
+
+				assertEquals(expected, ch.getPathLength(s, t), 1e-9);
+
+				Path path = ch.getShortestPath(s, t);
+
+				if (Double.isInfinite(expected)) {
+					assertNull(path);
+					continue;
+				}
+
+				double length = 0;
+				Node current = s;
+
+				assertEquals(s, path.getRoot());
+
+				for (Edge e : path.getEdgePath()) {
+					assertTrue(!e.isDirected() || e.getSourceNode() == current);
+					current = e.getOpposite(current);
+					length += e.getNumber("time");
+				}
+
+				assertEquals(t, current);
+				assertEquals(expected, length, 1e-9);
+			}
+		}
+
+		dijkstra.clear();
+	}
+}
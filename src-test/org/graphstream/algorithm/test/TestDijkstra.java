@@ -40,6 +40,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.graphstream.algorithm.Dijkstra;
+import org.graphstream.algorithm.util.IndexedPriorityQueue;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
@@ -198,4 +199,98 @@ public class TestDijkstra {
 		// and don't forget the special case G
 		assertFalse(d.getAllPathsIterator(g.getNode("G")).hasNext());
 	}
+
+	@Test
+	public void arrayStorageTest() {
+		Graph g = toyGraph();
+		Node source = g.getNode("A");
+
+		Dijkstra a = new Dijkstra(Dijkstra.Element.EDGE, "attr", "length");
+		a.init(g);
+		a.setSource(source);
+		a.compute();
+
+		Dijkstra d = new Dijkstra(Dijkstra.Element.EDGE, "array", "length");
+		d.setArrayStorage(true);
+		d.init(g);
+		d.setSource(source);
+		d.compute();
+
+		// nothing is written in the graph
+		for (Node n : g)
+			assertFalse(n.hasAttribute("array"));
+
+		for (Node n : g) {
+			assertEquals(a.getPathLength(n), d.getPathLength(n), 0);
+			assertEquals(a.getEdgeFromParent(n), d.getEdgeFromParent(n));
+			assertEquals(a.getParent(n), d.getParent(n));
+			assertEquals(a.getPath(n).toString(), d.getPath(n).toString());
+
+			List<Node> la = new ArrayList<Node>();
+			List<Node> ld = new ArrayList<Node>();
+			for (Node m : a.getPathNodes(n))
+				la.add(m);
+			for (Node m : d.getPathNodes(n))
+				ld.add(m);
+			assertEquals(la, ld);
+		}
+		assertEquals(38, d.getTreeLength(), 0);
+
+		int count = 0;
+		for (Edge e : d.getTreeEdges()) {
+			assertTrue(a.getEdgeFromParent(e.getNode0()) == e
+					|| a.getEdgeFromParent(e.getNode1()) == e);
+			count++;
+		}
+		assertEquals(5, count);
+
+		// recompute from another source, reusing the arrays
+		d.setSource(g.getNode("F"));
+		d.compute();
+		assertEquals(11, d.getPathLength(g.getNode("C")), 0);
+		assertEquals(2, d.getPath(g.getNode("A")).getEdgeCount());
+		assertEquals(Double.POSITIVE_INFINITY, d.getPathLength(g.getNode("G")), 0);
+
+		// optional export
+		d.exportResult();
+		for (Node n : g)
+			assertTrue(n.hasAttribute("array"));
+		assertEquals(11, d.getPathLength(g.getNode("C")), 0);
+
+		d.clear();
+		assertFalse(source.hasAttribute("array"));
+	}
+
+	@Test
+	public void queueTypesTest() {
+		Graph g = toyGraph();
+		Node source = g.getNode("A");
+
+		Dijkstra a = new Dijkstra(Dijkstra.Element.EDGE, "reference", "length");
+		a.init(g);
+		a.setSource(source);
+		a.compute();
+
+		for (IndexedPriorityQueue.Type type : IndexedPriorityQueue.Type
+				.values()) {
+			for (boolean arrays : new boolean[] { false, true }) {
+				Dijkstra d = new Dijkstra(Dijkstra.Element.EDGE, "result",
+						"length");
+				d.setQueueType(type);
+				d.setArrayStorage(arrays);
+				d.init(g);
+				d.setSource(source);
+				d.compute();
+
+				for (Node n : g) {
+					assertEquals(a.getPathLength(n), d.getPathLength(n), 0);
+					assertEquals(a.getEdgeFromParent(n),
+							d.getEdgeFromParent(n));
+					assertEquals(!arrays, n.hasAttribute("result"));
+				}
+
+				d.clear();
+			}
+		}
+	}
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.graphstream.algorithm.BetweennessCentrality;
+import org.graphstream.algorithm.DynamicBetweennessCentrality;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+public class TestDynamicBetweennessCentrality {
+	@Test
+	public void testRandomChanges() {
+		for (boolean weighted : new boolean[] { false, true }) {
+			Graph graph = TestToolkit.randomWeights(TestToolkit.randomGraph(
+					new SingleGraph("random"), 120, 4, false, 1234), 1, 1234);
+			Random random = new Random(5678);
+			DynamicBetweennessCentrality bc = weighted ? new DynamicBetweennessCentrality(
+					"Cb", "weight") : new DynamicBetweennessCentrality("Cb");
+
+			bc.init(graph);
+			bc.compute();
+			assertEquals(graph.getNodeCount(), bc.getAffectedSourceCount());
+			checkCentralities(graph, bc, weighted);
+
+			int nodeId = 0;
+
+			for (int step = 0; step < 40; step++) {
+				int n = graph.getNodeCount();
+
+				switch (step % 5) {
+				case 0:
+				case 1:
+					graph.removeEdge(random.nextInt(graph.getEdgeCount()));
+					break;
+				case 2:
+					Node a = graph.getNode(random.nextInt(n));
+					Node b = graph.getNode(random.nextInt(n));
+					if (a != b && !a.hasEdgeBetween(b))
+						graph.addEdge(a.getId() + "-" + b.getId(), a, b)
+								.setAttribute("weight", 1.0 + random.nextInt(5));
+					break;
+				case 3:
+					graph.getEdge(random.nextInt(graph.getEdgeCount()))
+							.setAttribute("weight", 1.0 + random.nextInt(5));
+					break;
+				case 4:
+					if (step % 2 == 0) {
+						graph.removeNode(random.nextInt(n));
+					} else {
+						Node node = graph.addNode("new" + nodeId++);
+						Node other = graph.getNode(random.nextInt(n));
+						graph.addEdge(node.getId() + "-" + other.getId(), node,
+								other).setAttribute("weight", 2.0);
+					}
+					break;
+				}
+
+				bc.compute();
+				checkCentralities(graph, bc, weighted);
+			}
+
+			bc.terminate();
+		}
+	}
+
+	@Test
+	public void testAffectedSources() {
+		// Two paths of 20 nodes, only the sources of the path that changes
+		// are processed again.
+		Graph graph = new SingleGraph("paths");
+
+		for (String path : new String[] { "a", "b" }) {
+			for (int i = 0; i < 20; i++) {
+				graph.addNode(path + i);
+				if (i > 0)
+					graph.addEdge(path + (i - 1) + path + i, path + (i - 1),
+							path + i);
+			}
+		}
+
+		DynamicBetweennessCentrality bc = new DynamicBetweennessCentrality();
+		bc.init(graph);
+		bc.compute();
+
+		graph.addEdge("b0b19", "b0", "b19");
+		bc.compute();
+		assertEquals(20, bc.getAffectedSourceCount());
+		assertEquals(0, bc.centrality(graph.getNode("a0")), 1e-9);
+		assertEquals(36, bc.centrality(graph.getNode("a1")), 1e-9);
+		checkCentralities(graph, bc, false);
+
+		// A new isolated node is the only new source, then linking it to the
+		// first path affects the sources of this path and itself.
+		graph.addNode("c");
+		bc.compute();
+		assertEquals(1, bc.getAffectedSourceCount());
+
+		graph.addEdge("ca0", "c", "a0");
+		bc.compute();
+		assertEquals(21, bc.getAffectedSourceCount());
+		checkCentralities(graph, bc, false);
+
+		bc.terminate();
+	}
+
+	protected void checkCentralities(Graph graph,
+			DynamicBetweennessCentrality bc, boolean weighted) {
+		BetweennessCentrality reference = weighted ? new BetweennessCentrality(
+				"ref", "weight") : new BetweennessCentrality("ref");
+		reference.betweennessCentrality(graph);
+
+		for (Node node : graph)
+			assertEquals(reference.centrality(node), bc.centrality(node), 1e-6);
+
+		for (Edge edge : graph.getEachEdge())
+			assertEquals(reference.centrality(edge), bc.centrality(edge), 1e-6);
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.graphstream.algorithm.util.IndexedPriorityQueue;
+import org.graphstream.algorithm.util.RadixHeap;
+import org.junit.Test;
+
+public class TestIndexedPriorityQueue {
+	@Test
+	public void testAllTypes() {
+		for (IndexedPriorityQueue.Type type : IndexedPriorityQueue.Type
+				.values())
+			checkAgainstArray(type.create(100), new Random(1234));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRadixHeapNotMonotone() {
+		RadixHeap heap = new RadixHeap(10);
+		heap.add(0, 5);
+		heap.add(1, 7);
+		heap.extractMin();
+		heap.add(2, 4);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRadixHeapNotInteger() {
+		new RadixHeap(10).add(0, 0.5);
+	}
+
+	/**
+	 * Random operations, in the way Dijkstra's algorithm uses the queue:
+	 * priorities never go below the last extracted one, and they are integers
+	 * so that the radix heap can be tested too.
+	 */
+	protected void checkAgainstArray(IndexedPriorityQueue queue, Random random) {
+		int n = queue.getCapacity();
+
+		for (int round = 0; round < 3; round++) {
+			double[] priorities = new double[n];
+			boolean[] present = new boolean[n];
+			int size = 0;
+			double last = 0;
+
+			queue.clear();
+
+			for (int op = 0; op < 5000; op++) {
+				int e = random.nextInt(n);
+				double p = last + random.nextInt(1000);
+
+				if (random.nextInt(3) > 0) {
+					queue.addOrDecrease(e, p);
+
+					if (!present[e]) {
+						present[e] = true;
+						priorities[e] = p;
+						size++;
+					} else if (p < priorities[e]) {
+						priorities[e] = p;
+					}
+				} else if (size > 0) {
+					double min = Double.POSITIVE_INFINITY;
+
+					for (int i = 0; i < n; i++)
+						if (present[i] && priorities[i] < min)
+							min = priorities[i];
+
+					assertEquals(min, queue.getMinPriority(), 0);
+
+					int m = queue.extractMin();
+
+					assertTrue(present[m]);
+					assertEquals(min, priorities[m], 0);
+					assertFalse(queue.contains(m));
+
+					present[m] = false;
+					size--;
+					last = min;
+				}
+
+				assertEquals(size, queue.size());
+
+				if (present[e])
+					assertEquals(priorities[e], queue.getPriority(e), 0);
+			}
+		}
+	}
+}
@@ -33,10 +33,12 @@ package org.graphstream.algorithm.test;
 
 import org.graphstream.algorithm.PageRank;
 import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
 import org.graphstream.graph.implementations.SingleGraph;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class TestPageRank {
 	// Example from the Wikipedia's article
@@ -68,4 +70,116 @@ public class TestPageRank {
 		assertEquals(1.6, 100 * pr.getRank(g.getNode("K")), 1.0e-1);
 
 	}
+
+	@Test
+	public void testStructureChanges() {
+		Graph g = TestToolkit.barabasiAlbertGraph(new SingleGraph("test"), 2,
+				200, 1);
+
+		PageRank pr = new PageRank();
+		pr.init(g);
+		pr.compute();
+
+		// the ranks follow the growth of the graph and the removal of nodes
+		// and edges, as if they were computed from scratch
+		for (int step = 0; step < 5; step++) {
+			Node node = g.addNode("new" + step);
+			g.addEdge(node.getId() + "a", node, g.getNode(step * 3));
+			g.addEdge(node.getId() + "b", g.getNode(step * 5 + 1), node, true);
+			g.removeNode(step * 7);
+			g.removeEdge(step * 11);
+
+			PageRank reference = new PageRank(pr.getDampingFactor(),
+					pr.getPrecision(), "reference");
+			reference.init(g);
+			reference.compute();
+
+			double sum = 0;
+			for (Node n : g) {
+				assertEquals(reference.getRank(n), pr.getRank(n), 1.0e-4);
+				sum += pr.getRank(n);
+			}
+			assertEquals(1.0, sum, 1.0e-4);
+		}
+	}
+
+	@Test
+	public void testParallel() {
+		Graph g = TestToolkit.barabasiAlbertGraph(new SingleGraph("test"), 3,
+				2000, 1);
+
+		PageRank pr = new PageRank();
+		pr.init(g);
+		pr.compute();
+
+		PageRank parallel = new PageRank(pr.getDampingFactor(),
+				pr.getPrecision(), "parallel");
+		parallel.setParallelism(4);
+		parallel.init(g);
+		parallel.compute();
+
+		assertEquals(pr.getIterationCount(), parallel.getIterationCount());
+		for (Node node : g)
+			assertEquals(pr.getRank(node), parallel.getRank(node), 1.0e-9);
+
+		// still consistent after a change of the structure
+		g.addEdge("new", g.getNode(10).getId(), g.getNode(1000).getId(), true);
+		for (Node node : g)
+			assertEquals(pr.getRank(node), parallel.getRank(node), 1.0e-6);
+		parallel.terminate();
+	}
+
+	@Test
+	public void testIncremental() {
+		Graph g = TestToolkit.barabasiAlbertGraph(new SingleGraph("test"), 3,
+				2000, 1);
+
+		PageRank pr = new PageRank();
+		pr.setIncremental(true);
+		pr.init(g);
+		pr.compute();
+		int iterations = pr.getIterationCount();
+
+		for (int step = 0; step < 10; step++) {
+			Node a = g.getNode(step * 101);
+			Node b = g.getNode(step * 37 + 1);
+			if (step % 3 == 2)
+				g.removeEdge(step * 13);
+			else if (!a.hasEdgeBetween(b))
+				g.addEdge("new" + step, a, b, step % 2 == 0);
+			pr.compute();
+
+			// edge changes are handled without iterating on the whole graph
+			assertEquals(iterations, pr.getIterationCount());
+
+			PageRank reference = new PageRank(pr.getDampingFactor(),
+					pr.getPrecision(), "reference");
+			reference.init(g);
+			reference.compute();
+			for (Node node : g)
+				assertEquals(reference.getRank(node), pr.getRank(node), 1.0e-5);
+		}
+
+		// a new node needs a power iteration
+		Node node = g.addNode("new");
+		g.addEdge("newEdge", node, g.getNode(0));
+		PageRank reference = new PageRank(pr.getDampingFactor(),
+				pr.getPrecision(), "reference");
+		reference.init(g);
+		for (Node n : g)
+			assertEquals(reference.getRank(n), pr.getRank(n), 1.0e-5);
+		assertTrue(pr.getIterationCount() > iterations);
+
+		// a lower precision is reached by the next computation
+		pr.setPrecision(1.0e-2);
+		pr.compute();
+		pr.setPrecision(1.0e-7);
+		pr.compute();
+		reference = new PageRank(pr.getDampingFactor(), 1.0e-7, "reference");
+		reference.init(g);
+		double error = 0;
+		for (Node n : g)
+			error += Math.abs(reference.getRank(n) - pr.getRank(n));
+		assertEquals(0, error, 1.0e-6);
+	}
 }
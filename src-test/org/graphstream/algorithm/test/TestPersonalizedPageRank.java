@@ -0,0 +1,127 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graphstream.algorithm.PageRank;
+import org.graphstream.algorithm.PersonalizedPageRank;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.junit.Test;
+
+public class TestPersonalizedPageRank {
+	@Test
+	public void testUniformTeleport() {
+		// with a uniform teleport vector, the ranks are the PageRank
+		Graph g = TestPageRank.toyGraph();
+		PageRank pr = new PageRank();
+		pr.init(g);
+		pr.compute();
+
+		PersonalizedPageRank ppr = new PersonalizedPageRank();
+		ppr.setPrecision(1.0e-9);
+		ppr.init(g);
+		double[] teleport = new double[g.getNodeCount()];
+		for (int i = 0; i < teleport.length; i++)
+			teleport[i] = 1;
+		double[] ranks = ppr.getRanks(teleport);
+
+		for (Node node : g) {
+			assertEquals(pr.getRank(node), ranks[node.getIndex()], 1.0e-4);
+			assertFalse(node.hasAttribute("PersonalizedPageRank"));
+		}
+
+		assertEquals("B", ppr.getTopNodes(1, teleport).get(0).getId());
+	}
+
+	@Test
+	public void testSeeds() {
+		Graph g = TestPageRank.toyGraph();
+		PersonalizedPageRank ppr = new PersonalizedPageRank();
+		ppr.init(g);
+
+		// from D, the surfer goes to A, which sends it back to D, and to B,
+		// then stays in B and C
+		List<Node> top = ppr.getTopNodes(10, g.getNode("D"));
+		assertEquals(4, top.size());
+		assertEquals("B", top.get(0).getId());
+		assertEquals("C", top.get(1).getId());
+		assertEquals("D", top.get(2).getId());
+		assertEquals("A", top.get(3).getId());
+
+		// nodes that can not be reached from the seeds have no rank
+		double[] ranks = ppr.getRanks(g.getNode("C"));
+		assertEquals(0, ranks[g.getNode("E").getIndex()], 0);
+		assertEquals(1, ranks[g.getNode("B").getIndex()]
+				+ ranks[g.getNode("C").getIndex()], 1.0e-4);
+		assertEquals(2, ppr.getTopNodes(5, g.getNode("C")).size());
+
+		// no node asked, no node returned
+		assertTrue(ppr.getTopNodes(0, g.getNode("D")).isEmpty());
+		try {
+			ppr.getTopNodes(-1, g.getNode("D"));
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testWalks() {
+		Graph g = TestPageRank.toyGraph();
+		PersonalizedPageRank ppr = new PersonalizedPageRank();
+		ppr.setRandomSeed(42);
+		ppr.setWalkCount(20000);
+		ppr.setParallelism(2);
+		ppr.init(g);
+
+		List<Node> sources = new ArrayList<Node>();
+		for (Node node : g)
+			sources.add(node);
+		List<List<Node>> tops = ppr.getTopNodes(3, sources);
+
+		assertEquals(sources.size(), tops.size());
+		for (int i = 0; i < sources.size(); i++) {
+			double[] exact = ppr.getRanks(sources.get(i));
+			double[] walks = ppr.getWalkRanks(sources.get(i).getIndex(),
+					new java.util.Random(i));
+			for (int j = 0; j < exact.length; j++)
+				assertEquals(exact[j], walks[j], 0.02);
+			assertTrue(tops.get(i).size() <= 3);
+			assertEquals(ppr.getTopNodes(1, sources.get(i)).get(0), tops
+					.get(i).get(0));
+		}
+	}
+}
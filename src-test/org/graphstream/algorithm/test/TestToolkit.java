@@ -33,8 +33,12 @@ package org.graphstream.algorithm.test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import org.graphstream.algorithm.Toolkit;
+import org.graphstream.algorithm.generator.BarabasiAlbertGenerator;
+import org.graphstream.algorithm.generator.RandomGenerator;
+import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
 import org.graphstream.graph.implementations.AdjacencyListGraph;
@@ -88,6 +92,89 @@ public class TestToolkit {
 		return g;
 	}
 
+	/**
+	 * Fill a graph with the random generator, seeded so that the tests always
+	 * run on the same graph.
+	 * 
+	 * @param graph
+	 *            The graph to fill
+	 * @param size
+	 *            The number of nodes
+	 * @param degree
+	 *            The average degree
+	 * @param directed
+	 *            Generate directed edges
+	 * @param seed
+	 *            The seed of the generator
+	 * @return The graph
+	 */
+	public static Graph randomGraph(Graph graph, int size, double degree,
+			boolean directed, long seed) {
+		RandomGenerator gen = new RandomGenerator(degree, false, directed);
+
+		gen.setRandomSeed(seed);
+		gen.addSink(graph);
+		gen.begin();
+		while (graph.getNodeCount() < size)
+			gen.nextEvents();
+		gen.end();
+		gen.removeSink(graph);
+
+		return graph;
+	}
+
+	/**
+	 * Fill a graph with the Barabasi-Albert generator, seeded so that the
+	 * tests always run on the same graph.
+	 * 
+	 * @param graph
+	 *            The graph to fill
+	 * @param maxLinksPerStep
+	 *            The maximum number of edges of a new node
+	 * @param steps
+	 *            The number of nodes added after the initial ones
+	 * @param seed
+	 *            The seed of the generator
+	 * @return The graph
+	 */
+	public static Graph barabasiAlbertGraph(Graph graph, int maxLinksPerStep,
+			int steps, long seed) {
+		BarabasiAlbertGenerator gen = new BarabasiAlbertGenerator(
+				maxLinksPerStep);
+
+		gen.setRandomSeed(seed);
+		gen.addSink(graph);
+		gen.begin();
+		for (int i = 0; i < steps; i++)
+			gen.nextEvents();
+		gen.end();
+		gen.removeSink(graph);
+
+		return graph;
+	}
+
+	/**
+	 * Give each edge a random "weight" attribute, one of the ten values
+	 * 1, 1 + step, ..., 1 + 9 * step. With a step of 1 or 0.5, the sums of
+	 * weights are exact.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param step
+	 *            The difference between two consecutive weights
+	 * @param seed
+	 *            The seed of the weights
+	 * @return The graph
+	 */
+	public static Graph randomWeights(Graph graph, double step, long seed) {
+		Random random = new Random(seed);
+
+		for (Edge edge : graph.getEachEdge())
+			edge.setAttribute("weight", 1 + random.nextInt(10) * step);
+
+		return graph;
+	}
+
 	/**
 	 * Unit tests for {@link Toolkit#isClique(java.util.Collection)},
 	 * {@link Toolkit#isClique(java.util.Collection)},
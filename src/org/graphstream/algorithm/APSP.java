@@ -32,7 +32,13 @@
 package org.graphstream.algorithm;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.graphstream.algorithm.util.CompressedAdjacency;
+import org.graphstream.algorithm.util.CompressedAdjacency.Direction;
+import org.graphstream.algorithm.util.DistanceMatrix;
+import org.graphstream.algorithm.util.IndexedHeap;
+import org.graphstream.algorithm.util.TaskPool;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
@@ -219,6 +225,52 @@ import org.graphstream.stream.SinkAdapter;
  * lot of data on the graph, however far less than if we stored complete paths.
  * </p>
  * 
+ * <h2>Matrix storage</h2>
+ * <p>
+ * On large graphs, the routing tables above are costly: each relaxation of
+ * the Floyd-Warshall algorithm looks up distances in hash maps indexed by node
+ * identifiers. By calling {@link #setMatrixStorage(boolean)} with "true", the
+ * algorithm indexes the nodes once using their index in the graph and stores
+ * distances and predecessors in a dense {@link DistanceMatrix}. The matrix is
+ * stored outside of the Java heap when its number of cells exceeds the
+ * threshold given by {@link #setOffHeapThreshold(long)}. The node attributes
+ * are then instances of {@link MatrixAPSPInfo}, which provide the same
+ * {@link APSPInfo#getLengthTo(String)} and
+ * {@link APSPInfo#getShortestPathTo(String)} methods, but read them from the
+ * matrix. The {@link APSPInfo#targets} map is left empty in this mode.
+ * </p>
+ * <p>
+ * The matrix computation is a cache-blocked Floyd-Warshall. Its blocks can be
+ * computed by several threads: use {@link #setParallelism(int)} to choose the
+ * number of threads and {@link #setBlockSize(int)} to tune the block size. The
+ * progress indicator is then called once per block of intermediary nodes.
+ * </p>
+ * <p>
+ * On sparse graphs, computing one shortest path tree per node is far cheaper
+ * than Floyd-Warshall: O(n.(n+m).log(n)) with Dijkstra, and O(n.(n+m)) with a
+ * breadth first search when edges are not weighted. By default, the matrix
+ * computation chooses the method according to the density of the graph. This
+ * can be forced with {@link #setMethod(Method)}. The trees are computed by
+ * {@link #setParallelism(int)} threads and the progress indicator is called
+ * once per source.
+ * </p>
+ * <p>
+ * With both methods, the length from a node to itself is the length of the
+ * shortest cycle going through it, as with the routing tables, and the path
+ * to itself is this cycle. A node on no cycle has no path to itself. On an
+ * undirected graph, an edge followed back and forth is such a cycle.
+ * </p>
+ * <p>
+ * Last, the matrix can be maintained incrementally on dynamic graphs. Once
+ * {@link #setIncremental(boolean)} is called with "true" and a first
+ * computation is done, each edge addition, removal or weight change repairs
+ * only the affected pairs of nodes: the sources whose paths can use a lighter
+ * edge, or the subtrees hanging from an edge that got heavier in the shortest
+ * path trees of the sources using it. Node events still trigger a full
+ * computation, as well as negative weights. The lengths of the cycles going
+ * from a node back to itself are not maintained.
+ * </p>
+ * 
  * @complexity O(n^3) with n the number of nodes.
  * 
  * @reference Floyd, Robert W. "Algorithm 97: Shortest Path". Communications of
@@ -253,6 +305,94 @@ public class APSP extends SinkAdapter implements Algorithm {
 	
 	protected Progress progress = null;
 
+	/**
+	 * If true, distances and predecessors are stored in a dense matrix instead
+	 * of per node routing tables.
+	 */
+	protected boolean matrixStorage = false;
+
+	/**
+	 * Number of matrix cells above which the matrix is stored off-heap.
+	 */
+	protected long offHeapThreshold = DEFAULT_OFF_HEAP_THRESHOLD;
+
+	/**
+	 * The matrix of the last computation in matrix storage mode.
+	 */
+	protected DistanceMatrix matrix;
+
+	/**
+	 * Method used by the matrix computation.
+	 */
+	protected Method method = Method.AUTO;
+
+	/**
+	 * If true, the matrix is repaired after edge changes instead of being
+	 * recomputed.
+	 */
+	protected boolean incremental = false;
+
+	/**
+	 * Edge whose weight is being changed, and its new weight.
+	 */
+	protected Edge pendingEdge;
+
+	protected double pendingWeight;
+
+	/**
+	 * Marks of the nodes of the subtree being repaired, stamped to avoid
+	 * clearing them.
+	 */
+	protected int[] affected;
+
+	protected int[] affectedList;
+
+	protected int affectedStamp;
+
+	protected IndexedHeap repairHeap;
+
+	/**
+	 * Number of threads used by the matrix computation.
+	 */
+	protected int parallelism = 1;
+
+	/**
+	 * Number of rows and columns of the blocks of the matrix computation.
+	 */
+	protected int blockSize = DEFAULT_BLOCK_SIZE;
+
+	/**
+	 * Default number of matrix cells above which the matrix is stored
+	 * off-heap. This corresponds to graphs of about 4096 nodes.
+	 */
+	public static final long DEFAULT_OFF_HEAP_THRESHOLD = 1L << 24;
+
+	/**
+	 * Default size of the blocks of the matrix computation. A block of
+	 * distances then fits in 32KB.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 64;
+
+	/**
+	 * Methods available to fill the distance matrix.
+	 */
+	public static enum Method {
+		/**
+		 * Choose according to the graph density.
+		 */
+		AUTO,
+		/**
+		 * Blocked Floyd-Warshall, in O(n^3).
+		 */
+		FLOYD_WARSHALL,
+		/**
+		 * One shortest path tree per source, computed with a breadth first
+		 * search if the graph is not weighted or with Dijkstra algorithm
+		 * otherwise, in O(n.m.log(n)).
+		 */
+		SHORTEST_PATH_TREES
+	}
+
 	// Construction
 
 	public APSP() {
@@ -319,6 +459,72 @@ public class APSP extends SinkAdapter implements Algorithm {
 		return graph;
 	}
 
+	/**
+	 * True if distances are stored in a dense matrix.
+	 * 
+	 * @return True if the matrix storage is used.
+	 * @see #setMatrixStorage(boolean)
+	 */
+	public boolean isMatrixStorage() {
+		return matrixStorage;
+	}
+
+	/**
+	 * Number of matrix cells above which the matrix is stored off-heap.
+	 * 
+	 * @return The off-heap threshold.
+	 */
+	public long getOffHeapThreshold() {
+		return offHeapThreshold;
+	}
+
+	/**
+	 * The matrix filled by the last computation, indexed by node indices.
+	 * 
+	 * @return The distance matrix or null if the matrix storage is not used or
+	 *         nothing has been computed yet.
+	 */
+	public DistanceMatrix getDistanceMatrix() {
+		return matrix;
+	}
+
+	/**
+	 * Method used by the matrix computation.
+	 * 
+	 * @return The method.
+	 */
+	public Method getMethod() {
+		return method;
+	}
+
+	/**
+	 * True if the matrix is repaired after edge changes.
+	 * 
+	 * @return True if incremental.
+	 * @see #setIncremental(boolean)
+	 */
+	public boolean isIncremental() {
+		return incremental;
+	}
+
+	/**
+	 * Number of threads used by the matrix computation.
+	 * 
+	 * @return The thread count.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Size of the blocks of the matrix computation.
+	 * 
+	 * @return The block size.
+	 */
+	public int getBlockSize() {
+		return blockSize;
+	}
+
 	// Commands
 
 	/**
@@ -351,6 +557,93 @@ public class APSP extends SinkAdapter implements Algorithm {
 		weightAttributeName = name;
 	}
 
+	/**
+	 * Choose to store distances in a dense matrix indexed by node indices
+	 * rather than in routing tables indexed by node identifiers. This is far
+	 * faster and lighter on large graphs. The results are still available
+	 * through the {@link APSPInfo} attributes.
+	 * 
+	 * @param on
+	 *            If true the matrix storage is used.
+	 */
+	public void setMatrixStorage(boolean on) {
+		if (on != matrixStorage) {
+			matrixStorage = on;
+			graphChanged = true;
+		}
+	}
+
+	/**
+	 * Set the number of matrix cells (the square of the node count) above
+	 * which the matrix is stored outside of the Java heap. Use
+	 * {@link Long#MAX_VALUE} to always keep it on the heap.
+	 * 
+	 * @param cells
+	 *            The threshold.
+	 */
+	public void setOffHeapThreshold(long cells) {
+		offHeapThreshold = cells;
+	}
+
+	/**
+	 * Choose the method used to fill the matrix. This is only used with the
+	 * matrix storage, see {@link #setMatrixStorage(boolean)}. The shortest
+	 * path trees method does not support negative weights: Floyd-Warshall is
+	 * always used when such weights are present.
+	 * 
+	 * @param method
+	 *            The method.
+	 */
+	public void setMethod(Method method) {
+		if (method != this.method) {
+			this.method = method;
+			graphChanged = true;
+		}
+	}
+
+	/**
+	 * Choose to repair the matrix after each edge addition, removal or weight
+	 * change instead of recomputing it on the next call to {@link #compute()}.
+	 * This is only used with the matrix storage, see
+	 * {@link #setMatrixStorage(boolean)}, and when weights are not negative.
+	 * Node additions and removals still need a full computation.
+	 * 
+	 * @param on
+	 *            If true the matrix is maintained incrementally.
+	 */
+	public void setIncremental(boolean on) {
+		incremental = on;
+	}
+
+	/**
+	 * Set the number of threads used by the matrix computation. This is only
+	 * used with the matrix storage, see {@link #setMatrixStorage(boolean)}.
+	 * 
+	 * @param threads
+	 *            The thread count, at least 1.
+	 */
+	public void setParallelism(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("at least one thread is needed");
+
+		parallelism = threads;
+	}
+
+	/**
+	 * Set the size of the blocks of the matrix computation. The best value
+	 * depends on the processor caches: a block of distances takes 8 *
+	 * size^2 bytes.
+	 * 
+	 * @param size
+	 *            The number of rows and columns of the blocks.
+	 */
+	public void setBlockSize(int size) {
+		if (size < 1)
+			throw new IllegalArgumentException("block size must be positive");
+
+		blockSize = size;
+	}
+
 	/**
 	 * @see Algorithm#init(Graph)
 	 */
@@ -377,67 +670,426 @@ public class APSP extends SinkAdapter implements Algorithm {
 	 */
 	public void compute() {
 		if (graphChanged) {
-			// Make a list of all nodes, and equip them with APSP informations.
-			// The APSPInfo constructor add in each info item all the paths from
-			// the node to all its neighbour. It set the distance to 1 if there
-			// are no weights on edges.
+			if (matrixStorage)
+				computeMatrix();
+			else
+				computeTables();
+		}
+
+		graphChanged = false;
+	}
+
+	/**
+	 * Floyd-Warshall computation on the per node routing tables.
+	 */
+	protected void computeTables() {
+		if (matrix != null) {
+			matrix.release();
+			matrix = null;
+		}
 
-			ArrayList<Node> nodeList = new ArrayList<Node>();
+		// Make a list of all nodes, and equip them with APSP informations.
+		// The APSPInfo constructor add in each info item all the paths from
+		// the node to all its neighbour. It set the distance to 1 if there
+		// are no weights on edges.
 
-			for (Node node : graph) {
-				node.addAttribute(APSPInfo.ATTRIBUTE_NAME, new APSPInfo(node,
-						weightAttributeName, directed));
-				nodeList.add(node);
-			}
+		ArrayList<Node> nodeList = new ArrayList<Node>();
+
+		for (Node node : graph) {
+			node.addAttribute(APSPInfo.ATTRIBUTE_NAME, new APSPInfo(node,
+					weightAttributeName, directed));
+			nodeList.add(node);
+		}
 
-			// The Floyd-Warshall algorithm. You can easily see it is in O(n^3)..
-
-			// int z = 0;
-			double prog = 0;
-			double max  = nodeList.size();
-			max *= max;
-
-			for (Node k : nodeList) {
-				for (Node i : nodeList) {
-					for (Node j : nodeList) {
-						APSPInfo I = (APSPInfo) i.getAttribute(
-								APSPInfo.ATTRIBUTE_NAME, APSPInfo.class);
-						APSPInfo J = (APSPInfo) j.getAttribute(
-								APSPInfo.ATTRIBUTE_NAME, APSPInfo.class);
-						APSPInfo K = (APSPInfo) k.getAttribute(
-								APSPInfo.ATTRIBUTE_NAME, APSPInfo.class);
-
-						double Dij = I.getLengthTo(J.source.getId());
-						double Dik = I.getLengthTo(K.source.getId());
-						double Dkj = K.getLengthTo(J.source.getId());
-
-						// Take into account non-existing paths.
-
-						if (Dik >= 0 && Dkj >= 0) {
-							double sum = Dik + Dkj;
-
-							if (Dij >= 0) {
-								if (sum < Dij) {
-									I.setLengthTo(J, sum, K);
-								}
-							} else {
+		// The Floyd-Warshall algorithm. You can easily see it is in O(n^3)..
+
+		// int z = 0;
+		double prog = 0;
+		double max = nodeList.size();
+		max *= max;
+
+		for (Node k : nodeList) {
+			for (Node i : nodeList) {
+				for (Node j : nodeList) {
+					APSPInfo I = (APSPInfo) i.getAttribute(
+							APSPInfo.ATTRIBUTE_NAME, APSPInfo.class);
+					APSPInfo J = (APSPInfo) j.getAttribute(
+							APSPInfo.ATTRIBUTE_NAME, APSPInfo.class);
+					APSPInfo K = (APSPInfo) k.getAttribute(
+							APSPInfo.ATTRIBUTE_NAME, APSPInfo.class);
+
+					double Dij = I.getLengthTo(J.source.getId());
+					double Dik = I.getLengthTo(K.source.getId());
+					double Dkj = K.getLengthTo(J.source.getId());
+
+					// Take into account non-existing paths.
+
+					if (Dik >= 0 && Dkj >= 0) {
+						double sum = Dik + Dkj;
+
+						if (Dij >= 0) {
+							if (sum < Dij) {
 								I.setLengthTo(J, sum, K);
 							}
+						} else {
+							I.setLengthTo(J, sum, K);
 						}
 					}
-					
-					if (progress != null)
-						progress.progress(prog / max);
-					
-					prog += 1;
 				}
 
-				// z++;
-				// System.err.printf( "%3.2f%%%n", (z/((double)n))*100 );
+				if (progress != null)
+					progress.progress(prog / max);
+
+				prog += 1;
 			}
+
+			// z++;
+			// System.err.printf( "%3.2f%%%n", (z/((double)n))*100 );
 		}
+	}
 
-		graphChanged = false;
+	/**
+	 * Floyd-Warshall computation on a dense matrix indexed by node indices.
+	 * Once done, each node is equipped with a {@link MatrixAPSPInfo}.
+	 */
+	protected void computeMatrix() {
+		int n = graph.getNodeCount();
+
+		if (matrix != null)
+			matrix.release();
+
+		matrix = DistanceMatrix.create(n, offHeapThreshold);
+
+		CompressedAdjacency adj = new CompressedAdjacency(graph,
+				weightAttributeName, directed ? Direction.LEAVING
+						: Direction.BOTH);
+
+		if (useShortestPathTrees(adj)) {
+			computeShortestPathTrees(adj);
+		} else {
+			loadEdges(adj);
+			floydWarshallBlocked(n);
+		}
+
+		for (int i = 0; i < n; i++) {
+			Node node = graph.getNode(i);
+			node.addAttribute(APSPInfo.ATTRIBUTE_NAME, new MatrixAPSPInfo(node,
+					matrix, directed, weightAttributeName));
+		}
+	}
+
+	/**
+	 * Cache-blocked Floyd-Warshall on the matrix. The matrix is cut in square
+	 * blocks of {@link #blockSize} rows and columns. For each block of
+	 * intermediary nodes k, the diagonal block is computed first, then the
+	 * blocks of the same row and column, that depend only on the diagonal
+	 * block, and last all the other blocks, that depend only on the row and
+	 * column blocks. The blocks of the last two phases are independent and
+	 * are computed in parallel.
+	 * 
+	 * @param n
+	 *            The number of nodes.
+	 */
+	protected void floydWarshallBlocked(final int n) {
+		final int b = Math.max(1, blockSize);
+		final int blocks = (n + b - 1) / b;
+		TaskPool pool = new TaskPool(parallelism);
+
+		try {
+			for (int kb = 0; kb < blocks; kb++) {
+				final int k0 = kb * b;
+				final int k1 = Math.min(n, k0 + b);
+				final int kbf = kb;
+
+				relaxBlock(k0, k1, k0, k1, k0, k1);
+
+				ArrayList<Runnable> tasks = new ArrayList<Runnable>();
+
+				for (int xb = 0; xb < blocks; xb++) {
+					if (xb != kb) {
+						final int x0 = xb * b;
+						final int x1 = Math.min(n, x0 + b);
+
+						tasks.add(new Runnable() {
+							public void run() {
+								relaxBlock(k0, k1, x0, x1, k0, k1);
+								relaxBlock(x0, x1, k0, k1, k0, k1);
+							}
+						});
+					}
+				}
+
+				pool.execute(tasks);
+
+				pool.forRange(0, blocks, 1, new TaskPool.RangeTask() {
+					public void run(int from, int to) {
+						for (int ib = from; ib < to; ib++) {
+							if (ib == kbf)
+								continue;
+
+							int i0 = ib * b;
+							int i1 = Math.min(n, i0 + b);
+
+							for (int jb = 0; jb < blocks; jb++) {
+								if (jb != kbf)
+									relaxBlock(i0, i1, jb * b,
+											Math.min(n, jb * b + b), k0, k1);
+							}
+						}
+					}
+				});
+
+				if (progress != null)
+					progress.progress(k1 / (double) n);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Relax the paths from the rows [i0, i1) to the columns [j0, j1) through
+	 * the intermediary nodes [k0, k1).
+	 */
+	protected void relaxBlock(int i0, int i1, int j0, int j1, int k0, int k1) {
+		for (int k = k0; k < k1; k++) {
+			for (int i = i0; i < i1; i++) {
+				double Dik = matrix.getDistance(i, k);
+
+				// Infinity is the neutral element here, nothing can be
+				// improved through k.
+
+				if (Dik == Double.POSITIVE_INFINITY)
+					continue;
+
+				for (int j = j0; j < j1; j++) {
+					double sum = Dik + matrix.getDistance(k, j);
+
+					if (sum < matrix.getDistance(i, j))
+						matrix.set(i, j, sum, matrix.getPredecessor(k, j));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Initialize the matrix with the edges of the graph. When several edges
+	 * link the same nodes, the lightest one is kept.
+	 * 
+	 * @param adj
+	 *            The adjacency of the graph.
+	 */
+	protected void loadEdges(CompressedAdjacency adj) {
+		for (int i = 0; i < adj.nodeCount; i++) {
+			for (int p = adj.offsets[i]; p < adj.offsets[i + 1]; p++) {
+				int j = adj.neighbors[p];
+
+				if (adj.weights[p] < matrix.getDistance(i, j))
+					matrix.set(i, j, adj.weights[p], i);
+			}
+		}
+	}
+
+	/**
+	 * True if the shortest path trees method should be used on the given
+	 * graph, according to {@link #method}.
+	 * 
+	 * @param adj
+	 *            The adjacency of the graph.
+	 * @return True for shortest path trees, false for Floyd-Warshall.
+	 */
+	protected boolean useShortestPathTrees(CompressedAdjacency adj) {
+		// Dijkstra does not support negative weights.
+
+		if (method == Method.FLOYD_WARSHALL || adj.negativeWeights)
+			return false;
+
+		if (method == Method.SHORTEST_PATH_TREES)
+			return true;
+
+		// Floyd-Warshall costs n^3 while n searches cost n.(n+m) with a BFS
+		// and n.(n+m).log(n) with Dijkstra. The blocked Floyd-Warshall has far
+		// better constants, hence the factor 4.
+
+		double n = adj.nodeCount;
+		double cost = 4 * (n + adj.size());
+
+		if (adj.weighted)
+			cost *= Math.max(1, Math.log(n) / Math.log(2));
+
+		return cost < n * n;
+	}
+
+	/**
+	 * Fill the matrix by computing a shortest path tree from each node. The
+	 * sources are shared between {@link #parallelism} threads, each thread
+	 * owning its search arrays and writing only the rows of its sources. The
+	 * diagonal is filled by
+	 * {@link #shortestCycle(CompressedAdjacency, int, double[])}.
+	 * 
+	 * @param adj
+	 *            The adjacency of the graph.
+	 */
+	protected void computeShortestPathTrees(final CompressedAdjacency adj) {
+		final int n = adj.nodeCount;
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicInteger done = new AtomicInteger();
+		ArrayList<Runnable> tasks = new ArrayList<Runnable>();
+
+		for (int t = 0; t < parallelism; t++) {
+			tasks.add(new Runnable() {
+				public void run() {
+					double[] dist = new double[n];
+					int[] pred = new int[n];
+					IndexedHeap heap = adj.weighted ? new IndexedHeap(n) : null;
+					int[] queue = adj.weighted ? null : new int[n];
+					int s;
+
+					while ((s = next.getAndIncrement()) < n) {
+						if (adj.weighted)
+							dijkstra(adj, s, dist, pred, heap);
+						else
+							breadthFirstSearch(adj, s, dist, pred, queue);
+
+						for (int j = 0; j < n; j++)
+							if (j != s)
+								matrix.set(s, j, dist[j], pred[j]);
+
+						shortestCycle(adj, s, dist);
+
+						reportProgress(done.incrementAndGet() / (double) n);
+					}
+				}
+			});
+		}
+
+		TaskPool pool = new TaskPool(parallelism);
+
+		try {
+			pool.execute(tasks);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Store on the diagonal of the matrix the shortest cycle going from a
+	 * source back to itself, as Floyd-Warshall does: the lightest path to a
+	 * node with an edge toward the source, plus this edge.
+	 * 
+	 * @param adj
+	 *            The adjacency of the graph.
+	 * @param s
+	 *            The source index.
+	 * @param dist
+	 *            The distances from the source.
+	 */
+	protected void shortestCycle(CompressedAdjacency adj, int s, double[] dist) {
+		double cycle = Double.POSITIVE_INFINITY;
+		int last = DistanceMatrix.NO_PREDECESSOR;
+
+		for (int u = 0; u < adj.nodeCount; u++) {
+			if (dist[u] == Double.POSITIVE_INFINITY)
+				continue;
+
+			for (int p = adj.offsets[u]; p < adj.offsets[u + 1]; p++) {
+				if (adj.neighbors[p] == s && dist[u] + adj.weights[p] < cycle) {
+					cycle = dist[u] + adj.weights[p];
+					last = u;
+				}
+			}
+		}
+
+		matrix.set(s, s, cycle, last);
+	}
+
+	/**
+	 * Dijkstra shortest path tree from a source.
+	 * 
+	 * @param adj
+	 *            The adjacency of the graph.
+	 * @param s
+	 *            The source index.
+	 * @param dist
+	 *            Filled with the distances from the source.
+	 * @param pred
+	 *            Filled with the predecessors in the tree.
+	 * @param heap
+	 *            An empty heap of capacity n.
+	 */
+	protected static void dijkstra(CompressedAdjacency adj, int s,
+			double[] dist, int[] pred, IndexedHeap heap) {
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		Arrays.fill(pred, DistanceMatrix.NO_PREDECESSOR);
+
+		dist[s] = 0;
+		heap.add(s, 0);
+
+		while (!heap.isEmpty()) {
+			double d = heap.getMinPriority();
+			int u = heap.extractMin();
+
+			for (int p = adj.offsets[u]; p < adj.offsets[u + 1]; p++) {
+				int v = adj.neighbors[p];
+				double dv = d + adj.weights[p];
+
+				if (dv < dist[v]) {
+					dist[v] = dv;
+					pred[v] = u;
+					heap.addOrDecrease(v, dv);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Breadth first shortest path tree from a source, all the edges having a
+	 * weight of 1.
+	 * 
+	 * @param adj
+	 *            The adjacency of the graph.
+	 * @param s
+	 *            The source index.
+	 * @param dist
+	 *            Filled with the distances from the source.
+	 * @param pred
+	 *            Filled with the predecessors in the tree.
+	 * @param queue
+	 *            An array of size n used as queue.
+	 */
+	protected static void breadthFirstSearch(CompressedAdjacency adj, int s,
+			double[] dist, int[] pred, int[] queue) {
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		Arrays.fill(pred, DistanceMatrix.NO_PREDECESSOR);
+
+		int head = 0, tail = 0;
+
+		dist[s] = 0;
+		queue[tail++] = s;
+
+		while (head < tail) {
+			int u = queue[head++];
+			double dv = dist[u] + 1;
+
+			for (int p = adj.offsets[u]; p < adj.offsets[u + 1]; p++) {
+				int v = adj.neighbors[p];
+
+				if (dist[v] == Double.POSITIVE_INFINITY) {
+					dist[v] = dv;
+					pred[v] = u;
+					queue[tail++] = v;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Call the progress indicator, if any. Calls coming from several threads
+	 * are serialized.
+	 */
+	protected synchronized void reportProgress(double percent) {
+		if (progress != null)
+			progress.progress(percent);
 	}
 
 	/**
@@ -502,6 +1154,17 @@ public class APSP extends SinkAdapter implements Algorithm {
 			}
 		}
 
+		/**
+		 * Create an empty information for the given node. Used by subclasses
+		 * that do not store their paths in the {@link #targets} map.
+		 * 
+		 * @param node
+		 *            The node to start from.
+		 */
+		protected APSPInfo(Node node) {
+			source = node;
+		}
+
 		/**
 		 * The node represented by this APSP information.
 		 * 
@@ -684,6 +1347,221 @@ public class APSP extends SinkAdapter implements Algorithm {
 		}
 	}
 
+	/**
+	 * APSP information reading its data from a row of a {@link DistanceMatrix}
+	 * indexed by node indices. This is the kind of information stored on nodes
+	 * when the matrix storage is used.
+	 * 
+	 * <p>
+	 * The node indices are the ones of the graph at the time of the
+	 * computation, so as any other {@link APSPInfo}, this information must be
+	 * recomputed when the graph changes.
+	 * </p>
+	 */
+	public static class MatrixAPSPInfo extends APSPInfo {
+		/**
+		 * The matrix holding the distances.
+		 */
+		protected DistanceMatrix matrix;
+
+		/**
+		 * Row of the source node in the matrix.
+		 */
+		protected int row;
+
+		/**
+		 * If false, the edge orientation is not taken into account when
+		 * rebuilding paths.
+		 */
+		protected boolean directed;
+
+		/**
+		 * Name of the edge attribute giving the weights, used to choose
+		 * between parallel edges when rebuilding paths. If null, all the
+		 * weights are 1.
+		 */
+		protected String weightAttributeName;
+
+		/**
+		 * Create the information of a node whose paths have been computed in
+		 * the given matrix, on a graph whose edges all weigh 1.
+		 * 
+		 * @param node
+		 *            The node to start from.
+		 * @param matrix
+		 *            The matrix holding the distances.
+		 * @param directed
+		 *            If false, the edge orientation is not taken into account.
+		 */
+		public MatrixAPSPInfo(Node node, DistanceMatrix matrix, boolean directed) {
+			this(node, matrix, directed, null);
+		}
+
+		/**
+		 * Create the information of a node whose paths have been computed in
+		 * the given matrix.
+		 * 
+		 * @param node
+		 *            The node to start from.
+		 * @param matrix
+		 *            The matrix holding the distances.
+		 * @param directed
+		 *            If false, the edge orientation is not taken into account.
+		 * @param weightAttributeName
+		 *            The edge attribute giving the weights, or null.
+		 */
+		public MatrixAPSPInfo(Node node, DistanceMatrix matrix,
+				boolean directed, String weightAttributeName) {
+			super(node);
+
+			this.matrix = matrix;
+			this.row = node.getIndex();
+			this.directed = directed;
+			this.weightAttributeName = weightAttributeName;
+		}
+
+		/**
+		 * Minimum distance between this node and the node of the given index.
+		 * 
+		 * @param index
+		 *            The other node index.
+		 * @return The distance or -1 if there is no path between the two
+		 *         nodes.
+		 */
+		public double getLengthTo(int index) {
+			double d = matrix.getDistance(row, index);
+
+			return d == Double.POSITIVE_INFINITY ? -1 : d;
+		}
+
+		@Override
+		public double getLengthTo(String other) {
+			Node node = source.getGraph().getNode(other);
+
+			if (node == null)
+				return -1;
+
+			return getLengthTo(node.getIndex());
+		}
+
+		/**
+		 * The minimum distance between this node and another. Contrary to the
+		 * routing table storage, this is the real minimum.
+		 * 
+		 * @return A distance.
+		 */
+		@Override
+		public double getMinimumLength() {
+			updateBounds();
+			return minLength;
+		}
+
+		/**
+		 * The maximum distance between this node and another. Contrary to the
+		 * routing table storage, this is the real maximum.
+		 * 
+		 * @return A distance.
+		 */
+		@Override
+		public double getMaximumLength() {
+			updateBounds();
+			return maxLength;
+		}
+
+		/**
+		 * Compute the minimum and maximum lengths from the matrix row. This is
+		 * done on demand since the matrix may be updated incrementally.
+		 */
+		protected void updateBounds() {
+			int n = matrix.size();
+
+			minLength = Double.MAX_VALUE;
+			maxLength = Double.MIN_VALUE;
+
+			for (int j = 0; j < n; j++) {
+				double d = matrix.getDistance(row, j);
+
+				if (j != row && d != Double.POSITIVE_INFINITY) {
+					if (d < minLength)
+						minLength = d;
+
+					if (d > maxLength)
+						maxLength = d;
+				}
+			}
+		}
+
+		@Override
+		public Path getShortestPathTo(String other) {
+			Graph g = source.getGraph();
+			Node target = g.getNode(other);
+
+			if (target == null
+					|| matrix.getDistance(row, target.getIndex()) == Double.POSITIVE_INFINITY)
+				return null;
+
+			// Follow the predecessors from the target back to the source. The
+			// loop runs at least once so that a cycle from the source to
+			// itself is rebuilt too.
+
+			LinkedList<Node> nodePath = new LinkedList<Node>();
+			int j = target.getIndex();
+			int steps = 0;
+
+			do {
+				nodePath.addFirst(g.getNode(j));
+				j = matrix.getPredecessor(row, j);
+
+				if (j == DistanceMatrix.NO_PREDECESSOR || ++steps > matrix.size())
+					return null;
+			} while (j != row);
+
+			nodePath.addFirst(source);
+
+			Path path = new Path();
+			Node previous = null;
+
+			for (Node node : nodePath) {
+				if (previous != null)
+					path.add(previous, getEdge(previous, node));
+
+				previous = node;
+			}
+
+			return path;
+		}
+
+		/**
+		 * The lightest edge allowing to go from one node to another. On
+		 * multigraphs, the matrix only knows the predecessor of a node, and
+		 * the path has to take the edge the distances were computed with.
+		 */
+		protected Edge getEdge(Node from, Node to) {
+			Iterable<? extends Edge> edges = directed ? from
+					.getLeavingEdgeSet() : from.getEdgeSet();
+			Edge lightest = null;
+			double min = Double.POSITIVE_INFINITY;
+
+			for (Edge edge : edges) {
+				if (edge.getOpposite(from) != to)
+					continue;
+
+				double weight = 1;
+
+				if (weightAttributeName != null
+						&& edge.hasAttribute(weightAttributeName))
+					weight = edge.getNumber(weightAttributeName);
+
+				if (lightest == null || weight < min) {
+					lightest = edge;
+					min = weight;
+				}
+			}
+
+			return lightest;
+		}
+	}
+
 	// Sink implementation
 
 	@Override
@@ -699,12 +1577,22 @@ public class APSP extends SinkAdapter implements Algorithm {
 	@Override
 	public void edgeAdded(String graphId, long timeId, String edgeId,
 			String fromNodeId, String toNodeId, boolean directed) {
-		graphChanged = true;
+		Edge edge = canRepair() ? graph.getEdge(edgeId) : null;
+
+		if (edge != null)
+			edgeChanged(edge, Double.POSITIVE_INFINITY, getWeight(edge));
+		else
+			graphChanged = true;
 	}
 
 	@Override
 	public void edgeRemoved(String graphId, long timeId, String edgeId) {
-		graphChanged = true;
+		Edge edge = canRepair() ? graph.getEdge(edgeId) : null;
+
+		if (edge != null)
+			edgeChanged(edge, getWeight(edge), Double.POSITIVE_INFINITY);
+		else
+			graphChanged = true;
 	}
 
 	@Override
@@ -716,7 +1604,7 @@ public class APSP extends SinkAdapter implements Algorithm {
 	public void edgeAttributeAdded(String graphId, long timeId, String edgeId,
 			String attribute, Object value) {
 		if (attribute.equals(weightAttributeName)) {
-			graphChanged = true;
+			weightChanged(edgeId, 1, value);
 		}
 	}
 
@@ -724,10 +1612,268 @@ public class APSP extends SinkAdapter implements Algorithm {
 	public void edgeAttributeChanged(String graphId, long timeId,
 			String edgeId, String attribute, Object oldValue, Object value) {
 		if (attribute.equals(weightAttributeName)) {
+			weightChanged(edgeId, oldValue, value);
+		}
+	}
+
+	@Override
+	public void edgeAttributeRemoved(String graphId, long timeId,
+			String edgeId, String attribute) {
+		if (attribute.equals(weightAttributeName)) {
+			weightChanged(edgeId, null, 1);
+		}
+	}
+
+	// Incremental maintenance
+
+	/**
+	 * True if the matrix is up to date and can be repaired after an edge
+	 * change instead of being recomputed.
+	 */
+	protected boolean canRepair() {
+		return incremental && matrixStorage && matrix != null && !graphChanged
+				&& matrix.size() == graph.getNodeCount();
+	}
+
+	/**
+	 * Repair the matrix after a change of the weight attribute of an edge, or
+	 * mark the graph as changed if this is not possible.
+	 * 
+	 * @param edgeId
+	 *            The edge identifier.
+	 * @param oldValue
+	 *            The old attribute value, null if unknown.
+	 * @param value
+	 *            The new attribute value.
+	 */
+	protected void weightChanged(String edgeId, Object oldValue, Object value) {
+		Edge edge = canRepair() ? graph.getEdge(edgeId) : null;
+
+		if (edge != null && value instanceof Number) {
+			double oldWeight = oldValue instanceof Number ? ((Number) oldValue)
+					.doubleValue() : Double.NaN;
+
+			edgeChanged(edge, oldWeight, ((Number) value).doubleValue());
+		} else {
 			graphChanged = true;
 		}
 	}
 
+	/**
+	 * Repair the matrix after a change of the weight of an edge. An added
+	 * edge had an infinite weight and a removed edge gets an infinite weight.
+	 * 
+	 * <p>
+	 * When a weight decreases, only the sources whose distance to the head of
+	 * the edge decreases are updated. When a weight increases, only the
+	 * sources whose shortest path tree uses the edge are updated, and for
+	 * each of them only the subtree below the edge is recomputed with a
+	 * Dijkstra search limited to this subtree.
+	 * </p>
+	 * 
+	 * @param edge
+	 *            The changed edge.
+	 * @param oldWeight
+	 *            The previous weight, NaN if unknown.
+	 * @param newWeight
+	 *            The new weight.
+	 */
+	protected void edgeChanged(Edge edge, double oldWeight, double newWeight) {
+		if (newWeight < 0 || Double.isNaN(newWeight)) {
+			// Negative weights need the full Floyd-Warshall.
+			graphChanged = true;
+			return;
+		}
+
+		int u = edge.getSourceNode().getIndex();
+		int v = edge.getTargetNode().getIndex();
+		boolean both = !directed || !edge.isDirected();
+
+		if (u == v || newWeight == oldWeight)
+			return;
+
+		if (affected == null || affected.length != matrix.size()) {
+			affected = new int[matrix.size()];
+			affectedList = new int[matrix.size()];
+			affectedStamp = 0;
+			repairHeap = new IndexedHeap(matrix.size());
+		}
+
+		pendingEdge = edge;
+		pendingWeight = newWeight;
+
+		try {
+			if (!(newWeight < oldWeight)) {
+				repairIncrease(u, v);
+
+				if (both)
+					repairIncrease(v, u);
+			}
+
+			if (!(newWeight > oldWeight)) {
+				repairDecrease(u, v, newWeight);
+
+				if (both)
+					repairDecrease(v, u, newWeight);
+			}
+		} finally {
+			pendingEdge = null;
+		}
+	}
+
+	/**
+	 * Update the paths that can use the edge u to v after its weight
+	 * decreased to w.
+	 */
+	protected void repairDecrease(int u, int v, double w) {
+		int n = matrix.size();
+
+		for (int x = 0; x < n; x++) {
+			if (x == v)
+				continue;
+
+			double dv = distance(x, u) + w;
+
+			if (!(dv < matrix.getDistance(x, v)))
+				continue;
+
+			for (int y = 0; y < n; y++) {
+				if (y == x)
+					continue;
+
+				double d = dv + distance(v, y);
+
+				if (d < matrix.getDistance(x, y))
+					matrix.set(x, y, d, y == v ? u : matrix.getPredecessor(v, y));
+			}
+		}
+	}
+
+	/**
+	 * Update the paths that used the edge u to v before its weight
+	 * increased.
+	 */
+	protected void repairIncrease(int u, int v) {
+		int n = matrix.size();
+
+		for (int x = 0; x < n; x++)
+			if (x != v && matrix.getPredecessor(x, v) == u)
+				repairSubtree(x, v);
+	}
+
+	/**
+	 * Recompute the distances from x to the nodes of the subtree of v in the
+	 * shortest path tree of x.
+	 */
+	protected void repairSubtree(int x, int v) {
+		int stamp = ++affectedStamp;
+		int count = 0;
+
+		// Collect the subtree: the children of a node z are the heads of its
+		// out edges whose predecessor is z.
+
+		affected[v] = stamp;
+		affectedList[count++] = v;
+
+		for (int i = 0; i < count; i++) {
+			int z = affectedList[i];
+
+			for (Edge edge : outEdges(graph.getNode(z))) {
+				int y = edge.getOpposite(graph.getNode(z)).getIndex();
+
+				if (y != x && affected[y] != stamp
+						&& matrix.getPredecessor(x, y) == z) {
+					affected[y] = stamp;
+					affectedList[count++] = y;
+				}
+			}
+		}
+
+		// Each node of the subtree starts with its best path coming from
+		// outside of the subtree.
+
+		for (int i = 0; i < count; i++) {
+			int y = affectedList[i];
+			Node node = graph.getNode(y);
+			double best = Double.POSITIVE_INFINITY;
+			int pred = DistanceMatrix.NO_PREDECESSOR;
+
+			for (Edge edge : inEdges(node)) {
+				int z = edge.getOpposite(node).getIndex();
+
+				if (affected[z] != stamp) {
+					double d = distance(x, z) + getWeight(edge);
+
+					if (d < best) {
+						best = d;
+						pred = z;
+					}
+				}
+			}
+
+			matrix.set(x, y, best, pred);
+
+			if (best != Double.POSITIVE_INFINITY)
+				repairHeap.add(y, best);
+		}
+
+		// Dijkstra limited to the subtree.
+
+		while (!repairHeap.isEmpty()) {
+			double d = repairHeap.getMinPriority();
+			int z = repairHeap.extractMin();
+			Node node = graph.getNode(z);
+
+			for (Edge edge : outEdges(node)) {
+				int y = edge.getOpposite(node).getIndex();
+
+				if (affected[y] == stamp) {
+					double dy = d + getWeight(edge);
+
+					if (dy < matrix.getDistance(x, y)) {
+						matrix.set(x, y, dy, z);
+						repairHeap.addOrDecrease(y, dy);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Distance from x to y in the matrix, 0 if x is y.
+	 */
+	protected double distance(int x, int y) {
+		return x == y ? 0 : matrix.getDistance(x, y);
+	}
+
+	protected Iterable<? extends Edge> outEdges(Node node) {
+		return directed ? node.getLeavingEdgeSet() : node.getEdgeSet();
+	}
+
+	protected Iterable<? extends Edge> inEdges(Node node) {
+		return directed ? node.getEnteringEdgeSet() : node.getEdgeSet();
+	}
+
+	/**
+	 * The weight of an edge, 1 if it has no weight attribute. The weight of
+	 * an edge being changed is the new one, even if the edge attribute is not
+	 * updated yet.
+	 * 
+	 * @param edge
+	 *            The edge.
+	 * @return The edge weight.
+	 */
+	protected double getWeight(Edge edge) {
+		if (edge == pendingEdge)
+			return pendingWeight;
+
+		if (weightAttributeName != null
+				&& edge.hasAttribute(weightAttributeName))
+			return edge.getNumber(weightAttributeName);
+
+		return 1;
+	}
+
 	/**
 	 * Interface allowing to be notified of the algorithm progress.
 	 */
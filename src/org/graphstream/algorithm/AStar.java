@@ -35,9 +35,14 @@ import static org.graphstream.algorithm.Toolkit.edgeLength;
 import static org.graphstream.algorithm.Toolkit.nodePosition;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 
+import org.graphstream.algorithm.util.CompressedAdjacency;
+import org.graphstream.algorithm.util.CompressedAdjacency.Direction;
+import org.graphstream.algorithm.util.IndexedHeap;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
@@ -105,6 +110,13 @@ import org.graphstream.graph.Path;
  * astar.compute("A", "Z"); 
  * Path path = astar.getShortestPath();
  * </pre>
+ * <p>
+ * When edge weights are not geometric distances (travel times for example),
+ * {@link LandmarkCosts} gives a heuristic computed from the distances to a
+ * few landmark nodes. It needs a precomputation, but makes long-range queries
+ * much faster, especially with the bidirectional search of
+ * {@link AStarEngine}.
+ * </p>
  * 
  * <h2>Example</h2>
  * 
@@ -163,7 +175,8 @@ import org.graphstream.graph.Path;
  * }
  * </pre>
  *
- * @complexity The complexity of A* depends on the heuristic.
+ * @complexity The complexity of A* depends on the heuristic. Each step takes
+ *             O(log(n)) with n the number of nodes in the open set.
  */
 public class AStar implements Algorithm {
 	/**
@@ -193,6 +206,11 @@ public class AStar implements Algorithm {
 	 */
 	protected HashMap<Node, AStarNode> open = new HashMap<Node, AStarNode>();
 
+	/**
+	 * The indices of the nodes of the open set, ordered by rank.
+	 */
+	protected IndexedHeap openQueue;
+
 	/**
 	 * The closed set.
 	 */
@@ -395,6 +413,9 @@ public class AStar implements Algorithm {
 		open.clear();
 		closed.clear();
 
+		if (openQueue != null)
+			openQueue.clear();
+
 		result = null;
 		pathFound = false;
 	}
@@ -409,10 +430,13 @@ public class AStar implements Algorithm {
 	 */
 	protected void aStar(Node sourceNode, Node targetNode) {
 		clearAll();
-		open.put(
-				sourceNode,
-				new AStarNode(sourceNode, null, null, 0, costs.heuristic(
-						sourceNode, targetNode)));
+
+		if (openQueue == null
+				|| openQueue.getCapacity() != graph.getNodeCount())
+			openQueue = new IndexedHeap(graph.getNodeCount());
+
+		open(new AStarNode(sourceNode, null, null, 0, costs.heuristic(
+				sourceNode, targetNode)));
 
 		pathFound = false;
 
@@ -429,6 +453,7 @@ public class AStar implements Algorithm {
 				return;
 			} else {
 				open.remove(current.node);
+				openQueue.extractMin();
 				closed.put(current.node, current);
 
 				// For each successor of the current node :
@@ -460,33 +485,41 @@ public class AStar implements Algorithm {
 						continue;
 
 					closed.remove(next);
-					open.put(next, new AStarNode(next, edge, current, g, h));
+					open(new AStarNode(next, edge, current, g, h));
 				}
 			}
 		}
 	}
 
 	/**
-	 * Find the node with the lowest rank in the open list.
+	 * Put a node in the open set, or replace the node of the open set with a
+	 * better rank.
 	 * 
-	 * @return The node of open that has the lowest rank.
+	 * @param node
+	 *            The new node.
 	 */
-	protected AStarNode getNextBetterNode() {
-		// TODO: consider using a priority queue here ?
-		// The problem is that we use open has a hash to ensure
-		// a node we will add to to open is not yet in it.
+	protected void open(AStarNode node) {
+		int index = node.node.getIndex();
 
-		double min = Float.MAX_VALUE;
-		AStarNode theChosenOne = null;
+		open.put(node.node, node);
 
-		for (AStarNode node : open.values()) {
-			if (node.rank < min) {
-				theChosenOne = node;
-				min = node.rank;
-			}
-		}
+		if (openQueue.contains(index))
+			openQueue.decreasePriority(index, node.rank);
+		else
+			openQueue.add(index, node.rank);
+	}
 
-		return theChosenOne;
+	/**
+	 * Find the node with the lowest rank in the open list. This is the top of
+	 * the open queue, found in constant time.
+	 * 
+	 * @return The node of open that has the lowest rank.
+	 */
+	protected AStarNode getNextBetterNode() {
+		if (openQueue.isEmpty())
+			return null;
+
+		return open.get(graph.getNode(openQueue.getMin()));
 	}
 
 	// Nested classes
@@ -622,6 +655,298 @@ public class AStar implements Algorithm {
 		}
 	}
 
+	/**
+	 * An implementation of the Costs interface using landmarks (the ALT
+	 * heuristic, for A*, Landmarks and Triangle inequality). Costs are read
+	 * from a weight attribute as in {@link DefaultCosts}, which is useful
+	 * when the weights are not distances but for example travel times, for
+	 * which there is no geometric heuristic.
+	 * 
+	 * <p>
+	 * A few nodes are chosen as landmarks and the distances from each landmark
+	 * to all the nodes, and from all the nodes to each landmark, are computed
+	 * once in {@link #init(Graph)}. Then, by the triangle inequality, for
+	 * each landmark L, d(v, t) &gt;= d(L, t) - d(L, v) and d(v, t) &gt;= d(v, L)
+	 * - d(t, L). The heuristic is the largest of these lower bounds. It is
+	 * admissible and consistent, so it can also be used with the bidirectional
+	 * search of {@link AStarEngine}.
+	 * </p>
+	 * 
+	 * <p>
+	 * Landmarks are best placed at the periphery of the graph, behind the
+	 * targets when seen from the sources. Two selection strategies are
+	 * available:
+	 * </p>
+	 * <ul>
+	 * <li>{@link Selection#FARTHEST}: the first landmark is the node the
+	 * farthest from an arbitrary node, then each new landmark is the node the
+	 * farthest from the landmarks already chosen;</li>
+	 * <li>{@link Selection#DEGREE}: the nodes with the highest degree.</li>
+	 * </ul>
+	 * 
+	 * <p>
+	 * The precomputation runs one Dijkstra per landmark and direction and
+	 * stores 2.k.n doubles for k landmarks and n nodes (k.n in undirected
+	 * graphs). It must be done again with {@link #init(Graph)} if the graph
+	 * or the weights change. Weights must not be negative.
+	 * </p>
+	 * 
+	 * <pre>
+	 * AStar.LandmarkCosts costs = new AStar.LandmarkCosts(&quot;time&quot;, 16,
+	 * 		AStar.LandmarkCosts.Selection.FARTHEST);
+	 * costs.init(graph);
+	 * astar.setCosts(costs);
+	 * </pre>
+	 */
+	public static class LandmarkCosts extends DefaultCosts {
+		/**
+		 * How landmarks are chosen.
+		 */
+		public static enum Selection {
+			/**
+			 * Farthest-point selection.
+			 */
+			FARTHEST,
+			/**
+			 * The nodes of highest degree.
+			 */
+			DEGREE
+		}
+
+		/**
+		 * Number of landmarks wanted.
+		 */
+		protected int landmarkCount;
+
+		/**
+		 * The selection strategy.
+		 */
+		protected Selection selection;
+
+		/**
+		 * Indices of the landmarks.
+		 */
+		protected int[] landmarks;
+
+		/**
+		 * Distances from each landmark to each node, indexed by landmark then
+		 * node index. Infinity if the node is not reachable.
+		 */
+		protected double[][] from;
+
+		/**
+		 * Distances from each node to each landmark. Same array as
+		 * {@link #from} if the graph is undirected.
+		 */
+		protected double[][] to;
+
+		/**
+		 * New landmark costs using the "weight" attribute, with 8 landmarks
+		 * chosen by farthest-point selection.
+		 */
+		public LandmarkCosts() {
+			this("weight", 8, Selection.FARTHEST);
+		}
+
+		/**
+		 * New landmark costs.
+		 * 
+		 * @param weightAttributeName
+		 *            The name of cost attributes on edges.
+		 * @param landmarkCount
+		 *            The number of landmarks.
+		 * @param selection
+		 *            How landmarks are chosen.
+		 */
+		public LandmarkCosts(String weightAttributeName, int landmarkCount,
+				Selection selection) {
+			super(weightAttributeName);
+
+			if (landmarkCount < 1)
+				throw new IllegalArgumentException(
+						"at least one landmark is needed");
+
+			this.landmarkCount = landmarkCount;
+			this.selection = selection;
+		}
+
+		/**
+		 * Choose the landmarks and compute their distances to and from all the
+		 * nodes of the graph. Must be called before the costs are used, and
+		 * each time the graph or its weights change.
+		 * 
+		 * @param graph
+		 *            The graph.
+		 */
+		public void init(Graph graph) {
+			int n = graph.getNodeCount();
+			int k = Math.min(landmarkCount, n);
+			boolean directed = false;
+
+			for (Edge e : graph.getEachEdge()) {
+				if (e.isDirected()) {
+					directed = true;
+					break;
+				}
+			}
+
+			CompressedAdjacency forward = new CompressedAdjacency(graph,
+					weightAttribute, Direction.LEAVING);
+			CompressedAdjacency backward = directed ? new CompressedAdjacency(
+					graph, weightAttribute, Direction.ENTERING) : forward;
+
+			if (forward.negativeWeights)
+				throw new IllegalArgumentException(
+						"landmarks need non negative weights");
+
+			IndexedHeap heap = new IndexedHeap(n);
+
+			landmarks = new int[k];
+			from = new double[k][];
+			to = directed ? new double[k][] : from;
+
+			if (selection == Selection.DEGREE) {
+				Integer[] order = new Integer[n];
+
+				for (int i = 0; i < n; i++)
+					order[i] = i;
+
+				final Graph g = graph;
+
+				Arrays.sort(order, new Comparator<Integer>() {
+					public int compare(Integer a, Integer b) {
+						return g.getNode(b).getDegree()
+								- g.getNode(a).getDegree();
+					}
+				});
+
+				for (int l = 0; l < k; l++)
+					landmarks[l] = order[l];
+			} else if (k > 0) {
+				double[] closest = new double[n];
+				double[] start = new double[n];
+				boolean[] chosen = new boolean[n];
+
+				dijkstra(forward, 0, start, heap);
+				landmarks[0] = farthest(start, chosen);
+
+				Arrays.fill(closest, Double.POSITIVE_INFINITY);
+
+				for (int l = 0; l < k; l++) {
+					if (l > 0)
+						landmarks[l] = farthest(closest, chosen);
+
+					chosen[landmarks[l]] = true;
+
+					from[l] = new double[n];
+					dijkstra(forward, landmarks[l], from[l], heap);
+
+					for (int i = 0; i < n; i++)
+						closest[i] = Math.min(closest[i], from[l][i]);
+				}
+			}
+
+			for (int l = 0; l < k; l++) {
+				if (from[l] == null) {
+					from[l] = new double[n];
+					dijkstra(forward, landmarks[l], from[l], heap);
+				}
+
+				if (directed) {
+					to[l] = new double[n];
+					dijkstra(backward, landmarks[l], to[l], heap);
+				}
+			}
+		}
+
+		/**
+		 * Indices of the landmarks chosen by the last call to
+		 * {@link #init(Graph)}.
+		 * 
+		 * @return The landmark indices, or null if not initialized.
+		 */
+		public int[] getLandmarks() {
+			return landmarks;
+		}
+
+		/**
+		 * The largest lower bound on the distance from node to target given by
+		 * the landmarks.
+		 * 
+		 * @return The estimation.
+		 */
+		@Override
+		public double heuristic(Node node, Node target) {
+			if (landmarks == null)
+				throw new IllegalStateException(
+						"landmarks have not been initialized");
+
+			int v = node.getIndex();
+			int t = target.getIndex();
+			double best = 0;
+
+			for (int l = 0; l < landmarks.length; l++) {
+				double[] f = from[l];
+				double[] b = to[l];
+
+				// Unreachable nodes give no bound.
+				if (f[t] != Double.POSITIVE_INFINITY
+						&& f[v] != Double.POSITIVE_INFINITY)
+					best = Math.max(best, f[t] - f[v]);
+
+				if (b[v] != Double.POSITIVE_INFINITY
+						&& b[t] != Double.POSITIVE_INFINITY)
+					best = Math.max(best, b[v] - b[t]);
+			}
+
+			return best;
+		}
+
+		/**
+		 * The node with the largest distance that is not already a
+		 * landmark. Unreachable nodes come first, so that each connected
+		 * component gets a landmark.
+		 */
+		protected static int farthest(double[] distances, boolean[] chosen) {
+			int best = 0;
+			double max = -1;
+
+			for (int i = 0; i < distances.length; i++) {
+				if (distances[i] > max && !chosen[i]) {
+					max = distances[i];
+					best = i;
+				}
+			}
+
+			return best;
+		}
+
+		/**
+		 * Distances from a source to all the nodes.
+		 */
+		protected static void dijkstra(CompressedAdjacency adj, int s,
+				double[] dist, IndexedHeap heap) {
+			Arrays.fill(dist, Double.POSITIVE_INFINITY);
+			dist[s] = 0;
+			heap.add(s, 0);
+
+			while (!heap.isEmpty()) {
+				double du = heap.getMinPriority();
+				int u = heap.extractMin();
+
+				for (int p = adj.offsets[u]; p < adj.offsets[u + 1]; p++) {
+					int v = adj.neighbors[p];
+					double dv = du + adj.weights[p];
+
+					if (dv < dist[v]) {
+						dist[v] = dv;
+						heap.addOrDecrease(v, dv);
+					}
+				}
+			}
+		}
+	}
+
 	/**
 	 * Representation of a node in the A* algorithm.
 	 * 
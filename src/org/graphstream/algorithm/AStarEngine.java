@@ -0,0 +1,718 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm;
+
+import java.util.Arrays;
+
+import org.graphstream.algorithm.AStar.Costs;
+import org.graphstream.algorithm.AStar.DefaultCosts;
+import org.graphstream.algorithm.util.IndexedHeap;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.Path;
+
+/**
+ * An A* engine made to answer many shortest path queries on the same graph.
+ * 
+ * <p>
+ * {@link AStar} creates a new object for each node it reaches and stores them
+ * in hash maps that are cleared before each query. This is fine for a few
+ * queries but when routing thousands of vehicles per second on a static
+ * graph, most of the time is spent in allocations and hashing. This engine
+ * computes the same paths, with the same {@link AStar.Costs}, but keeps its
+ * search state in arrays indexed by node indices:
+ * </p>
+ * <ul>
+ * <li>the arrays are allocated once, and grown only if the graph grows;</li>
+ * <li>instead of clearing the arrays before each query, each query has a
+ * generation number, and the state of a node is valid only if it was written
+ * during the current generation;</li>
+ * <li>the open set is an {@link IndexedHeap};</li>
+ * <li>the heuristic is evaluated only once per node and query.</li>
+ * </ul>
+ * 
+ * <p>
+ * The engine can also run a bidirectional search, see
+ * {@link #setBidirectional(boolean)}, which combined with
+ * {@link AStar.LandmarkCosts} settles only a small part of the graph for
+ * long-range queries.
+ * </p>
+ * 
+ * <p>
+ * Once a query is done, the path can be read without creating any object with
+ * {@link #getPathNodes(int[])} and {@link #getPathEdges(int[])}, which fill
+ * arrays of indices provided by the caller. A {@link Path} can still be built
+ * with {@link #getShortestPath()}.
+ * </p>
+ * 
+ * <p>
+ * The graph must not change while the engine is in use, except between two
+ * queries. The engine is not thread-safe, use one engine per thread.
+ * </p>
+ * 
+ * <h2>Usage</h2>
+ * 
+ * <pre>
+ * AStarEngine engine = new AStarEngine(graph);
+ * engine.setCosts(new AStar.DefaultCosts(&quot;time&quot;));
+ * int[] nodes = new int[graph.getNodeCount()];
+ * 
+ * for (Vehicle v : vehicles) {
+ * 	if (engine.compute(v.position, v.destination)) {
+ * 		int count = engine.getPathNodes(nodes);
+ * 		// nodes[0] is the source and nodes[count - 1] the target.
+ * 	}
+ * }
+ * </pre>
+ * 
+ * @complexity Each query is in O(m + n.log(n)) in the worst case, where m is
+ *             the number of edges and n the number of nodes, and depends on
+ *             the heuristic. A query that reaches only k nodes creates no
+ *             object and costs O(k.log(k)) besides the edges visited.
+ */
+public class AStarEngine implements Algorithm {
+	/**
+	 * The graph.
+	 */
+	protected Graph graph;
+
+	/**
+	 * How to compute the costs and the heuristic.
+	 */
+	protected Costs costs = new DefaultCosts();
+
+	/**
+	 * Source and target node indices of the last query.
+	 */
+	protected int source = -1, target = -1;
+
+	/**
+	 * True if the last query found a path.
+	 */
+	protected boolean pathFound = false;
+
+	/**
+	 * Generation of the current query.
+	 */
+	protected int generation = 0;
+
+	/**
+	 * Generation in which the state of each node was last written.
+	 */
+	protected int[] visited;
+
+	/**
+	 * Cost from the source to each node.
+	 */
+	protected double[] g;
+
+	/**
+	 * Estimated cost from each node to the target.
+	 */
+	protected double[] h;
+
+	/**
+	 * Index of the node preceding each node on the best known path, -1 for
+	 * the source.
+	 */
+	protected int[] parentNode;
+
+	/**
+	 * Index of the edge used to reach each node on the best known path.
+	 */
+	protected int[] parentEdge;
+
+	/**
+	 * True if the node is in the closed set. Valid only if the node was
+	 * visited in the current generation.
+	 */
+	protected boolean[] closed;
+
+	/**
+	 * The open set.
+	 */
+	protected IndexedHeap open;
+
+	/**
+	 * Use the bidirectional search.
+	 */
+	protected boolean bidirectional = false;
+
+	/**
+	 * State of the backward search, as the forward state above. The parent of
+	 * a node is the next node toward the target.
+	 */
+	protected int[] visitedBackward, parentNodeBackward, parentEdgeBackward;
+
+	/**
+	 * Cost from each node to the target, for the backward search.
+	 */
+	protected double[] gBackward;
+
+	/**
+	 * Generation in which the potential of each node was last computed.
+	 */
+	protected int[] potentialStamp;
+
+	/**
+	 * The open set of the backward search.
+	 */
+	protected IndexedHeap openBackward;
+
+	/**
+	 * Number of nodes settled by the last query.
+	 */
+	protected int settled = 0;
+
+	/**
+	 * New engine, {@link #init(Graph)} must be called before the first query.
+	 */
+	public AStarEngine() {
+	}
+
+	/**
+	 * New engine on the given graph.
+	 * 
+	 * @param graph
+	 *            The graph where paths are computed.
+	 */
+	public AStarEngine(Graph graph) {
+		init(graph);
+	}
+
+	/**
+	 * Specify how various costs are computed, see
+	 * {@link AStar#setCosts(Costs)}.
+	 * 
+	 * @param costs
+	 *            The cost method to use.
+	 */
+	public void setCosts(Costs costs) {
+		this.costs = costs;
+	}
+
+	/**
+	 * The cost method in use.
+	 * 
+	 * @return The costs.
+	 */
+	public Costs getCosts() {
+		return costs;
+	}
+
+	/**
+	 * Enable or disable the bidirectional search. A forward search from the
+	 * source and a backward search from the target, following entering
+	 * edges, are run until they meet. This usually settles far less nodes
+	 * than a forward search for long-range queries, especially with a good
+	 * heuristic such as {@link AStar.LandmarkCosts}.
+	 * 
+	 * <p>
+	 * The heuristic must be consistent (h(u, t) &lt;= cost(u, v) + h(v, t) for
+	 * each edge) for the bidirectional search to find shortest paths. This is
+	 * the case of {@link AStar.DefaultCosts}, {@link AStar.DistanceCosts} and
+	 * {@link AStar.LandmarkCosts}. It is also used to estimate the cost from
+	 * the source to a node, as h(s, v).
+	 * </p>
+	 * 
+	 * @param on
+	 *            True to use the bidirectional search, false by default.
+	 */
+	public void setBidirectional(boolean on) {
+		bidirectional = on;
+	}
+
+	/**
+	 * True if the bidirectional search is used.
+	 * 
+	 * @return True if the search is bidirectional.
+	 */
+	public boolean isBidirectional() {
+		return bidirectional;
+	}
+
+	/**
+	 * Number of nodes settled (taken out of an open set) by the last query,
+	 * in both directions for the bidirectional search. This measures how
+	 * much of the graph a query touched.
+	 * 
+	 * @return The number of settled nodes.
+	 */
+	public int getSettledNodeCount() {
+		return settled;
+	}
+
+	/*
+	 * @see
+	 * org.graphstream.algorithm.Algorithm#init(org.graphstream.graph.Graph)
+	 */
+	public void init(Graph graph) {
+		this.graph = graph;
+		this.pathFound = false;
+		this.source = -1;
+		this.target = -1;
+
+		ensureCapacity(graph.getNodeCount());
+	}
+
+	/**
+	 * Run the last query again. Nothing is done if there was no query yet.
+	 * 
+	 * @see org.graphstream.algorithm.Algorithm#compute()
+	 */
+	public void compute() {
+		if (source >= 0 && target >= 0)
+			compute(source, target);
+	}
+
+	/**
+	 * Compute the shortest path between two nodes given by their identifiers.
+	 * 
+	 * @param sourceId
+	 *            Identifier of the source node.
+	 * @param targetId
+	 *            Identifier of the target node.
+	 * @return True if a path was found.
+	 */
+	public boolean compute(String sourceId, String targetId) {
+		Node s = graph.getNode(sourceId);
+		Node t = graph.getNode(targetId);
+
+		if (s == null)
+			throw new RuntimeException("source node '" + sourceId
+					+ "' does not exist in the graph");
+
+		if (t == null)
+			throw new RuntimeException("target node '" + targetId
+					+ "' does not exist in the graph");
+
+		return compute(s.getIndex(), t.getIndex());
+	}
+
+	/**
+	 * Compute the shortest path between two nodes given by their indices.
+	 * 
+	 * @param sourceIndex
+	 *            Index of the source node.
+	 * @param targetIndex
+	 *            Index of the target node.
+	 * @return True if a path was found.
+	 */
+	public boolean compute(int sourceIndex, int targetIndex) {
+		ensureCapacity(graph.getNodeCount());
+		nextGeneration();
+
+		source = sourceIndex;
+		target = targetIndex;
+		pathFound = false;
+		settled = 0;
+
+		if (bidirectional)
+			searchBidirectional();
+		else
+			search();
+
+		return pathFound;
+	}
+
+	/**
+	 * The usual A* search, from the source toward the target.
+	 */
+	protected void search() {
+		Node targetNode = graph.getNode(target);
+
+		visit(source, 0, -1, -1, targetNode);
+		open.add(source, h[source]);
+
+		while (!open.isEmpty()) {
+			int current = open.extractMin();
+
+			settled++;
+
+			if (current == target) {
+				pathFound = true;
+				break;
+			}
+
+			closed[current] = true;
+
+			Node node = graph.getNode(current);
+			int degree = node.getOutDegree();
+
+			for (int i = 0; i < degree; i++) {
+				Edge edge = node.getLeavingEdge(i);
+				Node next = edge.getOpposite(node);
+				int n = next.getIndex();
+				double gn = g[current] + costs.cost(node, edge, next);
+
+				if (visited[n] != generation) {
+					visit(n, gn, current, edge.getIndex(), targetNode);
+					open.add(n, gn + h[n]);
+				} else if (gn < g[n]) {
+					// As AStar, a closed node reached with a better rank is
+					// opened again, which happens only if the heuristic is
+					// not consistent.
+
+					g[n] = gn;
+					parentNode[n] = current;
+					parentEdge[n] = edge.getIndex();
+
+					if (closed[n]) {
+						closed[n] = false;
+						open.add(n, gn + h[n]);
+					} else {
+						open.decreasePriority(n, gn + h[n]);
+					}
+				}
+			}
+		}
+
+		open.clear();
+	}
+
+	/**
+	 * Bidirectional search. A forward search from the source along leaving
+	 * edges and a backward search from the target along entering edges are
+	 * run in turn, always advancing the one with the smallest rank.
+	 * 
+	 * <p>
+	 * Both searches use the average potential p(v) = (h(v, t) - h(s, v)) / 2,
+	 * the forward one with p and the backward one with -p. If the heuristic is
+	 * consistent, so are these potentials, and the search stops as soon as
+	 * the sum of the two smallest ranks reaches the length of the best path
+	 * met so far. Once done, the backward half of the path is written in the
+	 * forward state so that the path accessors do not need to know which
+	 * search was used.
+	 * </p>
+	 */
+	protected void searchBidirectional() {
+		Node sourceNode = graph.getNode(source);
+		Node targetNode = graph.getNode(target);
+		double best = Double.POSITIVE_INFINITY;
+		int meeting = -1;
+
+		visit(source, 0, -1, -1, targetNode);
+		visitBackward(target, 0, -1, -1);
+		open.add(source, potential(source, sourceNode, targetNode));
+		openBackward.add(target, -potential(target, sourceNode, targetNode));
+
+		if (source == target) {
+			best = 0;
+			meeting = source;
+		}
+
+		while (!open.isEmpty() && !openBackward.isEmpty()) {
+			double forwardMin = open.getMinPriority();
+			double backwardMin = openBackward.getMinPriority();
+
+			if (forwardMin + backwardMin >= best)
+				break;
+
+			settled++;
+
+			if (forwardMin <= backwardMin) {
+				int current = open.extractMin();
+				Node node = graph.getNode(current);
+				int degree = node.getOutDegree();
+
+				for (int i = 0; i < degree; i++) {
+					Edge edge = node.getLeavingEdge(i);
+					Node next = edge.getOpposite(node);
+					int n = next.getIndex();
+					double gn = g[current] + costs.cost(node, edge, next);
+
+					if (visited[n] != generation) {
+						visit(n, gn, current, edge.getIndex(), targetNode);
+						open.add(n, gn + potential(n, sourceNode, targetNode));
+					} else if (gn < g[n]) {
+						g[n] = gn;
+						parentNode[n] = current;
+						parentEdge[n] = edge.getIndex();
+						open.addOrDecrease(n, gn + h[n]);
+					} else {
+						continue;
+					}
+
+					if (visitedBackward[n] == generation
+							&& gn + gBackward[n] < best) {
+						best = gn + gBackward[n];
+						meeting = n;
+					}
+				}
+			} else {
+				int current = openBackward.extractMin();
+				Node node = graph.getNode(current);
+				int degree = node.getInDegree();
+
+				for (int i = 0; i < degree; i++) {
+					Edge edge = node.getEnteringEdge(i);
+					Node previous = edge.getOpposite(node);
+					int n = previous.getIndex();
+					double gn = gBackward[current]
+							+ costs.cost(previous, edge, node);
+
+					if (visitedBackward[n] != generation) {
+						visitBackward(n, gn, current, edge.getIndex());
+						openBackward.add(n,
+								gn - potential(n, sourceNode, targetNode));
+					} else if (gn < gBackward[n]) {
+						gBackward[n] = gn;
+						parentNodeBackward[n] = current;
+						parentEdgeBackward[n] = edge.getIndex();
+						openBackward.addOrDecrease(n, gn - h[n]);
+					} else {
+						continue;
+					}
+
+					if (visited[n] == generation && gn + g[n] < best) {
+						best = gn + g[n];
+						meeting = n;
+					}
+				}
+			}
+		}
+
+		open.clear();
+		openBackward.clear();
+
+		if (meeting >= 0) {
+			for (int n = meeting; n != target; n = parentNodeBackward[n]) {
+				int next = parentNodeBackward[n];
+
+				visited[next] = generation;
+				parentNode[next] = n;
+				parentEdge[next] = parentEdgeBackward[n];
+			}
+
+			g[target] = best;
+			pathFound = true;
+		}
+	}
+
+	/**
+	 * True if the last query found no path, or if there was no query.
+	 * 
+	 * @return True if no path was found.
+	 */
+	public boolean noPathFound() {
+		return !pathFound;
+	}
+
+	/**
+	 * Cost of the path found by the last query.
+	 * 
+	 * @return The path cost, or infinity if no path was found.
+	 */
+	public double getPathLength() {
+		return pathFound ? g[target] : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Number of nodes of the path found by the last query.
+	 * 
+	 * @return The number of nodes, 0 if no path was found.
+	 */
+	public int getPathNodeCount() {
+		if (!pathFound)
+			return 0;
+
+		int count = 1;
+
+		for (int n = target; n != source; n = parentNode[n])
+			count++;
+
+		return count;
+	}
+
+	/**
+	 * Fill an array with the indices of the nodes of the path found by the
+	 * last query, from the source to the target.
+	 * 
+	 * @param nodes
+	 *            An array large enough to hold the path, the node count of the
+	 *            graph is always enough.
+	 * @return The number of nodes written, 0 if no path was found.
+	 */
+	public int getPathNodes(int[] nodes) {
+		int count = getPathNodeCount();
+		int i = count - 1;
+
+		if (count > 0) {
+			for (int n = target; n != source; n = parentNode[n])
+				nodes[i--] = n;
+
+			nodes[0] = source;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Fill an array with the indices of the edges of the path found by the
+	 * last query, from the source to the target.
+	 * 
+	 * @param edges
+	 *            An array large enough to hold the path, the node count of the
+	 *            graph is always enough.
+	 * @return The number of edges written, 0 if no path was found or if the
+	 *         source is the target.
+	 */
+	public int getPathEdges(int[] edges) {
+		int count = Math.max(0, getPathNodeCount() - 1);
+		int i = count - 1;
+
+		for (int n = target; i >= 0; n = parentNode[n])
+			edges[i--] = parentEdge[n];
+
+		return count;
+	}
+
+	/**
+	 * The indices of the nodes of the path found by the last query. This
+	 * allocates a new array, use {@link #getPathNodes(int[])} to avoid it.
+	 * 
+	 * @return The node indices, from the source to the target, or an empty
+	 *         array if no path was found.
+	 */
+	public int[] getPathNodeIndices() {
+		int[] nodes = new int[getPathNodeCount()];
+		getPathNodes(nodes);
+		return nodes;
+	}
+
+	/**
+	 * Build the path found by the last query. When the source is the target,
+	 * the path has no edge and the source as root.
+	 * 
+	 * @return The path, or null if no path was found.
+	 */
+	public Path getShortestPath() {
+		if (!pathFound)
+			return null;
+
+		int[] edges = new int[getPathNodeCount() - 1];
+		int count = getPathEdges(edges);
+		Path path = new Path();
+
+		if (count == 0) {
+			path.setRoot(graph.getNode(source));
+		} else {
+			path.add(graph.getNode(source), graph.getEdge(edges[0]));
+
+			for (int i = 1; i < count; i++)
+				path.add(graph.getEdge(edges[i]));
+		}
+
+		return path;
+	}
+
+	/**
+	 * Write the state of a node reached for the first time in this query.
+	 */
+	protected void visit(int n, double gn, int parent, int edge, Node target) {
+		visited[n] = generation;
+		closed[n] = false;
+		g[n] = gn;
+		parentNode[n] = parent;
+		parentEdge[n] = edge;
+
+		if (!bidirectional)
+			h[n] = costs.heuristic(graph.getNode(n), target);
+	}
+
+	/**
+	 * Write the state of a node reached for the first time by the backward
+	 * search in this query.
+	 */
+	protected void visitBackward(int n, double gn, int child, int edge) {
+		visitedBackward[n] = generation;
+		gBackward[n] = gn;
+		parentNodeBackward[n] = child;
+		parentEdgeBackward[n] = edge;
+	}
+
+	/**
+	 * The forward potential of a node in the bidirectional search, computed
+	 * once per node and query and stored in {@link #h}.
+	 */
+	protected double potential(int n, Node sourceNode, Node targetNode) {
+		if (potentialStamp[n] != generation) {
+			Node node = graph.getNode(n);
+
+			potentialStamp[n] = generation;
+			h[n] = (costs.heuristic(node, targetNode) - costs.heuristic(
+					sourceNode, node)) / 2;
+		}
+
+		return h[n];
+	}
+
+	/**
+	 * Start a new generation. All the node states become invalid.
+	 */
+	protected void nextGeneration() {
+		generation++;
+
+		if (generation == Integer.MAX_VALUE) {
+			// Very unlikely, but old stamps could be taken for new ones.
+			Arrays.fill(visited, 0);
+			Arrays.fill(visitedBackward, 0);
+			Arrays.fill(potentialStamp, 0);
+			generation = 1;
+		}
+	}
+
+	/**
+	 * Make sure the arrays can hold the given number of nodes.
+	 */
+	protected void ensureCapacity(int n) {
+		if (visited == null || visited.length < n) {
+			int capacity = Math.max(n, 16);
+
+			visited = new int[capacity];
+			g = new double[capacity];
+			h = new double[capacity];
+			parentNode = new int[capacity];
+			parentEdge = new int[capacity];
+			closed = new boolean[capacity];
+			open = new IndexedHeap(capacity);
+			visitedBackward = new int[capacity];
+			gBackward = new double[capacity];
+			parentNodeBackward = new int[capacity];
+			parentEdgeBackward = new int[capacity];
+			potentialStamp = new int[capacity];
+			openBackward = new IndexedHeap(capacity);
+			generation = 0;
+		}
+	}
+}
@@ -31,13 +31,14 @@
  */
 package org.graphstream.algorithm;
 
-import java.util.Comparator;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.PriorityQueue;
-import java.util.Set;
-
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.graphstream.algorithm.util.CompressedAdjacency;
+import org.graphstream.algorithm.util.IndexedPriorityQueue;
+import org.graphstream.algorithm.util.TaskPool;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Element;
 import org.graphstream.graph.Graph;
@@ -90,12 +91,76 @@ import org.graphstream.graph.Node;
  * method.
  * </p>
  * 
+ * <h2>Implementation</h2>
+ * 
+ * <p>
+ * The graph is first copied in a compressed adjacency. The exploration and
+ * accumulation phases then work on arrays indexed by node: sigma, distances
+ * and deltas, the order in which nodes are reached, which is both the queue
+ * of the breadth first search and the stack of the accumulation, and the
+ * predecessor lists, stored with the index of their edge in a single buffer.
+ * These arrays are allocated once for all the sources, and only the nodes
+ * reached by a source are reset. Nothing is written in the graph but the
+ * centrality attributes, at the end of the computation.
+ * </p>
+ * 
+ * <h2>Parallel computation</h2>
+ * 
+ * <p>
+ * The contribution of each source node is independent of the others. With
+ * {@link #setParallelism(int)} greater than one, the sources are shared among
+ * several threads. Each thread owns its arrays and its own centrality
+ * vectors, which are summed at the end. The results are the same as the
+ * sequential computation up to floating point rounding. The progress
+ * indicator is called once per source, from the worker threads.
+ * </p>
+ * 
+ * <h2>Approximation</h2>
+ * 
+ * <p>
+ * The exact computation needs one exploration of the graph per node. For
+ * interactive uses, {@link #setSampling(Sampling)} allows to estimate the
+ * centralities from a sample of explorations only:
+ * </p>
+ * <ul>
+ * <li>{@link Sampling#UNIFORM}: the dependencies of k pivot sources chosen
+ * uniformly are accumulated and scaled by n/k;</li>
+ * <li>{@link Sampling#DEGREE}: pivots are chosen with a probability
+ * proportional to their degree, and each one is scaled by the inverse of its
+ * probability, which reduces the variance on graphs where hubs carry most of
+ * the paths;</li>
+ * <li>{@link Sampling#PATHS}: the method of Riondato and Kornaropoulos, k pairs
+ * of nodes are chosen uniformly and, for each, one of their shortest paths is
+ * chosen uniformly. Each node inside the path gets n(n-1)/k.</li>
+ * </ul>
+ * <p>
+ * The sample size k is given either directly with {@link #setSampleSize(int)},
+ * or as an error bound with {@link #setSampleError(double, double)}: the
+ * centralities divided by n(n-1) are then within epsilon of their exact value
+ * with the given probability. For uniform pivots the Hoeffding bound gives
+ * k = ln(2n/(1-confidence))/(2.epsilon^2). Degree pivots use the same sample
+ * size but without this guarantee, as their reweighted dependencies are not
+ * bounded by 1. For paths the bound of Riondato and
+ * Kornaropoulos gives k = (floor(log2(VD-2)) + 1 + ln(1/(1-confidence))) /
+ * (2.epsilon^2), where VD is the vertex diameter, estimated with an
+ * exploration on unweighted, undirected and connected graphs and bounded by n
+ * otherwise.
+ * </p>
+ * <p>
+ * The estimates are on the same scale as the exact centralities and are
+ * stored in the same attributes. The progress indicator is called once per
+ * sample. Sampling uses the same exploration phases as the exact
+ * computation, on one thread.
+ * </p>
+ * 
  * <h2>Complexity</h2>
  * 
  * <p>
  * By default the algorithm performs on a graph considered as not weighted with
  * complexity O(nm). You can specify that the graph edges contain weights in
- * which case the algorithm complexity is O(nm + n^2 log n).
+ * which case the algorithm complexity is O(nm + n^2 log n). The priority queue
+ * used for weighted graphs can be chosen with
+ * {@link #setQueueType(IndexedPriorityQueue.Type)}.
  * </p>
  * 
  * <h2>Example</h2>
@@ -160,26 +225,20 @@ import org.graphstream.graph.Node;
  * @reference On variants of shortest-path betweenness centrality and their generic computation,
  * Ulrik Brandes, Social Networks, vol 30:2", pp. 136 - 145, 2008,
  * issn 0378-8733, "DOI: 10.1016/j.socnet.2007.11.001".
+ * 
+ * @reference Centrality Estimation in Large Networks, Ulrik Brandes and
+ * Christian Pich, International Journal of Bifurcation and Chaos, 17:7,
+ * pp. 2303 - 2318, 2007.
+ * 
+ * @reference Fast approximation of betweenness centrality through sampling,
+ * Matteo Riondato and Evgenios M. Kornaropoulos, Data Mining and Knowledge
+ * Discovery, 30:2, pp. 438 - 475, 2016.
  */
 public class BetweennessCentrality implements Algorithm {
 
-	protected static double INFINITY = 1000000.0;
-
 	/** Store the centrality value in this attribute on nodes and edges. */
 	protected String centralityAttributeName = "Cb";
 
-	/** The predecessors. */
-	protected String predAttributeName = "brandes.P";
-
-	/** The sigma value. */
-	protected String sigmaAttributeName = "brandes.sigma";
-
-	/** The distance value. */
-	protected String distAttributeName = "brandes.d";
-
-	/** The delta value. */
-	protected String deltaAttributeName = "brandes.delta";
-
 	/** Name of the attribute used to retrieve weights on edges. */
 	protected String weightAttributeName = "weight";
 
@@ -194,6 +253,27 @@ public class BetweennessCentrality implements Algorithm {
 
 	/** Compute the centrality of edges. */
 	protected boolean doEdges = true;
+
+	/** The priority queue used on weighted graphs. */
+	protected IndexedPriorityQueue.Type queueType = IndexedPriorityQueue.Type.BINARY_HEAP;
+
+	/** Number of threads used to process the sources. */
+	protected int parallelism = 1;
+
+	/** How sources or paths are sampled. */
+	protected Sampling sampling = Sampling.EXACT;
+
+	/** Number of samples, 0 if given by an error bound. */
+	protected int sampleSize = 0;
+
+	/** Error bound and confidence giving the number of samples. */
+	protected double sampleEpsilon = 0, sampleConfidence = 0;
+
+	/** Number of samples used by the last computation. */
+	protected int lastSampleSize = 0;
+
+	/** Random numbers for sampling. */
+	protected Random random = new Random();
 	
 	/**
 	 * New centrality algorithm that will perform as if the graph was
@@ -290,6 +370,131 @@ public class BetweennessCentrality implements Algorithm {
 		doEdges = on;
 	}
 
+	/**
+	 * Choose the priority queue used to explore weighted graphs. It is a
+	 * binary heap by default. {@link IndexedPriorityQueue.Type#RADIX_HEAP}
+	 * needs nonnegative integer weights.
+	 * 
+	 * @param type
+	 *            The queue type.
+	 */
+	public void setQueueType(IndexedPriorityQueue.Type type) {
+		if (type == null)
+			throw new IllegalArgumentException("queue type can not be null");
+
+		this.queueType = type;
+	}
+
+	/**
+	 * The priority queue used to explore weighted graphs.
+	 * 
+	 * @return The queue type.
+	 */
+	public IndexedPriorityQueue.Type getQueueType() {
+		return queueType;
+	}
+
+	/**
+	 * Number of threads sharing the sources. With one thread, the default,
+	 * the sources are processed on the calling thread.
+	 * 
+	 * @param threads
+	 *            The number of threads, at least 1.
+	 */
+	public void setParallelism(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException(
+					"parallelism must be at least 1");
+
+		this.parallelism = threads;
+	}
+
+	/**
+	 * Number of threads sharing the sources.
+	 * 
+	 * @return The parallelism.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Choose between the exact computation, the default, and an approximation
+	 * by sampling. The sample size must then be given with
+	 * {@link #setSampleSize(int)} or {@link #setSampleError(double, double)}.
+	 * 
+	 * @param sampling
+	 *            The sampling method.
+	 */
+	public void setSampling(Sampling sampling) {
+		this.sampling = sampling;
+	}
+
+	/**
+	 * The sampling method.
+	 * 
+	 * @return The sampling method, {@link Sampling#EXACT} if the exact
+	 *         centrality is computed.
+	 */
+	public Sampling getSampling() {
+		return sampling;
+	}
+
+	/**
+	 * Use a fixed number of samples: pivot sources or paths depending on the
+	 * sampling method.
+	 * 
+	 * @param k
+	 *            The number of samples.
+	 */
+	public void setSampleSize(int k) {
+		if (k < 1)
+			throw new IllegalArgumentException("sample size must be positive");
+
+		sampleSize = k;
+	}
+
+	/**
+	 * Compute the number of samples so that the centralities divided by
+	 * n(n-1) are within epsilon of their exact value, with the given
+	 * probability. The bound does not hold for {@link Sampling#DEGREE}, which
+	 * uses the sample size of the uniform pivots.
+	 * 
+	 * @param epsilon
+	 *            The error bound, in (0, 1).
+	 * @param confidence
+	 *            The probability that the bound holds, in (0, 1).
+	 */
+	public void setSampleError(double epsilon, double confidence) {
+		if (epsilon <= 0 || epsilon >= 1 || confidence <= 0
+				|| confidence >= 1)
+			throw new IllegalArgumentException(
+					"epsilon and confidence must be in (0, 1)");
+
+		sampleSize = 0;
+		sampleEpsilon = epsilon;
+		sampleConfidence = confidence;
+	}
+
+	/**
+	 * Number of samples used by the last approximate computation.
+	 * 
+	 * @return The sample size.
+	 */
+	public int getSampleSize() {
+		return lastSampleSize;
+	}
+
+	/**
+	 * Set the seed of the random numbers used for sampling.
+	 * 
+	 * @param seed
+	 *            The seed.
+	 */
+	public void setRandomSeed(long seed) {
+		random = new Random(seed);
+	}
+
 	/**
 	 * Specify the name of the attribute used to store the computed centrality
 	 * values for each node.
@@ -331,330 +536,316 @@ public class BetweennessCentrality implements Algorithm {
 	 */
 	public void betweennessCentrality(Graph graph) {
 		init(graph);
-		initAllNodes(graph);
-		initAllEdges(graph);
 
-		float n = graph.getNodeCount();
-		float i = 0;
+		CompressedAdjacency adj = new CompressedAdjacency(graph,
+				unweighted ? null : weightAttributeName,
+				CompressedAdjacency.Direction.LEAVING);
+		int[] predOffsets = predecessorOffsets(adj);
+		int edgeCount = doEdges ? graph.getEdgeCount() : 0;
 
-		for (Node s : graph) {
-			PriorityQueue<Node> S = null;
+		if (sampling != Sampling.EXACT) {
+			BrandesWorker worker = new BrandesWorker(adj, predOffsets,
+					edgeCount);
 
-			if (unweighted)
-				S = simpleExplore(s, graph);
-			else
-				S = dijkstraExplore2(s, graph);
+			if (adj.nodeCount > 1) {
+				int k = sampleSize(worker);
+				lastSampleSize = k;
 
-			// The really new things in the Brandes algorithm are here:
-			// Accumulation phase:
+				if (sampling == Sampling.PATHS)
+					samplePaths(worker, k);
+				else
+					samplePivots(worker, k);
+			}
 
-			while (!S.isEmpty()) {
-				Node w = S.poll();
+			store(worker.cbNodes, worker.cbEdges);
+		} else {
+			int[] sources = new int[adj.nodeCount];
 
-				for (Node v : predecessorsOf(w)) {
-					double c = ((sigma(v) / sigma(w)) * (1.0 + delta(w)));
-					if(doEdges) {
-						Edge e = w.getEdgeBetween(v);
-						setCentrality(e, centrality(e) + c);
-					}
-					setDelta(v, delta(v) + c);
-				}
-				if (w != s) {
-					setCentrality(w, centrality(w) + delta(w));
-				}
-			}
+			for (int i = 0; i < sources.length; i++)
+				sources[i] = i;
 
-			if (progress != null)
-				progress.progress(i / n);
+			double[][] cb = brandes(adj, predOffsets, edgeCount, sources, 1.0,
+					null);
 
-			i++;
+			store(cb[0], cb[1]);
 		}
 	}
 
 	/**
-	 * Compute single-source multiple-targets shortest paths on an unweighted
-	 * graph.
+	 * Accumulate the dependencies of the given sources. The sources are taken
+	 * in turn by {@link #parallelism} workers, on the calling thread if there
+	 * is only one.
 	 * 
-	 * @param source
-	 *            The source node.
-	 * @param graph
-	 *            The graph.
-	 * @return A priority queue of explored nodes with sigma values usable to
-	 *         compute the centrality.
-	 */
-	protected PriorityQueue<Node> simpleExplore(Node source, Graph graph) {
-		LinkedList<Node> Q = new LinkedList<Node>();
-		PriorityQueue<Node> S = new PriorityQueue<Node>(graph.getNodeCount(),
-				new BrandesNodeComparatorLargerFirst());
-
-		setupAllNodes(graph);
-		Q.add(source);
-		setSigma(source, 1.0);
-		setDistance(source, 0.0);
-
-		while (!Q.isEmpty()) {
-			Node v = Q.removeFirst();
-
-			S.add(v);
-			Iterator<? extends Edge> ww = v.getLeavingEdgeIterator();
-
-			while (ww.hasNext()) {
-				Edge l = ww.next();
-				Node w = l.getOpposite(v);//ww.next();
-
-				if (distance(w) == INFINITY) {
-					setDistance(w, distance(v) + 1);
-					Q.add(w);
-				}
+	 * @param adj
+	 *            The adjacency of the graph.
+	 * @param predOffsets
+	 *            The offsets of the predecessor lists, see
+	 *            {@link #predecessorOffsets(CompressedAdjacency)}.
+	 * @param edgeCount
+	 *            The number of edges whose centrality is computed, 0 if it is
+	 *            not.
+	 * @param sources
+	 *            Index of the sources.
+	 * @param scale
+	 *            Factor applied to the dependencies.
+	 * @param distances
+	 *            If not null, the distances from each source are copied in
+	 *            the row of this matrix indexed by the source, allocated if
+	 *            null.
+	 * @return The centralities of nodes and edges.
+	 */
+	protected double[][] brandes(CompressedAdjacency adj, int[] predOffsets,
+			int edgeCount, final int[] sources, final double scale,
+			final double[][] distances) {
+		final int n = adj.nodeCount;
+		final int count = sources.length;
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicInteger done = new AtomicInteger();
+		final ArrayList<BrandesWorker> workers = new ArrayList<BrandesWorker>();
 
-				if (distance(w) == (distance(v) + 1.0)) {
-					setSigma(w, sigma(w) + sigma(v));
-					addToPredecessorsOf(w, v);
-				}
-			}
-		}
+		for (int t = 0; t < Math.min(parallelism, Math.max(1, count)); t++)
+			workers.add(new BrandesWorker(adj, predOffsets, edgeCount));
 
-		return S;
-	}
+		ArrayList<Runnable> tasks = new ArrayList<Runnable>();
 
-	/**
-	 * Compute single-source multiple-targets paths on a weighted graph.
-	 * 
-	 * @param source
-	 *            The source node.
-	 * @param graph
-	 *            The graph.
-	 * @return A priority queue of explored nodes with sigma values usable to
-	 *         compute the centrality.
-	 */
-	protected PriorityQueue<Node> dijkstraExplore(Node source, Graph graph) {
-		PriorityQueue<Node> S = new PriorityQueue<Node>(graph.getNodeCount(),
-				new BrandesNodeComparatorLargerFirst());
-		PriorityQueue<Node> Q = new PriorityQueue<Node>(graph.getNodeCount(),
-				new BrandesNodeComparatorSmallerFirst());
+		for (final BrandesWorker worker : workers) {
+			tasks.add(new Runnable() {
+				public void run() {
+					int i;
 
-		setupAllNodes(graph);
-		setDistance(source, 0.0);
-		setSigma(source, 1.0);
+					while ((i = next.getAndIncrement()) < count) {
+						int s = sources[i];
 
-		Q.add(source);
+						worker.explore(s);
+						worker.accumulate(s, scale);
 
-		while (!Q.isEmpty()) {
-			Node u = Q.poll();
+						if (distances != null) {
+							if (distances[s] == null)
+								distances[s] = new double[n];
 
-			if (distance(u) < 0.0) { // XXX Can happen ??? XXX
-				Q.clear();
-				throw new RuntimeException("negative distance ??");
-			} else {
-				S.add(u);
-
-//				Iterator<? extends Node> k = u.getNeighborNodeIterator();
-				Iterator<? extends Edge> k = u.getLeavingEdgeIterator();
-
-				while (k.hasNext()) {
-//					Node v = k.next();
-					Edge l = k.next();
-					Node v = l.getOpposite(u);
-					
-					double alt = distance(u) + weight(u, v);
-
-					if (alt < distance(v)) {
-						if (distance(v) == INFINITY) {
-							setDistance(v, alt);
-							updatePriority(S, v);
-							updatePriority(Q, v);
-							Q.add(v);
-							setSigma(v, sigma(v) + sigma(u)); // XXX
-																// sigma(v)==0,
-																// always ?? XXX
-						} else {
-							setDistance(v, alt);
-							updatePriority(S, v);
-							updatePriority(Q, v);
-							setSigma(v, sigma(u));
+							System.arraycopy(worker.dist, 0, distances[s], 0, n);
 						}
-						replacePredecessorsOf(v, u);
-					} else if (alt == distance(v)) {
-						setSigma(v, sigma(v) + sigma(u));
-						addToPredecessorsOf(v, u);
+
+						reportProgress(done.incrementAndGet() / (float) count);
 					}
 				}
-			}
+			});
 		}
 
-		return S;
-	}
+		TaskPool pool = new TaskPool(workers.size());
 
-	/**
-	 * The implementation of the Brandes paper.
-	 * 
-	 * <ul>
-	 * <li>title =
-	 * "On variants of shortest-path betweenness centrality and their generic computation"
-	 * ,</li>
-	 * <li>author = "Ulrik Brandes",</li>
-	 * <li>journal = "Social Networks",</li>
-	 * <li>volume = "30",</li>
-	 * <li>number = "2",</li>
-	 * <li>pages = "136 - 145",</li>
-	 * <li>year = "2008",</li>
-	 * <li>note = "",</li>
-	 * <li>issn = "0378-8733",</li>
-	 * <li>doi = "DOI: 10.1016/j.socnet.2007.11.001",</li> </li>
-	 */
-	protected PriorityQueue<Node> dijkstraExplore2(Node source, Graph graph) {
-		PriorityQueue<Node> S = new PriorityQueue<Node>(graph.getNodeCount(),
-				new BrandesNodeComparatorLargerFirst());
-		PriorityQueue<Node> Q = new PriorityQueue<Node>(graph.getNodeCount(),
-				new BrandesNodeComparatorSmallerFirst());
-
-		setupAllNodes(graph);
-		setDistance(source, 0.0);
-		setSigma(source, 1.0);
-		Q.add(source);
-
-		while (!Q.isEmpty()) {
-			Node v = Q.poll();
-
-			S.add(v);
-
-			//Iterator<? extends Node> k = v.getNeighborNodeIterator();
-			Iterator<? extends Edge> k = v.getLeavingEdgeIterator();
-
-			while (k.hasNext()) {
-				//Node w = k.next();
-				Edge l = k.next();
-				Node w = l.getOpposite(v);
-				
-				double alt = distance(v) + weight(v, w);
-				double dw = distance(w);
-
-				if (alt < dw) {
-					setDistance(w, alt);
-					updatePriority(S, w);
-					updatePriority(Q, w);
-					if (dw == INFINITY) {
-						Q.add(w);
-					}
-					setSigma(w, 0.0);
-					clearPredecessorsOf(w);
-				}
-				if (distance(w) == alt) {
-					setSigma(w, sigma(w) + sigma(v));
-					addToPredecessorsOf(w, v);
-				}
-			}
+		try {
+			pool.execute(tasks);
+		} finally {
+			pool.shutdown();
 		}
 
-		return S;
-	}
+		// Reduction of the per-thread vectors.
 
-	/**
-	 * Update the given priority queue if the given node changed its priority
-	 * (here distance) and if the node is already part of the queue.
-	 * 
-	 * @param Q
-	 *            The queue.
-	 * @param node
-	 *            The node.
-	 */
-	protected void updatePriority(PriorityQueue<Node> Q, Node node) {
-		if (Q.contains(node)) {
-			Q.remove(node);
-			Q.add(node);
+		double[] cbNodes = workers.get(0).cbNodes;
+		double[] cbEdges = workers.get(0).cbEdges;
+
+		for (int t = 1; t < workers.size(); t++) {
+			BrandesWorker worker = workers.get(t);
+
+			for (int i = 0; i < n; i++)
+				cbNodes[i] += worker.cbNodes[i];
+
+			for (int i = 0; i < edgeCount; i++)
+				cbEdges[i] += worker.cbEdges[i];
 		}
+
+		return new double[][] { cbNodes, cbEdges };
 	}
 
 	/**
-	 * The sigma value of the given node.
-	 * 
-	 * @param node
-	 *            Extract the sigma value of this node.
-	 * @return The sigma value.
+	 * Store the centralities in the attributes of nodes, and edges if their
+	 * centrality is computed.
 	 */
-	protected double sigma(Node node) {
-		return node.getNumber(sigmaAttributeName);
+	protected void store(double[] cbNodes, double[] cbEdges) {
+		for (int i = 0; i < cbNodes.length; i++)
+			setCentrality(graph.getNode(i), cbNodes[i]);
+
+		for (int i = 0; i < cbEdges.length; i++)
+			setCentrality(graph.getEdge(i), cbEdges[i]);
 	}
 
 	/**
-	 * The distance value of the given node.
-	 * 
-	 * @param node
-	 *            Extract the distance value of this node.
-	 * @return The distance value.
+	 * Accumulate the dependencies of k pivots chosen at random, each one
+	 * scaled by the inverse of its probability to be chosen, divided by k.
 	 */
-	protected double distance(Node node) {
-		return node.getNumber(distAttributeName);
+	protected void samplePivots(BrandesWorker worker, int k) {
+		int n = graph.getNodeCount();
+		double[] cumulative = null;
+		double total = n;
+
+		if (sampling == Sampling.DEGREE) {
+			cumulative = new double[n];
+			total = 0;
+
+			for (int i = 0; i < n; i++) {
+				total += graph.getNode(i).getDegree();
+				cumulative[i] = total;
+			}
+
+			if (total == 0)
+				return;
+		}
+
+		for (int i = 0; i < k; i++) {
+			int s;
+			double p;
+
+			if (cumulative == null) {
+				s = random.nextInt(n);
+				p = 1.0 / n;
+			} else {
+				double r = random.nextDouble() * total;
+
+				// The first node whose cumulative degree is above r.
+				s = Arrays.binarySearch(cumulative, r);
+				s = s < 0 ? -s - 1 : s + 1;
+				while (cumulative[s] <= r)
+					s++;
+
+				p = graph.getNode(s).getDegree() / total;
+			}
+
+			worker.explore(s);
+			worker.accumulate(s, 1.0 / (k * p));
+
+			if (progress != null)
+				progress.progress(i / (float) k);
+		}
 	}
 
 	/**
-	 * The delta value of the given node.
-	 * 
-	 * @param node
-	 *            Extract the delta value of this node.
-	 * @return The delta value.
+	 * Riondato and Kornaropoulos sampling: k shortest paths between random
+	 * pairs of nodes, each one chosen uniformly among the shortest paths of
+	 * its pair.
 	 */
-	protected double delta(Node node) {
-		return node.getNumber(deltaAttributeName);
+	protected void samplePaths(BrandesWorker worker, int k) {
+		int n = graph.getNodeCount();
+		double scale = n * (n - 1.0) / k;
+
+		for (int i = 0; i < k; i++) {
+			int u = random.nextInt(n);
+			int v = random.nextInt(n - 1);
+
+			worker.explore(u);
+			worker.samplePath(u, v >= u ? v + 1 : v, scale);
+
+			if (progress != null)
+				progress.progress(i / (float) k);
+		}
 	}
 
 	/**
-	 * The centrality value of the given node or edge.
+	 * The number of samples, given or computed from the error bound.
 	 * 
-	 * @param elt
-	 *            Extract the centrality of this node or edge.
-	 * @return The centrality value.
+	 * @param worker
+	 *            A worker used to estimate the vertex diameter.
+	 * @return The sample size.
 	 */
-	public double centrality(Element elt) {
-		return elt.getNumber(centralityAttributeName);
+	protected int sampleSize(BrandesWorker worker) {
+		if (sampleSize > 0)
+			return sampleSize;
+
+		if (sampleEpsilon <= 0)
+			throw new IllegalStateException(
+					"No sample size. Call setSampleSize() or setSampleError() first.");
+
+		int n = graph.getNodeCount();
+		double failure = 1 - sampleConfidence;
+		double e2 = 2 * sampleEpsilon * sampleEpsilon;
+		double k;
+
+		if (sampling == Sampling.PATHS) {
+			int vd = Math.max(3, vertexDiameterBound(worker));
+			double log2 = Math.floor(Math.log(vd - 2) / Math.log(2));
+
+			k = (log2 + 1 + Math.log(1 / failure)) / e2;
+		} else {
+			k = Math.log(2 * n / failure) / e2;
+		}
+
+		return (int) Math.min(Integer.MAX_VALUE, Math.ceil(k));
 	}
-	
+
 	/**
-	 * List of predecessors of the given node.
+	 * An upper bound of the number of nodes of a shortest path. On an
+	 * unweighted and undirected graph where one exploration reaches all the
+	 * nodes, it is twice the eccentricity of the source plus one. Else it is
+	 * the number of nodes, as the eccentricity of one source does not bound
+	 * the distances between the other nodes when some edges are directed.
 	 * 
-	 * @param node
-	 *            Extract the predecessors of this node.
-	 * @return The list of predecessors.
+	 * @param worker
+	 *            The worker used for the exploration.
+	 * @return The bound.
 	 */
-	@SuppressWarnings("all")
-	protected Set<Node> predecessorsOf(Node node) {
-		return (HashSet<Node>) node.getAttribute(predAttributeName);
+	protected int vertexDiameterBound(BrandesWorker worker) {
+		int n = graph.getNodeCount();
+
+		if (!unweighted)
+			return n;
+
+		for (Edge edge : graph.getEachEdge())
+			if (edge.isDirected())
+				return n;
+
+		worker.explore(random.nextInt(n));
+
+		if (worker.reached < n)
+			return n;
+
+		double eccentricity = worker.dist[worker.order[n - 1]];
+
+		return (int) Math.min(n, 2 * eccentricity + 1);
 	}
 
 	/**
-	 * Set the sigma value of the given node.
+	 * Offsets of the predecessor lists of each node in a predecessor buffer.
+	 * A node can not have more predecessors than incoming arcs, so the list of
+	 * node i starts at offsets[i] and can hold offsets[i+1] - offsets[i]
+	 * predecessors.
 	 * 
-	 * @param node
-	 *            The node to modify.
-	 * @param sigma
-	 *            The sigma value to store on the node.
+	 * @param adj
+	 *            The adjacency of the graph.
+	 * @return The offsets, with one more element than the node count.
 	 */
-	protected void setSigma(Node node, double sigma) {
-		node.setAttribute(sigmaAttributeName, sigma);
+	protected static int[] predecessorOffsets(CompressedAdjacency adj) {
+		int n = adj.nodeCount;
+		int[] offsets = new int[n + 1];
+
+		for (int p = 0; p < adj.size(); p++)
+			offsets[adj.neighbors[p] + 1]++;
+
+		for (int i = 0; i < n; i++)
+			offsets[i + 1] += offsets[i];
+
+		return offsets;
 	}
 
 	/**
-	 * Set the distance value of the given node.
+	 * Notify the progress indicator, from any thread.
 	 * 
-	 * @param node
-	 *            The node to modify.
-	 * @param distance
-	 *            The delta value to store on the node.
+	 * @param percent
+	 *            The progress.
 	 */
-	protected void setDistance(Node node, double distance) {
-		node.setAttribute(distAttributeName, distance);
+	protected synchronized void reportProgress(float percent) {
+		if (progress != null)
+			progress.progress(percent);
 	}
 
 	/**
-	 * Set the delta value of the given node.
+	 * The centrality value of the given node or edge.
 	 * 
-	 * @param node
-	 *            The node to modify.
-	 * @param delta
-	 *            The delta value to store on the node.
+	 * @param elt
+	 *            Extract the centrality of this node or edge.
+	 * @return The centrality value.
 	 */
-	protected void setDelta(Node node, double delta) {
-		node.setAttribute(deltaAttributeName, delta);
+	public double centrality(Element elt) {
+		return elt.getNumber(centralityAttributeName);
 	}
 
 	/**
@@ -668,7 +859,7 @@ public class BetweennessCentrality implements Algorithm {
 	public void setCentrality(Element elt, double centrality) {
 		elt.setAttribute(centralityAttributeName, centrality);
 	}
-	
+
 	/**
 	 * Set the weight of the edge between 'from' and 'to'.
 	 * 
@@ -708,127 +899,263 @@ public class BetweennessCentrality implements Algorithm {
 	}
 
 	/**
-	 * Remove all predecessors of the given node and then add it a first
-	 * predecessor.
-	 * 
-	 * @param node
-	 *            The node to modify.
-	 * @param predecessor
-	 *            The predecessor to add.
+	 * The state of the exploration and accumulation phases for one source at
+	 * a time. All the arrays are indexed by node index and allocated once, so
+	 * that processing a source allocates nothing:
+	 * <ul>
+	 * <li>the nodes reached are recorded in order of distance in an int array,
+	 * which is the queue of the breadth first search, and read backward gives
+	 * the order of the accumulation phase;</li>
+	 * <li>the predecessors of each node are stored with the index of the edge
+	 * used in a buffer shared by all nodes, node i having a slot per incoming
+	 * arc;</li>
+	 * <li>sigma, distances and deltas are arrays, and only the nodes reached
+	 * are reset before the next source.</li>
+	 * </ul>
+	 * Each thread of the parallel computation has its own worker.
 	 */
-	protected void replacePredecessorsOf(Node node, Node predecessor) {
-		HashSet<Node> set = new HashSet<Node>();
+	protected class BrandesWorker {
+		/** The adjacency, shared by all the workers. */
+		protected CompressedAdjacency adj;
 
-		set.add(predecessor);
-		node.setAttribute(predAttributeName, set);
-	}
+		/** Offsets of the predecessor lists, shared by all the workers. */
+		protected int[] predOffsets;
 
-	/**
-	 * Add a node to the predecessors of another.
-	 * 
-	 * @param node
-	 *            Modify the predecessors of this node.
-	 * @param predecessor
-	 *            The predecessor to add.
-	 */
-	@SuppressWarnings("all")
-	protected void addToPredecessorsOf(Node node, Node predecessor) {
-		HashSet<Node> preds = (HashSet<Node>) node
-				.getAttribute(predAttributeName);
+		/** Number of shortest paths from the source. */
+		protected double[] sigma;
 
-		preds.add(predecessor);
-	}
+		/** Distance from the source, infinite if not reached. */
+		protected double[] dist;
 
-	/**
-	 * Remove all predecessors of the given node.
-	 * 
-	 * @param node
-	 *            Remove all predecessors of this node.
-	 */
-	protected void clearPredecessorsOf(Node node) {
-		HashSet<Node> set = new HashSet<Node>();
-		node.setAttribute(predAttributeName, set);
-	}
+		/** Dependency of the source on each node. */
+		protected double[] delta;
 
-	/**
-	 * Set a default centrality of 0 to all nodes.
-	 * 
-	 * @param graph
-	 *            The graph to modify.
-	 */
-	protected void initAllNodes(Graph graph) {
-		for (Node node : graph) {
-			setCentrality(node, 0.0);
+		/** Reached nodes, in order of distance. */
+		protected int[] order;
+
+		/** Number of reached nodes. */
+		protected int reached;
+
+		/** Number of predecessors of each node. */
+		protected int[] predCount;
+
+		/** Predecessor nodes, list of node i starting at predOffsets[i]. */
+		protected int[] predNodes;
+
+		/** Index of the edge from each predecessor. */
+		protected int[] predEdges;
+
+		/** The queue for weighted graphs. */
+		protected IndexedPriorityQueue heap;
+
+		/** Centrality of nodes and edges accumulated by this worker. */
+		protected double[] cbNodes, cbEdges;
+
+		protected BrandesWorker(CompressedAdjacency adj, int[] predOffsets,
+				int edgeCount) {
+			int n = adj.nodeCount;
+
+			this.adj = adj;
+			this.predOffsets = predOffsets;
+			sigma = new double[n];
+			dist = new double[n];
+			delta = new double[n];
+			order = new int[n];
+			predCount = new int[n];
+			predNodes = new int[predOffsets[n]];
+			predEdges = new int[predOffsets[n]];
+			cbNodes = new double[n];
+			cbEdges = new double[edgeCount];
+
+			if (!unweighted)
+				heap = queueType.create(n);
+
+			Arrays.fill(dist, Double.POSITIVE_INFINITY);
 		}
-	}
-	
-	/**
-	 * Set a default centrality of 0 to all edges.
-	 *
-	 * @param graph
-	 * 			The graph to modify.
-	 */
-	protected void initAllEdges(Graph graph) {
-		if(doEdges) {
-			for(Edge edge : graph.getEachEdge()) {
-				setCentrality(edge, 0.0);
+
+		/**
+		 * Shortest paths from the source, with a breadth first search or with
+		 * Dijkstra's algorithm. The nodes reached by the previous source are
+		 * reset first.
+		 */
+		protected void explore(int source) {
+			for (int i = 0; i < reached; i++) {
+				int w = order[i];
+
+				sigma[w] = 0;
+				dist[w] = Double.POSITIVE_INFINITY;
+				delta[w] = 0;
+				predCount[w] = 0;
 			}
+
+			reached = 0;
+			dist[source] = 0;
+			sigma[source] = 1;
+
+			if (unweighted)
+				simpleExplore(source);
+			else
+				dijkstraExplore(source);
 		}
-	}
 
-	/**
-	 * Add a default value for attributes used during computation.
-	 * 
-	 * @param graph
-	 *            The graph to modify.
-	 */
-	protected void setupAllNodes(Graph graph) {
-		for (Node node : graph) {
-			clearPredecessorsOf(node);
-			setSigma(node, 0.0);
-			setDistance(node, INFINITY);
-			setDelta(node, 0.0);
+		/**
+		 * Breadth first search, the order array being the queue.
+		 */
+		protected void simpleExplore(int source) {
+			int head = 0;
+
+			order[reached++] = source;
+
+			while (head < reached) {
+				int v = order[head++];
+				double dw = dist[v] + 1;
+
+				for (int p = adj.offsets[v]; p < adj.offsets[v + 1]; p++) {
+					int w = adj.neighbors[p];
+
+					if (dist[w] == Double.POSITIVE_INFINITY) {
+						dist[w] = dw;
+						order[reached++] = w;
+					}
+
+					if (dist[w] == dw) {
+						sigma[w] += sigma[v];
+						addPredecessor(w, v, adj.edges[p]);
+					}
+				}
+			}
 		}
-	}
 
-	/**
-	 * Increasing comparator used for priority queues.
-	 */
-	protected class BrandesNodeComparatorLargerFirst implements
-			Comparator<Node> {
-		public int compare(Node x, Node y) {
-			// return (int) ( (distance(y)*1000.0) - (distance(x)*1000.0) );
-			double yy = distance(y);
-			double xx = distance(x);
+		/**
+		 * Dijkstra's algorithm, nodes being added to the order array when
+		 * settled.
+		 */
+		protected void dijkstraExplore(int source) {
+			heap.clear();
+			heap.add(source, 0);
 
-			if (xx > yy)
-				return -1;
-			else if (xx < yy)
-				return 1;
+			while (!heap.isEmpty()) {
+				int v = heap.extractMin();
+
+				order[reached++] = v;
+
+				for (int p = adj.offsets[v]; p < adj.offsets[v + 1]; p++) {
+					int w = adj.neighbors[p];
+					double alt = dist[v] + adj.weights[p];
+
+					if (alt < dist[w]) {
+						dist[w] = alt;
+						heap.addOrDecrease(w, alt);
+						sigma[w] = 0;
+						predCount[w] = 0;
+					}
 
-			return 0;
+					if (dist[w] == alt) {
+						sigma[w] += sigma[v];
+						addPredecessor(w, v, adj.edges[p]);
+					}
+				}
+			}
 		}
-	}
 
-	/**
-	 * Decreasing comparator used for priority queues.
-	 */
-	protected class BrandesNodeComparatorSmallerFirst implements
-			Comparator<Node> {
-		public int compare(Node x, Node y) {
-			// return (int) ( (distance(x)*1000.0) - (distance(y)*1000.0) );
-			double yy = distance(y);
-			double xx = distance(x);
+		protected void addPredecessor(int w, int v, int edge) {
+			int k = predOffsets[w] + predCount[w]++;
 
-			if (xx > yy)
-				return 1;
-			else if (xx < yy)
-				return -1;
+			predNodes[k] = v;
+			predEdges[k] = edge;
+		}
 
-			return 0;
+		/**
+		 * Accumulation of the dependencies in reverse order of distance.
+		 * 
+		 * @param source
+		 *            The source of the last exploration.
+		 * @param scale
+		 *            Factor applied to the dependencies, 1 for the exact
+		 *            computation.
+		 */
+		protected void accumulate(int source, double scale) {
+			for (int i = reached - 1; i >= 0; i--) {
+				int w = order[i];
+				int start = predOffsets[w];
+
+				for (int k = start; k < start + predCount[w]; k++) {
+					int v = predNodes[k];
+					double c = (sigma[v] / sigma[w]) * (1.0 + delta[w]);
+
+					if (doEdges)
+						cbEdges[predEdges[k]] += c * scale;
+
+					delta[v] += c;
+				}
+
+				if (w != source)
+					cbNodes[w] += delta[w] * scale;
+			}
+		}
+
+		/**
+		 * Walk back from the target to the source of the last exploration,
+		 * choosing each predecessor with a probability proportional to its
+		 * number of shortest paths, and add the scale to the nodes inside the
+		 * path and to its edges.
+		 */
+		protected void samplePath(int source, int target, double scale) {
+			if (dist[target] == Double.POSITIVE_INFINITY)
+				return;
+
+			int w = target;
+
+			while (w != source) {
+				double r = random.nextDouble() * sigma[w];
+				int start = predOffsets[w];
+				int k = start;
+
+				// The last predecessor absorbs the rounding errors.
+				while (k < start + predCount[w] - 1) {
+					r -= sigma[predNodes[k]];
+
+					if (r < 0)
+						break;
+
+					k++;
+				}
+
+				if (doEdges)
+					cbEdges[predEdges[k]] += scale;
+
+				w = predNodes[k];
+
+				if (w != source)
+					cbNodes[w] += scale;
+			}
 		}
 	}
 
+	/**
+	 * How the approximate centralities are sampled.
+	 */
+	public static enum Sampling {
+		/**
+		 * No sampling, the exact centrality is computed.
+		 */
+		EXACT,
+		/**
+		 * Pivot sources chosen uniformly.
+		 */
+		UNIFORM,
+		/**
+		 * Pivot sources chosen with a probability proportional to their
+		 * degree.
+		 */
+		DEGREE,
+		/**
+		 * Shortest paths between pairs of nodes chosen uniformly, as
+		 * Riondato and Kornaropoulos.
+		 */
+		PATHS
+	}
+
 	/**
 	 * Interface allowing to be notified of the algorithm progress.
 	 */
@@ -0,0 +1,929 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.graphstream.algorithm.util.CompressedAdjacency;
+import org.graphstream.algorithm.util.CompressedAdjacency.Direction;
+import org.graphstream.algorithm.util.IndexedHeap;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.Path;
+
+/**
+ * Shortest paths between pairs of nodes using a contraction hierarchy.
+ * 
+ * <p>
+ * {@link Dijkstra} and {@link AStar} explore a large part of the graph for
+ * each query. When many queries are run on a graph that does not change, as
+ * when routing vehicles on a road network, it pays to preprocess the graph
+ * once. A contraction hierarchy orders the nodes by "importance" and
+ * contracts them one by one, from the least important to the most important.
+ * Contracting a node removes it from the graph and adds shortcuts between its
+ * neighbors when the only shortest path between them goes through the node.
+ * </p>
+ * 
+ * <p>
+ * A query is then a bidirectional Dijkstra where both searches only go
+ * toward more important nodes, which settles a few hundred nodes even on
+ * large road networks. The shortcuts of the path found are finally unpacked
+ * into edges of the graph, and a standard {@link Path} is returned.
+ * </p>
+ * 
+ * <h2>Preprocessing</h2>
+ * 
+ * <p>
+ * The node order is computed greedily: the next node contracted is the one
+ * with the smallest edge difference (the number of shortcuts its contraction
+ * would add minus the number of its edges) plus the number of its neighbors
+ * already contracted. Shortcuts are found with bounded Dijkstra searches, the
+ * witness searches, whose size is given by {@link #setWitnessLimit(int)}. A
+ * search that hits this limit adds a shortcut that may be useless, but never
+ * makes a result wrong.
+ * </p>
+ * 
+ * <p>
+ * Shortcuts are not stored in the graph. The hierarchy is kept in arrays
+ * indexed by node index: for each node, the arcs going to more important
+ * nodes (upward arcs) and the arcs coming from more important nodes
+ * (downward arcs). Each arc is either an edge of the graph or a shortcut made
+ * of two arcs through a less important node.
+ * </p>
+ * 
+ * <h2>Customization</h2>
+ * 
+ * <p>
+ * Computing the node order is the costly part of the preprocessing. When only
+ * the weights change (traffic updates for example) {@link #customize()}
+ * builds the shortcuts again for the new weights, keeping the node order.
+ * This avoids the priority updates of {@link #compute()} and gives exact
+ * results, although the hierarchy may be a bit less efficient if the new
+ * weights are very different.
+ * </p>
+ * 
+ * <p>
+ * The structure of the graph (nodes and edges) must not change between
+ * {@link #compute()} and the queries. Weights must not be negative, and edges
+ * without weight attribute have a weight of 1. Queries are not thread-safe.
+ * </p>
+ * 
+ * <h2>Usage</h2>
+ * 
+ * <pre>
+ * ContractionHierarchy ch = new ContractionHierarchy(&quot;time&quot;);
+ * ch.init(graph);
+ * ch.compute();
+ * 
+ * Path path = ch.getShortestPath(graph.getNode(&quot;A&quot;), graph.getNode(&quot;B&quot;));
+ * 
+ * // Later, when travel times have changed.
+ * ch.customize();
+ * </pre>
+ * 
+ * @complexity The preprocessing is hard to bound but is usually close to
+ *             linear on road networks. The space used is O(n + m + s), where
+ *             s is the number of shortcuts, usually less than m. A query
+ *             settles a small part of the graph and unpacks the path in a
+ *             time linear in its number of edges.
+ */
+public class ContractionHierarchy implements Algorithm {
+	/**
+	 * Default number of nodes settled by a witness search.
+	 */
+	public static final int DEFAULT_WITNESS_LIMIT = 500;
+
+	/**
+	 * The graph.
+	 */
+	protected Graph graph;
+
+	/**
+	 * Attribute giving the weight of edges, null for unit weights.
+	 */
+	protected String weightAttribute;
+
+	/**
+	 * Maximum number of nodes settled by a witness search.
+	 */
+	protected int witnessLimit = DEFAULT_WITNESS_LIMIT;
+
+	/**
+	 * Number of nodes of the hierarchy.
+	 */
+	protected int nodeCount;
+
+	/**
+	 * Contraction rank of each node, the most important node has the
+	 * highest rank. Null if the hierarchy is not built.
+	 */
+	protected int[] rank;
+
+	/**
+	 * Nodes in contraction order, the inverse of {@link #rank}.
+	 */
+	protected int[] order;
+
+	/**
+	 * Upward arcs of each node u, going from u to a node of higher rank:
+	 * head, weight, middle node (-1 for an edge) and edge index (-1 for a
+	 * shortcut). The arcs of node u are between upOffsets[u] and
+	 * upOffsets[u+1].
+	 */
+	protected int[] upOffsets, upHead, upMiddle, upEdge;
+
+	/**
+	 * Weights of the upward arcs.
+	 */
+	protected double[] upWeight;
+
+	/**
+	 * Downward arcs of each node u, going from a node of higher rank to u,
+	 * stored as the upward arcs but with the tail instead of the head.
+	 */
+	protected int[] downOffsets, downTail, downMiddle, downEdge;
+
+	/**
+	 * Weights of the downward arcs.
+	 */
+	protected double[] downWeight;
+
+	/**
+	 * Number of shortcuts of the hierarchy.
+	 */
+	protected int shortcutCount;
+
+	// Query state, reused from one query to the other.
+
+	protected int generation;
+	protected int[] forwardStamp, backwardStamp;
+	protected double[] forwardDistance, backwardDistance;
+	protected int[] forwardParent, backwardParent;
+	protected IndexedHeap forwardHeap, backwardHeap;
+
+	/**
+	 * Nodes settled by the last query.
+	 */
+	protected int settled;
+
+	/**
+	 * New contraction hierarchy where all edges have a weight of 1.
+	 */
+	public ContractionHierarchy() {
+		this(null);
+	}
+
+	/**
+	 * New contraction hierarchy.
+	 * 
+	 * @param weightAttribute
+	 *            Attribute giving the weight of edges, null for unit weights.
+	 */
+	public ContractionHierarchy(String weightAttribute) {
+		this.weightAttribute = weightAttribute;
+	}
+
+	/**
+	 * Attribute giving the weight of edges.
+	 * 
+	 * @return The weight attribute, or null for unit weights.
+	 */
+	public String getWeightAttribute() {
+		return weightAttribute;
+	}
+
+	/**
+	 * Maximum number of nodes settled by each witness search during the
+	 * preprocessing. A smaller limit makes the preprocessing faster but may
+	 * add useless shortcuts, which makes queries slower.
+	 * 
+	 * @param limit
+	 *            The limit, {@link #DEFAULT_WITNESS_LIMIT} by default.
+	 */
+	public void setWitnessLimit(int limit) {
+		if (limit < 1)
+			throw new IllegalArgumentException("witness limit must be positive");
+
+		witnessLimit = limit;
+	}
+
+	/**
+	 * Maximum number of nodes settled by each witness search.
+	 * 
+	 * @return The witness limit.
+	 */
+	public int getWitnessLimit() {
+		return witnessLimit;
+	}
+
+	/*
+	 * @see
+	 * org.graphstream.algorithm.Algorithm#init(org.graphstream.graph.Graph)
+	 */
+	public void init(Graph graph) {
+		this.graph = graph;
+		this.rank = null;
+		this.order = null;
+	}
+
+	/**
+	 * Compute the node order and build the hierarchy.
+	 * 
+	 * @see org.graphstream.algorithm.Algorithm#compute()
+	 */
+	public void compute() {
+		if (graph == null)
+			throw new NotInitializedException(this);
+
+		contract(null);
+	}
+
+	/**
+	 * Build the hierarchy again for the current weights, keeping the node
+	 * order computed by {@link #compute()}. The nodes and edges of the graph
+	 * must be the same as when {@link #compute()} was called.
+	 */
+	public void customize() {
+		if (order == null)
+			throw new IllegalStateException(
+					"No hierarchy to customize. Call compute() first.");
+
+		if (order.length != graph.getNodeCount())
+			throw new IllegalStateException(
+					"The graph changed, call compute() again.");
+
+		contract(order);
+	}
+
+	/**
+	 * True if the hierarchy is built.
+	 * 
+	 * @return True if queries can be run.
+	 */
+	public boolean isReady() {
+		return rank != null;
+	}
+
+	/**
+	 * Rank of a node in the hierarchy, the most important node having rank
+	 * n - 1.
+	 * 
+	 * @param node
+	 *            A node.
+	 * @return The rank of the node.
+	 */
+	public int getRank(Node node) {
+		checkReady();
+		return rank[node.getIndex()];
+	}
+
+	/**
+	 * Number of shortcuts added by the preprocessing.
+	 * 
+	 * @return The shortcut count.
+	 */
+	public int getShortcutCount() {
+		return shortcutCount;
+	}
+
+	/**
+	 * Number of nodes settled by the last query, in both directions.
+	 * 
+	 * @return The number of settled nodes.
+	 */
+	public int getSettledNodeCount() {
+		return settled;
+	}
+
+	/**
+	 * Length of the shortest path between two nodes.
+	 * 
+	 * @param source
+	 *            The source node.
+	 * @param target
+	 *            The target node.
+	 * @return The length of the shortest path, or infinity if there is no
+	 *         path.
+	 */
+	public double getPathLength(Node source, Node target) {
+		checkReady();
+
+		int meeting = query(source.getIndex(), target.getIndex());
+
+		if (meeting < 0)
+			return Double.POSITIVE_INFINITY;
+
+		return forwardDistance[meeting] + backwardDistance[meeting];
+	}
+
+	/**
+	 * Shortest path between two nodes.
+	 * 
+	 * @param source
+	 *            The source node.
+	 * @param target
+	 *            The target node.
+	 * @return The shortest path, or null if there is no path.
+	 */
+	public Path getShortestPath(Node source, Node target) {
+		checkReady();
+
+		int meeting = query(source.getIndex(), target.getIndex());
+
+		if (meeting < 0)
+			return null;
+
+		List<Edge> edges = new ArrayList<Edge>();
+		int[] arcs = new int[nodeCount];
+		int count = 0;
+
+		// Upward part, from the meeting node back to the source.
+
+		for (int u = meeting; u != source.getIndex();) {
+			int a = forwardParent[u];
+			arcs[count++] = a;
+			u = upTailOf(a);
+		}
+
+		while (count > 0) {
+			int a = arcs[--count];
+			unpack(upTailOf(a), upHead[a], upMiddle[a], upEdge[a], edges);
+		}
+
+		// Downward part, from the meeting node to the target.
+
+		for (int u = meeting; u != target.getIndex();) {
+			int a = backwardParent[u];
+			int v = downHeadOf(a);
+
+			unpack(u, v, downMiddle[a], downEdge[a], edges);
+			u = v;
+		}
+
+		Path path = new Path();
+
+		if (edges.isEmpty()) {
+			path.setRoot(source);
+		} else {
+			path.add(source, edges.get(0));
+
+			for (int i = 1; i < edges.size(); i++)
+				path.add(edges.get(i));
+		}
+
+		return path;
+	}
+
+	/**
+	 * Bidirectional upward search between two nodes.
+	 * 
+	 * @return The node where the best path goes from upward to downward arcs,
+	 *         or -1 if there is no path.
+	 */
+	protected int query(int s, int t) {
+		nextGeneration();
+
+		double best = Double.POSITIVE_INFINITY;
+		int meeting = -1;
+
+		settled = 0;
+		forwardStamp[s] = generation;
+		forwardDistance[s] = 0;
+		forwardParent[s] = -1;
+		forwardHeap.add(s, 0);
+		backwardStamp[t] = generation;
+		backwardDistance[t] = 0;
+		backwardParent[t] = -1;
+		backwardHeap.add(t, 0);
+
+		while (true) {
+			// A search stops once it cannot improve the best path.
+
+			if (!forwardHeap.isEmpty() && forwardHeap.getMinPriority() >= best)
+				forwardHeap.clear();
+
+			if (!backwardHeap.isEmpty()
+					&& backwardHeap.getMinPriority() >= best)
+				backwardHeap.clear();
+
+			boolean forward;
+
+			if (forwardHeap.isEmpty() && backwardHeap.isEmpty())
+				break;
+			else if (forwardHeap.isEmpty())
+				forward = false;
+			else if (backwardHeap.isEmpty())
+				forward = true;
+			else
+				forward = forwardHeap.getMinPriority() <= backwardHeap
+						.getMinPriority();
+
+			settled++;
+
+			if (forward) {
+				int u = forwardHeap.extractMin();
+				double du = forwardDistance[u];
+
+				if (backwardStamp[u] == generation
+						&& du + backwardDistance[u] < best) {
+					best = du + backwardDistance[u];
+					meeting = u;
+				}
+
+				for (int a = upOffsets[u]; a < upOffsets[u + 1]; a++) {
+					int v = upHead[a];
+					double dv = du + upWeight[a];
+
+					if (forwardStamp[v] != generation) {
+						forwardStamp[v] = generation;
+						forwardDistance[v] = dv;
+						forwardParent[v] = a;
+						forwardHeap.add(v, dv);
+					} else if (dv < forwardDistance[v]) {
+						forwardDistance[v] = dv;
+						forwardParent[v] = a;
+						forwardHeap.decreasePriority(v, dv);
+					}
+				}
+			} else {
+				int u = backwardHeap.extractMin();
+				double du = backwardDistance[u];
+
+				if (forwardStamp[u] == generation
+						&& du + forwardDistance[u] < best) {
+					best = du + forwardDistance[u];
+					meeting = u;
+				}
+
+				for (int a = downOffsets[u]; a < downOffsets[u + 1]; a++) {
+					int v = downTail[a];
+					double dv = du + downWeight[a];
+
+					if (backwardStamp[v] != generation) {
+						backwardStamp[v] = generation;
+						backwardDistance[v] = dv;
+						backwardParent[v] = a;
+						backwardHeap.add(v, dv);
+					} else if (dv < backwardDistance[v]) {
+						backwardDistance[v] = dv;
+						backwardParent[v] = a;
+						backwardHeap.decreasePriority(v, dv);
+					}
+				}
+			}
+		}
+
+		return meeting;
+	}
+
+	/**
+	 * Append to a list the edges of the graph forming the arc from a to b.
+	 * Shortcuts are made of a downward arc from a to the middle node and an
+	 * upward arc from the middle node to b, both stored with the middle node.
+	 */
+	protected void unpack(int a, int b, int middle, int edge, List<Edge> edges) {
+		if (middle < 0) {
+			edges.add(graph.getEdge(edge));
+			return;
+		}
+
+		int first = -1, second = -1;
+
+		for (int i = downOffsets[middle]; i < downOffsets[middle + 1]; i++) {
+			if (downTail[i] == a) {
+				first = i;
+				break;
+			}
+		}
+
+		for (int i = upOffsets[middle]; i < upOffsets[middle + 1]; i++) {
+			if (upHead[i] == b) {
+				second = i;
+				break;
+			}
+		}
+
+		unpack(a, middle, downMiddle[first], downEdge[first], edges);
+		unpack(middle, b, upMiddle[second], upEdge[second], edges);
+	}
+
+	/**
+	 * The node storing an upward arc.
+	 */
+	protected int upTailOf(int arc) {
+		return owner(upOffsets, arc);
+	}
+
+	/**
+	 * The node storing a downward arc.
+	 */
+	protected int downHeadOf(int arc) {
+		return owner(downOffsets, arc);
+	}
+
+	/**
+	 * Binary search of the node whose arcs contain the given arc.
+	 */
+	protected static int owner(int[] offsets, int arc) {
+		int low = 0, high = offsets.length - 2;
+
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+
+			if (offsets[mid] <= arc)
+				low = mid;
+			else
+				high = mid - 1;
+		}
+
+		return low;
+	}
+
+	protected void checkReady() {
+		if (rank == null)
+			throw new IllegalStateException(
+					"No hierarchy. Call init() and compute() first.");
+	}
+
+	protected void nextGeneration() {
+		generation++;
+
+		if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(forwardStamp, 0);
+			Arrays.fill(backwardStamp, 0);
+			generation = 1;
+		}
+	}
+
+	// Preprocessing
+
+	/**
+	 * Build the hierarchy. If an order is given, nodes are contracted in this
+	 * order, else the order is computed on the fly.
+	 */
+	protected void contract(int[] givenOrder) {
+		CompressedAdjacency adj = new CompressedAdjacency(graph,
+				weightAttribute, Direction.LEAVING);
+
+		if (adj.negativeWeights)
+			throw new IllegalStateException(
+					"Contraction hierarchies need non negative weights");
+
+		int n = adj.nodeCount;
+		Contraction c = new Contraction(n, witnessLimit);
+
+		for (int u = 0; u < n; u++) {
+			for (int p = adj.offsets[u]; p < adj.offsets[u + 1]; p++) {
+				int v = adj.neighbors[p];
+
+				if (v != u) {
+					c.out[u].relax(v, adj.weights[p], -1, adj.edges[p]);
+					c.in[v].relax(u, adj.weights[p], -1, adj.edges[p]);
+				}
+			}
+		}
+
+		int[] newRank = new int[n];
+		int[] newOrder = new int[n];
+
+		if (givenOrder != null) {
+			for (int r = 0; r < n; r++) {
+				c.contract(givenOrder[r]);
+				newOrder[r] = givenOrder[r];
+			}
+		} else {
+			IndexedHeap queue = new IndexedHeap(n);
+
+			for (int v = 0; v < n; v++)
+				queue.add(v, c.priority(v));
+
+			int r = 0;
+
+			while (!queue.isEmpty()) {
+				int v = queue.extractMin();
+
+				// Lazy update, priorities change as the graph is
+				// contracted.
+
+				double p = c.priority(v);
+
+				if (!queue.isEmpty() && p > queue.getMinPriority()) {
+					queue.add(v, p);
+					continue;
+				}
+
+				c.contract(v);
+				newOrder[r++] = v;
+
+				for (int i = 0; i < c.out[v].size; i++) {
+					int w = c.out[v].node[i];
+					c.contractedNeighbors[w]++;
+				}
+
+				for (int i = 0; i < c.in[v].size; i++) {
+					int w = c.in[v].node[i];
+
+					if (c.out[v].indexOf(w) < 0)
+						c.contractedNeighbors[w]++;
+				}
+			}
+		}
+
+		for (int r = 0; r < n; r++)
+			newRank[newOrder[r]] = r;
+
+		build(c, n);
+
+		nodeCount = n;
+		rank = newRank;
+		order = newOrder;
+		shortcutCount = c.shortcuts;
+
+		if (forwardStamp == null || forwardStamp.length < n) {
+			forwardStamp = new int[n];
+			backwardStamp = new int[n];
+			forwardDistance = new double[n];
+			backwardDistance = new double[n];
+			forwardParent = new int[n];
+			backwardParent = new int[n];
+			forwardHeap = new IndexedHeap(n);
+			backwardHeap = new IndexedHeap(n);
+			generation = 0;
+		}
+	}
+
+	/**
+	 * Pack the arcs of each node at the time it was contracted in the arrays
+	 * used by queries.
+	 */
+	protected void build(Contraction c, int n) {
+		int ups = 0, downs = 0;
+
+		for (int u = 0; u < n; u++) {
+			ups += c.out[u].size;
+			downs += c.in[u].size;
+		}
+
+		upOffsets = new int[n + 1];
+		upHead = new int[ups];
+		upWeight = new double[ups];
+		upMiddle = new int[ups];
+		upEdge = new int[ups];
+		downOffsets = new int[n + 1];
+		downTail = new int[downs];
+		downWeight = new double[downs];
+		downMiddle = new int[downs];
+		downEdge = new int[downs];
+
+		ups = downs = 0;
+
+		for (int u = 0; u < n; u++) {
+			Arcs out = c.out[u], in = c.in[u];
+
+			upOffsets[u] = ups;
+			System.arraycopy(out.node, 0, upHead, ups, out.size);
+			System.arraycopy(out.weight, 0, upWeight, ups, out.size);
+			System.arraycopy(out.middle, 0, upMiddle, ups, out.size);
+			System.arraycopy(out.edge, 0, upEdge, ups, out.size);
+			ups += out.size;
+
+			downOffsets[u] = downs;
+			System.arraycopy(in.node, 0, downTail, downs, in.size);
+			System.arraycopy(in.weight, 0, downWeight, downs, in.size);
+			System.arraycopy(in.middle, 0, downMiddle, downs, in.size);
+			System.arraycopy(in.edge, 0, downEdge, downs, in.size);
+			downs += in.size;
+		}
+
+		upOffsets[n] = ups;
+		downOffsets[n] = downs;
+	}
+
+	/**
+	 * A growable list of arcs toward or from other nodes, at most one arc per
+	 * node.
+	 */
+	protected static class Arcs {
+		int size;
+		int[] node = new int[4];
+		double[] weight = new double[4];
+		int[] middle = new int[4];
+		int[] edge = new int[4];
+
+		int indexOf(int v) {
+			for (int i = 0; i < size; i++)
+				if (node[i] == v)
+					return i;
+
+			return -1;
+		}
+
+		/**
+		 * Add an arc toward v, or replace the existing one if the new arc is
+		 * shorter.
+		 */
+		void relax(int v, double w, int mid, int e) {
+			int i = indexOf(v);
+
+			if (i < 0) {
+				if (size == node.length) {
+					node = Arrays.copyOf(node, size * 2);
+					weight = Arrays.copyOf(weight, size * 2);
+					middle = Arrays.copyOf(middle, size * 2);
+					edge = Arrays.copyOf(edge, size * 2);
+				}
+
+				i = size++;
+			} else if (weight[i] <= w) {
+				return;
+			}
+
+			node[i] = v;
+			weight[i] = w;
+			middle[i] = mid;
+			edge[i] = e;
+		}
+
+		void remove(int v) {
+			int i = indexOf(v);
+
+			if (i >= 0) {
+				size--;
+				node[i] = node[size];
+				weight[i] = weight[size];
+				middle[i] = middle[size];
+				edge[i] = edge[size];
+			}
+		}
+	}
+
+	/**
+	 * State of the graph during the contraction. The arcs of a node are those
+	 * toward or from nodes not contracted yet. Once a node is contracted, its
+	 * arcs do not change anymore and become its upward and downward arcs.
+	 */
+	protected static class Contraction {
+		Arcs[] out, in;
+		boolean[] contracted;
+		int[] contractedNeighbors;
+		int shortcuts;
+
+		int witnessLimit;
+		int stamp;
+		int[] visited;
+		double[] distance;
+		IndexedHeap heap;
+
+		Contraction(int n, int witnessLimit) {
+			this.witnessLimit = witnessLimit;
+
+			out = new Arcs[n];
+			in = new Arcs[n];
+			contracted = new boolean[n];
+			contractedNeighbors = new int[n];
+			visited = new int[n];
+			distance = new double[n];
+			heap = new IndexedHeap(n);
+
+			for (int i = 0; i < n; i++) {
+				out[i] = new Arcs();
+				in[i] = new Arcs();
+			}
+		}
+
+		/**
+		 * Edge difference plus contracted neighbors.
+		 */
+		double priority(int v) {
+			int added = shortcuts(v, false);
+			return added - in[v].size - out[v].size + contractedNeighbors[v];
+		}
+
+		void contract(int v) {
+			shortcuts += shortcuts(v, true);
+			contracted[v] = true;
+
+			for (int i = 0; i < out[v].size; i++)
+				in[out[v].node[i]].remove(v);
+
+			for (int i = 0; i < in[v].size; i++)
+				out[in[v].node[i]].remove(v);
+		}
+
+		/**
+		 * Count the shortcuts needed to contract v, and add them if asked.
+		 */
+		int shortcuts(int v, boolean add) {
+			Arcs vin = in[v], vout = out[v];
+			int count = 0;
+			double maxOut = 0;
+
+			for (int j = 0; j < vout.size; j++)
+				maxOut = Math.max(maxOut, vout.weight[j]);
+
+			for (int i = 0; i < vin.size; i++) {
+				int u = vin.node[i];
+				double wu = vin.weight[i];
+
+				witnessSearch(u, v, wu + maxOut);
+
+				for (int j = 0; j < vout.size; j++) {
+					int w = vout.node[j];
+					double via = wu + vout.weight[j];
+
+					if (w == u)
+						continue;
+
+					if (visited[w] != stamp || distance[w] > via) {
+						count++;
+
+						if (add) {
+							out[u].relax(w, via, v, -1);
+							in[w].relax(u, via, v, -1);
+						}
+					}
+				}
+			}
+
+			return count;
+		}
+
+		/**
+		 * Dijkstra from u avoiding v, stopped at the given distance or after
+		 * settling witnessLimit nodes.
+		 */
+		void witnessSearch(int u, int v, double limit) {
+			stamp++;
+
+			if (stamp == Integer.MAX_VALUE) {
+				Arrays.fill(visited, 0);
+				stamp = 1;
+			}
+
+			visited[u] = stamp;
+			distance[u] = 0;
+			heap.add(u, 0);
+
+			int count = 0;
+
+			while (!heap.isEmpty() && count++ < witnessLimit) {
+				if (heap.getMinPriority() > limit)
+					break;
+
+				int x = heap.extractMin();
+				Arcs xout = out[x];
+
+				for (int i = 0; i < xout.size; i++) {
+					int y = xout.node[i];
+					double dy = distance[x] + xout.weight[i];
+
+					if (y == v)
+						continue;
+
+					if (visited[y] != stamp) {
+						visited[y] = stamp;
+						distance[y] = dy;
+						heap.add(y, dy);
+					} else if (dy < distance[y]) {
+						distance[y] = dy;
+						heap.decreasePriority(y, dy);
+					}
+				}
+			}
+
+			heap.clear();
+		}
+	}
+}
@@ -32,12 +32,14 @@
 package org.graphstream.algorithm;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Stack;
 
 import org.graphstream.algorithm.util.FibonacciHeap;
+import org.graphstream.algorithm.util.IndexedPriorityQueue;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
@@ -53,7 +55,9 @@ import org.graphstream.graph.Path;
  * 
  * <p>
  * This implementation uses internally Fibonacci Heap, a data structure that
- * makes it run faster for big graphs.
+ * makes it run faster for big graphs. Other priority queues working on node
+ * indices, usually faster in practice, can be chosen with
+ * {@link #setQueueType(IndexedPriorityQueue.Type)}.
  * </p>
  * 
  * <h3>Length of a path</h3>
@@ -89,6 +93,15 @@ import org.graphstream.graph.Path;
  * is using different solution access methods.
  * </p>
  * 
+ * <p>
+ * When shortest paths are computed often, for example from many sources, going
+ * through the attributes of nodes is slow and leaves the whole tree in the
+ * graph. With {@link #setArrayStorage(boolean)} the distances, parents and
+ * heap positions are kept in arrays indexed by node index and nothing is
+ * written in the graph. All the solution access methods work the same way.
+ * {@link #exportResult()} writes the solution in the attributes if needed.
+ * </p>
+ * 
  * <h3>Usage</h3>
  * 
  * <p>
@@ -184,6 +197,35 @@ public class Dijkstra extends AbstractSpanningTree {
 	protected String lengthAttribute;
 	protected Node source;
 
+	/**
+	 * If true, the solution is stored in the arrays below instead of node
+	 * attributes.
+	 */
+	protected boolean arrayStorage = false;
+
+	/**
+	 * Length of the shortest path to each node, by node index.
+	 */
+	protected double[] distances;
+
+	/**
+	 * Index of the edge from the parent of each node, -1 for the source and
+	 * unreachable nodes.
+	 */
+	protected int[] parentEdges;
+
+	/**
+	 * The priority queue on node indices, null for the Fibonacci heap.
+	 */
+	protected IndexedPriorityQueue.Type queueType = null;
+
+	/**
+	 * The queue used with array storage or a queue type, kept from one
+	 * computation to the other.
+	 */
+	protected IndexedPriorityQueue indexedHeap;
+	protected IndexedPriorityQueue.Type indexedHeapType;
+
 	// *** Helpers ***
 
 	protected double getLength(Edge edge, Node dest) {
@@ -297,6 +339,82 @@ public class Dijkstra extends AbstractSpanningTree {
 		this.source = source;
 	}
 
+	/**
+	 * Choose where the solution is stored. By default, internal data is stored
+	 * in node attributes. If array storage is enabled, the solution is kept in
+	 * arrays indexed by node index, which is faster and leaves the graph
+	 * untouched. The node indices must not change between the computation and
+	 * the use of the solution.
+	 * 
+	 * @param on
+	 *            True to store the solution in arrays.
+	 * @see #exportResult()
+	 */
+	public void setArrayStorage(boolean on) {
+		this.arrayStorage = on;
+	}
+
+	/**
+	 * Choose the priority queue. By default a {@link FibonacciHeap} is used,
+	 * or a binary heap with array storage. The other queues store node
+	 * indices in primitive arrays and do not allocate anything during the
+	 * computation. {@link IndexedPriorityQueue.Type#RADIX_HEAP} needs
+	 * nonnegative integer lengths.
+	 * 
+	 * @param type
+	 *            The queue type, or null for the default.
+	 */
+	public void setQueueType(IndexedPriorityQueue.Type type) {
+		this.queueType = type;
+	}
+
+	/**
+	 * The priority queue chosen.
+	 * 
+	 * @return The queue type, or null for the default.
+	 * @see #setQueueType(IndexedPriorityQueue.Type)
+	 */
+	public IndexedPriorityQueue.Type getQueueType() {
+		return queueType;
+	}
+
+	/**
+	 * True if the solution is stored in arrays.
+	 * 
+	 * @return True if array storage is used.
+	 * @see #setArrayStorage(boolean)
+	 */
+	public boolean isArrayStorage() {
+		return arrayStorage;
+	}
+
+	/**
+	 * Write the solution computed with array storage in the attributes of the
+	 * nodes, as it would have been stored without array storage. Does nothing
+	 * if array storage is not used. The solution access methods keep reading
+	 * the arrays.
+	 * 
+	 * @see #setArrayStorage(boolean)
+	 */
+	public void exportResult() {
+		if (arrayStorage && distances != null)
+			writeResult();
+	}
+
+	/**
+	 * Store the solution held in the arrays in node attributes.
+	 */
+	protected void writeResult() {
+		for (Node node : graph) {
+			int i = node.getIndex();
+			Data data = new Data();
+			data.distance = distances[i];
+			data.edgeFromParent = parentEdges[i] < 0 ? null : graph
+					.getEdge(parentEdges[i]);
+			node.addAttribute(resultAttribute, data);
+		}
+	}
+
 	/**
 	 * Removes the attributes used to store internal solution data in the nodes
 	 * of the graph. Use this method to free memory. Solution access methods
@@ -305,6 +423,9 @@ public class Dijkstra extends AbstractSpanningTree {
 	@Override
 	public void clear() {
 		super.clear();
+		distances = null;
+		parentEdges = null;
+		indexedHeap = null;
 		for (Node node : graph) {
 			Data data = node.getAttribute(resultAttribute);
 			if (data != null) {
@@ -346,6 +467,13 @@ public class Dijkstra extends AbstractSpanningTree {
 	
 	@Override
 	protected void makeTree() {
+		if (arrayStorage || queueType != null) {
+			makeTreeInArrays();
+			if (!arrayStorage)
+				writeResult();
+			return;
+		}
+
 		// initialization
 		FibonacciHeap<Double, Node> heap = new FibonacciHeap<Double, Node>();
 		for (Node node : graph) {
@@ -379,6 +507,61 @@ public class Dijkstra extends AbstractSpanningTree {
 		}		
 	}
 
+	/**
+	 * The same as {@link #makeTree()}, with the solution in arrays and a
+	 * queue on node indices.
+	 */
+	protected void makeTreeInArrays() {
+		int n = graph.getNodeCount();
+		IndexedPriorityQueue.Type type = queueType;
+
+		if (type == null)
+			type = IndexedPriorityQueue.Type.BINARY_HEAP;
+
+		if (distances == null || distances.length < n) {
+			distances = new double[n];
+			parentEdges = new int[n];
+		}
+
+		if (indexedHeap == null || indexedHeap.getCapacity() < n
+				|| indexedHeapType != type) {
+			indexedHeap = type.create(n);
+			indexedHeapType = type;
+		}
+
+		Arrays.fill(distances, 0, n, Double.POSITIVE_INFINITY);
+		Arrays.fill(parentEdges, 0, n, -1);
+
+		IndexedPriorityQueue heap = indexedHeap;
+		heap.clear();
+		int s = source.getIndex();
+
+		distances[s] = getSourceLength();
+		heap.add(s, distances[s]);
+
+		// Settled nodes need no flag: with nonnegative lengths, they can not
+		// be reached with a shorter distance.
+		while (!heap.isEmpty()) {
+			int i = heap.extractMin();
+			Node u = graph.getNode(i);
+			double distanceU = distances[i];
+			if (parentEdges[i] >= 0)
+				edgeOn(graph.getEdge(parentEdges[i]));
+			int degree = u.getOutDegree();
+			for (int k = 0; k < degree; k++) {
+				Edge e = u.getLeavingEdge(k);
+				Node v = e.getOpposite(u);
+				int j = v.getIndex();
+				double tryDist = distanceU + getLength(e, v);
+				if (tryDist < distances[j]) {
+					distances[j] = tryDist;
+					parentEdges[j] = e.getIndex();
+					heap.addOrDecrease(j, tryDist);
+				}
+			}
+		}
+	}
+
 	// *** Iterators ***
 
 	protected class NodeIterator<T extends Node> implements Iterator<T> {
@@ -556,6 +739,8 @@ public class Dijkstra extends AbstractSpanningTree {
 	 * @complexity O(1)
 	 */
 	public double getPathLength(Node target) {
+		if (arrayStorage)
+			return distances[target.getIndex()];
 		return target.<Data> getAttribute(resultAttribute).distance;
 	}
 
@@ -593,6 +778,10 @@ public class Dijkstra extends AbstractSpanningTree {
 	 */
 	@SuppressWarnings("unchecked")
 	public <T extends Edge> T getEdgeFromParent(Node target) {
+		if (arrayStorage) {
+			int e = parentEdges[target.getIndex()];
+			return e < 0 ? null : (T) graph.getEdge(e);
+		}
 		return (T) target.<Data> getAttribute(resultAttribute).edgeFromParent;
 	}
 
@@ -0,0 +1,555 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+import org.graphstream.algorithm.util.CompressedAdjacency;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.stream.Sink;
+
+/**
+ * Betweenness centrality of a graph that changes by a few edges at a time.
+ * 
+ * <p>
+ * This algorithm computes the same centralities as
+ * {@link BetweennessCentrality}, but it listens to the graph and, at each call
+ * to {@link #compute()}, only processes again the sources whose shortest path
+ * DAG may have been changed by the edges added, removed or reweighted since
+ * the previous computation. The contribution of each of these sources is
+ * removed from the centralities with the previous adjacency, then added back
+ * with the new one. The contributions of the other sources are kept.
+ * </p>
+ * 
+ * <p>
+ * To find the affected sources, the distances from each source to each node
+ * are kept, one array per source. A change of the edge between u and v, of
+ * weight w, can only affect the source s if:
+ * </p>
+ * <ul>
+ * <li>the edge was removed or its weight changed, and it was on a shortest
+ * path from s: d(s,u) + w = d(s,v);</li>
+ * <li>the edge was added or its weight changed, and the new edge is on a
+ * shortest path from s: d(s,u) + w <= d(s,v);</li>
+ * </ul>
+ * <p>
+ * in one direction or, for undirected edges, in the other. If no change of a
+ * batch affects a source, its distances, path counts and dependencies are
+ * unchanged. This is the filter of the incremental algorithms of Green,
+ * McColl and Bader. Nodes added since the last computation are new sources,
+ * and nodes removed have their contribution removed as the other affected
+ * sources. {@link #getAffectedSourceCount()} gives the number of sources
+ * processed by the last computation.
+ * </p>
+ * 
+ * <h2>Usage</h2>
+ * 
+ * <p>
+ * The parameters, weights, edge centrality and parallelism, are set as for
+ * {@link BetweennessCentrality} but before the call to {@link #init(Graph)}.
+ * The first call to {@link #compute()} is a full computation. The following
+ * ones update the centralities stored in the centrality attribute. Changes of
+ * the weight attribute of edges are taken into account when the algorithm is
+ * weighted. Sampling is not available, the centralities are exact up to the
+ * floating point rounding of the successive updates.
+ * </p>
+ * 
+ * <pre>
+ * DynamicBetweennessCentrality bc = new DynamicBetweennessCentrality();
+ * bc.init(graph);
+ * 
+ * while (simulation.nextStep()) {
+ * 	// edges are added and removed by the simulation
+ * 	bc.compute();
+ * 	double cb = bc.centrality(graph.getNode(&quot;A&quot;));
+ * }
+ * 
+ * bc.terminate();
+ * </pre>
+ * 
+ * @complexity A full computation is O(nm) on unweighted graphs and O(nm + n^2
+ *             log n) on weighted ones. An update costs two explorations per
+ *             affected source, plus O(n) per source and per changed edge to
+ *             find them. The distances take O(n^2) memory.
+ * 
+ * @reference Oded Green, Robert McColl and David A. Bader, A Fast Algorithm
+ *            for Streaming Betweenness Centrality, ASE/IEEE International
+ *            Conference on Social Computing, 2012.
+ */
+public class DynamicBetweennessCentrality extends BetweennessCentrality
+		implements DynamicAlgorithm, Sink {
+	/**
+	 * Nodes of the last computation, by index.
+	 */
+	protected Node[] nodes;
+
+	/**
+	 * Edges of the last computation, by index.
+	 */
+	protected Edge[] edges;
+
+	/**
+	 * Adjacency of the last computation.
+	 */
+	protected CompressedAdjacency adj;
+
+	/**
+	 * Offsets of the predecessor lists for {@link #adj}.
+	 */
+	protected int[] predOffsets;
+
+	/**
+	 * Distances from each source of the last computation.
+	 */
+	protected double[][] distances;
+
+	/**
+	 * Current centralities of nodes and edges.
+	 */
+	protected double[] cbNodes, cbEdges;
+
+	/**
+	 * Edges added, removed or reweighted since the last computation.
+	 */
+	protected ArrayList<Edge> changedEdges = new ArrayList<Edge>();
+
+	/**
+	 * Nodes were added or removed since the last computation.
+	 */
+	protected boolean nodesChanged;
+
+	/**
+	 * Number of sources processed by the last computation.
+	 */
+	protected int affectedSourceCount;
+
+	/**
+	 * New dynamic centrality algorithm, on unweighted graphs, storing the
+	 * centralities in the "Cb" attribute.
+	 */
+	public DynamicBetweennessCentrality() {
+		super();
+	}
+
+	/**
+	 * New dynamic centrality algorithm, on unweighted graphs.
+	 * 
+	 * @param centralityAttributeName
+	 *            The name of the attribute used to store the centralities.
+	 */
+	public DynamicBetweennessCentrality(String centralityAttributeName) {
+		super(centralityAttributeName);
+	}
+
+	/**
+	 * New dynamic centrality algorithm on weighted graphs.
+	 * 
+	 * @param centralityAttributeName
+	 *            The name of the attribute used to store the centralities.
+	 * @param weightAttributeName
+	 *            The name of the attribute giving the weights of edges.
+	 */
+	public DynamicBetweennessCentrality(String centralityAttributeName,
+			String weightAttributeName) {
+		super(centralityAttributeName, weightAttributeName);
+	}
+
+	/**
+	 * Number of sources processed by the last call to {@link #compute()}: all
+	 * the nodes for a full computation, the affected sources and the new
+	 * nodes for an update.
+	 * 
+	 * @return The number of sources.
+	 */
+	public int getAffectedSourceCount() {
+		return affectedSourceCount;
+	}
+
+	// DynamicAlgorithm implementation
+
+	@Override
+	public void init(Graph graph) {
+		if (this.graph != null)
+			this.graph.removeSink(this);
+
+		this.graph = graph;
+		graph.addSink(this);
+		clear();
+	}
+
+	/**
+	 * Compute the centralities, from scratch the first time, else by updating
+	 * the contributions of the sources affected by the changes of the graph.
+	 */
+	@Override
+	public void compute() {
+		if (graph == null)
+			return;
+
+		if (distances == null)
+			full();
+		else if (nodesChanged || !changedEdges.isEmpty())
+			update();
+		else
+			return;
+
+		changedEdges.clear();
+		nodesChanged = false;
+		store(cbNodes, cbEdges);
+	}
+
+	public void terminate() {
+		graph.removeSink(this);
+		graph = null;
+		clear();
+	}
+
+	/**
+	 * Equivalent to a call to {@link #init(Graph)} then to
+	 * {@link #compute()}.
+	 */
+	@Override
+	public void betweennessCentrality(Graph graph) {
+		init(graph);
+		compute();
+	}
+
+	// Sink implementation
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId,
+			String fromNodeId, String toNodeId, boolean directed) {
+		changedEdges.add(graph.getEdge(edgeId));
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		changedEdges.add(graph.getEdge(edgeId));
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId,
+			String edgeId, String attribute, Object value) {
+		weightChanged(edgeId, attribute);
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId,
+			String edgeId, String attribute, Object oldValue, Object newValue) {
+		weightChanged(edgeId, attribute);
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId,
+			String edgeId, String attribute) {
+		weightChanged(edgeId, attribute);
+	}
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		nodesChanged = true;
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		nodesChanged = true;
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		clear();
+	}
+
+	public void graphAttributeAdded(String sourceId, long timeId,
+			String attribute, Object value) {
+		// Nothing to do
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId,
+			String attribute, Object oldValue, Object newValue) {
+		// Nothing to do
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId,
+			String attribute) {
+		// Nothing to do
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId,
+			String nodeId, String attribute, Object value) {
+		// Nothing to do
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId,
+			String nodeId, String attribute, Object oldValue, Object newValue) {
+		// Nothing to do
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId,
+			String nodeId, String attribute) {
+		// Nothing to do
+	}
+
+	public void stepBegins(String sourceId, long timeId, double step) {
+		// Nothing to do
+	}
+
+	// helpers
+
+	protected void weightChanged(String edgeId, String attribute) {
+		if (!unweighted && attribute.equals(weightAttributeName))
+			changedEdges.add(graph.getEdge(edgeId));
+	}
+
+	/**
+	 * Forget the state of the last computation, the next one will be a full
+	 * computation.
+	 */
+	protected void clear() {
+		nodes = null;
+		edges = null;
+		adj = null;
+		predOffsets = null;
+		distances = null;
+		cbNodes = null;
+		cbEdges = null;
+		changedEdges.clear();
+		nodesChanged = false;
+	}
+
+	/**
+	 * Take a snapshot of the nodes, edges and adjacency of the graph.
+	 */
+	protected void snapshot() {
+		nodes = new Node[graph.getNodeCount()];
+		edges = new Edge[graph.getEdgeCount()];
+
+		for (int i = 0; i < nodes.length; i++)
+			nodes[i] = graph.getNode(i);
+
+		for (int i = 0; i < edges.length; i++)
+			edges[i] = graph.getEdge(i);
+
+		adj = new CompressedAdjacency(graph, unweighted ? null
+				: weightAttributeName, CompressedAdjacency.Direction.LEAVING);
+		predOffsets = predecessorOffsets(adj);
+	}
+
+	protected void full() {
+		snapshot();
+
+		int n = nodes.length;
+		int[] sources = new int[n];
+
+		for (int i = 0; i < n; i++)
+			sources[i] = i;
+
+		distances = new double[n][];
+
+		double[][] cb = brandes(adj, predOffsets, doEdges ? edges.length : 0,
+				sources, 1.0, distances);
+
+		cbNodes = cb[0];
+		cbEdges = cb[1];
+		affectedSourceCount = n;
+	}
+
+	protected void update() {
+		int oldN = nodes.length;
+		IdentityHashMap<Node, Integer> nodeIndex = new IdentityHashMap<Node, Integer>();
+		IdentityHashMap<Edge, Integer> edgeIndex = new IdentityHashMap<Edge, Integer>();
+
+		for (int i = 0; i < oldN; i++)
+			nodeIndex.put(nodes[i], i);
+
+		for (int i = 0; i < edges.length; i++)
+			edgeIndex.put(edges[i], i);
+
+		// Find the affected sources and remove their contributions.
+
+		int c = changedEdges.size();
+		int[] from = new int[c], to = new int[c];
+		double[] oldWeight = new double[c], newWeight = new double[c];
+		boolean[] directed = new boolean[c];
+
+		for (int k = 0; k < c; k++) {
+			Edge e = changedEdges.get(k);
+			Integer i = edgeIndex.get(e);
+
+			from[k] = index(nodeIndex, e.getNode0());
+			to[k] = index(nodeIndex, e.getNode1());
+			directed[k] = e.isDirected();
+			oldWeight[k] = i == null ? Double.NaN : arcWeight(from[k], i);
+			newWeight[k] = graph.getEdge(e.getId()) == e ? edgeWeight(e)
+					: Double.NaN;
+		}
+
+		int[] affected = new int[oldN];
+		boolean[] isAffected = new boolean[oldN];
+		int count = 0;
+
+		for (int s = 0; s < oldN; s++) {
+			double[] d = distances[s];
+
+			for (int k = 0; k < c; k++) {
+				double du = from[k] < 0 ? Double.POSITIVE_INFINITY
+						: d[from[k]];
+				double dv = to[k] < 0 ? Double.POSITIVE_INFINITY : d[to[k]];
+
+				if (affects(du, dv, oldWeight[k], newWeight[k])
+						|| (!directed[k] && affects(dv, du, oldWeight[k],
+								newWeight[k]))) {
+					affected[count++] = s;
+					isAffected[s] = true;
+					break;
+				}
+			}
+		}
+
+		affectedSourceCount = count;
+		add(brandes(adj, predOffsets, cbEdges.length,
+				trim(affected, count), -1.0, null));
+
+		// New snapshot, the state of the nodes and edges that are still here
+		// is moved to their new index.
+
+		double[] oldCbNodes = cbNodes, oldCbEdges = cbEdges;
+		double[][] oldDistances = distances;
+
+		snapshot();
+
+		int n = nodes.length;
+		int[] oldIndex = new int[n];
+		boolean sameNodes = n == oldN;
+
+		for (int j = 0; j < n; j++) {
+			oldIndex[j] = index(nodeIndex, nodes[j]);
+			sameNodes &= oldIndex[j] == j;
+		}
+
+		cbNodes = new double[n];
+		cbEdges = new double[doEdges ? edges.length : 0];
+		distances = new double[n][];
+
+		int[] sources = new int[n];
+		int sourceCount = 0;
+
+		for (int j = 0; j < n; j++) {
+			int i = oldIndex[j];
+
+			if (i < 0 || isAffected[i]) {
+				sources[sourceCount++] = j;
+
+				if (i < 0)
+					affectedSourceCount++;
+			} else {
+				distances[j] = sameNodes ? oldDistances[i] : move(
+						oldDistances[i], oldIndex);
+			}
+
+			if (i >= 0)
+				cbNodes[j] = oldCbNodes[i];
+		}
+
+		for (int j = 0; j < cbEdges.length; j++) {
+			Integer i = edgeIndex.get(edges[j]);
+
+			if (i != null)
+				cbEdges[j] = oldCbEdges[i];
+		}
+
+		add(brandes(adj, predOffsets, cbEdges.length,
+				trim(sources, sourceCount), 1.0, distances));
+	}
+
+	/**
+	 * A change of an edge from u to v affects a source if the old edge was on
+	 * a shortest path or if the new one is.
+	 */
+	protected static boolean affects(double du, double dv, double oldWeight,
+			double newWeight) {
+		if (du == Double.POSITIVE_INFINITY)
+			return false;
+
+		return du + oldWeight == dv || du + newWeight <= dv;
+	}
+
+	/**
+	 * Weight of an edge in the last snapshot, read from the arcs leaving one
+	 * of its extremities.
+	 */
+	protected double arcWeight(int node, int edge) {
+		for (int p = adj.offsets[node]; p < adj.offsets[node + 1]; p++)
+			if (adj.edges[p] == edge)
+				return adj.weights[p];
+
+		return Double.NaN;
+	}
+
+	/**
+	 * Current weight of an edge, as read by {@link CompressedAdjacency}.
+	 */
+	protected double edgeWeight(Edge e) {
+		if (unweighted || !e.hasAttribute(weightAttributeName))
+			return 1;
+
+		return e.getNumber(weightAttributeName);
+	}
+
+	protected void add(double[][] cb) {
+		for (int i = 0; i < cbNodes.length; i++)
+			cbNodes[i] += cb[0][i];
+
+		for (int i = 0; i < cbEdges.length; i++)
+			cbEdges[i] += cb[1][i];
+	}
+
+	protected static int index(IdentityHashMap<Node, Integer> nodeIndex,
+			Node node) {
+		Integer i = nodeIndex.get(node);
+		return i == null ? -1 : i;
+	}
+
+	protected static int[] trim(int[] array, int length) {
+		int[] trimmed = new int[length];
+		System.arraycopy(array, 0, trimmed, 0, length);
+		return trimmed;
+	}
+
+	/**
+	 * Distances of a source to the new node indices, infinite for new nodes.
+	 */
+	protected static double[] move(double[] row, int[] oldIndex) {
+		double[] moved = new double[oldIndex.length];
+
+		for (int j = 0; j < oldIndex.length; j++)
+			moved[j] = oldIndex[j] < 0 ? Double.POSITIVE_INFINITY
+					: row[oldIndex[j]];
+
+		return moved;
+	}
+}
@@ -32,8 +32,11 @@
 package org.graphstream.algorithm;
 
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Iterator;
 
+import org.graphstream.algorithm.util.CompressedAdjacency;
+import org.graphstream.algorithm.util.TaskPool;
+import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
 import org.graphstream.stream.ElementSink;
@@ -77,6 +80,40 @@ import org.graphstream.stream.ElementSink;
  * </p>
  * 
  * <p>
+ * The iterations do not access the graph. When the structure of the graph
+ * has changed, the next computation takes a snapshot of the entering edges
+ * of each node in compressed arrays, with the inverse of the out-degree of
+ * each node, and starts from the ranks stored in the attributes. It then
+ * iterates on two arrays of ranks and writes the attributes only once the
+ * ranks have converged.
+ * </p>
+ * 
+ * <p>
+ * Each node pulls the ranks of its in-neighbors, so the nodes can be updated
+ * in parallel. With {@link #setParallelism(int)} greater than one, the nodes
+ * are split in chunks of about the same number of entering edges, four per
+ * thread, processed by a pool of threads. The rank of the dangling nodes and
+ * the norm of the difference are summed per chunk, then the chunk sums are
+ * added in order.
+ * </p>
+ * 
+ * <p>
+ * In the incremental mode (see {@link #setIncremental(boolean)}), the
+ * changes of edges are not followed by a power iteration. The algorithm keeps
+ * the residual r = (1 - d) / n + d P x - x of the rank vector x, where P is
+ * the transition matrix of the surfer. Adding or removing an edge leaving u
+ * only changes the residual of the neighbors of u. The next computation then
+ * pushes the residual of the nodes where it is above precision / 2n to their
+ * neighbors, as Gauss-Southwell iterations, until the L1 norm of the residual
+ * is less than the precision, the same stopping criterion as the power
+ * iteration. The residual pushed by a dangling node goes to all the nodes and
+ * is kept as a single value applied to all of them when it becomes too large.
+ * Only the ranks of the nodes that were pushed are written in the attributes.
+ * Adding or removing a node changes the teleportation term of all the nodes,
+ * and is followed by a power iteration from the current ranks.
+ * </p>
+ * 
+ * <p>
  * The computed ranks are stored in node attribute. The name of this attribute
  * can be changed by a call to {@link #setRankAttribute(String)} but only before
  * the call to {@link #init(Graph)}. Another way to obtain the ranks is to call
@@ -169,10 +206,108 @@ public class PageRank implements DynamicAlgorithm, ElementSink {
 	 */
 	protected double normDiff;
 
+	/**
+	 * Has the structure of the graph changed since the last snapshot ?
+	 */
+	protected boolean structureChanged;
+
+	/**
+	 * Entering edges of each node, in compressed arrays
+	 */
+	protected CompressedAdjacency entering;
+
+	/**
+	 * Inverse of the out-degree of each node, 0 for dangling nodes
+	 */
+	protected double[] inverseOutDegree;
+
+	/**
+	 * The ranks of the current iteration, by node index
+	 */
+	protected double[] ranks;
+
 	/**
 	 * Used to temporary store the new ranks during an iteration
 	 */
-	protected List<Double> newRanks;
+	protected double[] newRanks;
+
+	/**
+	 * Sum of the ranks of the nodes without leaving edges
+	 */
+	protected double danglingRank;
+
+	/**
+	 * Number of threads updating the ranks
+	 */
+	protected int parallelism = 1;
+
+	/**
+	 * The threads, created when the parallelism is greater than one
+	 */
+	protected TaskPool pool;
+
+	/**
+	 * First node of each chunk, and the end of the last one
+	 */
+	protected int[] chunks;
+
+	/**
+	 * Norm of the difference and dangling rank of each chunk
+	 */
+	protected double[] chunkDiff, chunkDangling;
+
+	/**
+	 * One task per chunk
+	 */
+	protected ArrayList<Runnable> tasks;
+
+	/**
+	 * Update the ranks locally after changes of edges ?
+	 */
+	protected boolean incremental;
+
+	/**
+	 * The residual of each node in incremental mode, null if it must be
+	 * computed again
+	 */
+	protected double[] residual;
+
+	/**
+	 * Residual common to all the nodes
+	 */
+	protected double uniformResidual;
+
+	/**
+	 * Nodes whose residual is above the threshold, in a circular buffer
+	 */
+	protected int[] queue;
+
+	/**
+	 * Position of the head of the queue and number of queued nodes
+	 */
+	protected int queueHead, queueSize;
+
+	/**
+	 * Is the node in the queue ?
+	 */
+	protected boolean[] queued;
+
+	/**
+	 * Nodes whose rank changed since it was written, and their count
+	 */
+	protected int[] touched;
+
+	protected int touchedCount;
+
+	/**
+	 * Has the rank of the node changed since it was written ?
+	 */
+	protected boolean[] isTouched;
+
+	/**
+	 * Number of pushes of the last incremental computation
+	 */
+	protected int pushCount;
 
 	/**
 	 * total iteration count
@@ -236,6 +371,7 @@ public class PageRank implements DynamicAlgorithm, ElementSink {
 			throw new IllegalArgumentException(
 					"The damping factor must be between 0.01 and 0.99");
 		this.dampingFactor = dampingFactor;
+		residual = null;
 		upToDate = false;
 	}
 
@@ -261,6 +397,7 @@ public class PageRank implements DynamicAlgorithm, ElementSink {
 		if (precision < 1.0e-7)
 			throw new IllegalArgumentException("Precision is too small");
 		this.precision = precision;
+		residual = null;
 		upToDate = false;
 	}
 
@@ -291,6 +428,59 @@ public class PageRank implements DynamicAlgorithm, ElementSink {
 		this.rankAttribute = rankAttribute;
 	}
 
+	/**
+	 * Returns the number of threads updating the ranks.
+	 * 
+	 * @return The number of threads
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Sets the number of threads updating the ranks. With one thread, the
+	 * default, the ranks are updated in the calling thread.
+	 * 
+	 * @param threads
+	 *            The number of threads
+	 * @throws IllegalArgumentException
+	 *             If the number of threads is less than 1
+	 */
+	public void setParallelism(int threads) throws IllegalArgumentException {
+		if (threads < 1)
+			throw new IllegalArgumentException(
+					"The parallelism must be at least 1");
+		parallelism = threads;
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+		structureChanged = true;
+	}
+
+	/**
+	 * Is the incremental mode on ?
+	 * 
+	 * @return True if the ranks are updated locally after changes of edges
+	 */
+	public boolean isIncremental() {
+		return incremental;
+	}
+
+	/**
+	 * Switches on or off the incremental mode. In this mode, the ranks are
+	 * updated after changes of edges by pushing the residual from the
+	 * extremities of the edges, instead of iterating on the whole graph.
+	 * 
+	 * @param incremental
+	 *            Incremental mode
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+		residual = null;
+		upToDate = false;
+	}
+
 	/**
 	 * Switches on or off the verbose mode.
 	 * 
@@ -313,7 +503,7 @@ public class PageRank implements DynamicAlgorithm, ElementSink {
 		double initialRank = 1.0 / graph.getNodeCount();
 		for (Node node : graph)
 			node.addAttribute(rankAttribute, initialRank);
-		newRanks = new ArrayList<Double>(graph.getNodeCount());
+		structureChanged = true;
 		upToDate = false;
 		iterationCount = 0;
 	}
@@ -321,17 +511,46 @@ public class PageRank implements DynamicAlgorithm, ElementSink {
 	public void compute() {
 		if (upToDate)
 			return;
+		if (incremental && residual != null) {
+			push();
+			for (int k = 0; k < touchedCount; k++) {
+				int i = touched[k];
+				graph.getNode(i).addAttribute(rankAttribute, ranks[i]);
+				isTouched[i] = false;
+			}
+			touchedCount = 0;
+			upToDate = true;
+			return;
+		}
+		if (structureChanged)
+			snapshot();
 		do {
 			iteration();
 			if (verbose)
 				System.err.printf("%6d%16.8f%n", iterationCount, normDiff);
 		} while (normDiff > precision);
+		for (int i = 0; i < ranks.length; i++)
+			graph.getNode(i).addAttribute(rankAttribute, ranks[i]);
+		if (incremental)
+			initResidual();
 		upToDate = true;
 	}
 
 	public void terminate() {
 		graph.removeElementSink(this);
-		newRanks.clear();
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+		tasks = null;
+		residual = null;
+		queue = null;
+		queued = null;
+		touched = null;
+		isTouched = null;
+		entering = null;
+		inverseOutDegree = null;
+		ranks = null;
 		newRanks = null;
 		graph = null;
 	}
@@ -342,6 +561,8 @@ public class PageRank implements DynamicAlgorithm, ElementSink {
 		// the initial rank of the new node will be 0
 		graph.getNode(nodeId).addAttribute(rankAttribute,
 				graph.getNodeCount() == 1 ? 1.0 : 0.0);
+		structureChanged = true;
+		residual = null;
 		upToDate = false;
 	}
 
@@ -353,19 +574,29 @@ public class PageRank implements DynamicAlgorithm, ElementSink {
 			if (!node.getId().equals(nodeId))
 				node.addAttribute(rankAttribute, node.getNumber(rankAttribute)
 						+ part);
+		structureChanged = true;
+		residual = null;
 		upToDate = false;
 	}
 
 	public void edgeAdded(String sourceId, long timeId, String edgeId,
 			String fromNodeId, String toNodeId, boolean directed) {
+		if (residual != null)
+			edgeChanged(graph.getEdge(edgeId), true);
+		structureChanged = true;
 		upToDate = false;
 	}
 
 	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		if (residual != null)
+			edgeChanged(graph.getEdge(edgeId), false);
+		structureChanged = true;
 		upToDate = false;
 	}
 
 	public void graphCleared(String sourceId, long timeId) {
+		structureChanged = true;
+		residual = null;
 		upToDate = true;
 	}
 
@@ -374,34 +605,245 @@ public class PageRank implements DynamicAlgorithm, ElementSink {
 
 	// helpers
 
+	/**
+	 * Takes a snapshot of the entering edges and of the out-degrees, and
+	 * loads the ranks stored in the attributes.
+	 */
+	protected void snapshot() {
+		int n = graph.getNodeCount();
+		entering = new CompressedAdjacency(graph, null,
+				CompressedAdjacency.Direction.ENTERING);
+		inverseOutDegree = new double[n];
+		for (int p = 0; p < entering.size(); p++)
+			inverseOutDegree[entering.neighbors[p]]++;
+		for (int i = 0; i < n; i++)
+			if (inverseOutDegree[i] > 0)
+				inverseOutDegree[i] = 1 / inverseOutDegree[i];
+		ranks = new double[n];
+		newRanks = new double[n];
+		danglingRank = 0;
+		for (int i = 0; i < n; i++) {
+			ranks[i] = graph.getNode(i).getNumber(rankAttribute);
+			if (inverseOutDegree[i] == 0)
+				danglingRank += ranks[i];
+		}
+		partition();
+		structureChanged = false;
+	}
+
+	/**
+	 * Splits the nodes in chunks of about the same number of entering edges
+	 * plus nodes.
+	 */
+	protected void partition() {
+		int n = ranks.length;
+		int count = parallelism == 1 ? 1 : Math.min(4 * parallelism,
+				Math.max(1, n));
+		double work = (double) (entering.size() + n) / count;
+		chunks = new int[count + 1];
+		int c = 1;
+		for (int i = 0; i < n && c < count; i++)
+			if (entering.offsets[i + 1] + i + 1 >= c * work)
+				chunks[c++] = i + 1;
+		while (c <= count)
+			chunks[c++] = n;
+
+		chunkDiff = new double[count];
+		chunkDangling = new double[count];
+		tasks = new ArrayList<Runnable>(count);
+		for (int k = 0; k < count; k++) {
+			final int chunk = k;
+			tasks.add(new Runnable() {
+				public void run() {
+					update(chunk);
+				}
+			});
+		}
+		if (parallelism > 1 && pool == null)
+			pool = new TaskPool(parallelism);
+	}
+
 	protected void iteration() {
-		double dampingTerm = (1 - dampingFactor) / graph.getNodeCount();
-		newRanks.clear();
-		double danglingRank = 0;
-		for (int i = 0; i < graph.getNodeCount(); i++) {
-			Node node = graph.getNode(i);
-			double sum = 0;
-			for (int j = 0; j < node.getInDegree(); j++) {
-				Node other = node.getEnteringEdge(j).getOpposite(node);
-				sum += other.getNumber(rankAttribute) / other.getOutDegree();
-			}
-			newRanks.add(dampingTerm + dampingFactor * sum);
-			if (node.getOutDegree() == 0)
-				danglingRank += node.getNumber(rankAttribute);
+		if (pool == null) {
+			for (Runnable task : tasks)
+				task.run();
+		} else {
+			pool.execute(tasks);
 		}
-		danglingRank *= dampingFactor / graph.getNodeCount();
 
 		normDiff = 0;
-		for (int i = 0; i < graph.getNodeCount(); i++) {
-			Node node = graph.getNode(i);
-			double currentRank = node.getNumber(rankAttribute);
-			double newRank = newRanks.get(i) + danglingRank;
-			normDiff += Math.abs(newRank - currentRank);
-			node.addAttribute(rankAttribute, newRank);
+		danglingRank = 0;
+		for (int k = 0; k < chunkDiff.length; k++) {
+			normDiff += chunkDiff[k];
+			danglingRank += chunkDangling[k];
 		}
+		double[] tmp = ranks;
+		ranks = newRanks;
+		newRanks = tmp;
 		iterationCount++;
 	}
 
+	/**
+	 * Computes the new ranks of the nodes of a chunk.
+	 * 
+	 * @param chunk
+	 *            The chunk index
+	 */
+	protected void update(int chunk) {
+		int n = ranks.length;
+		int[] offsets = entering.offsets;
+		int[] neighbors = entering.neighbors;
+		double term = (1 - dampingFactor) / n + dampingFactor * danglingRank
+				/ n;
+		double diff = 0;
+		double dangling = 0;
+		for (int i = chunks[chunk]; i < chunks[chunk + 1]; i++) {
+			double sum = 0;
+			for (int p = offsets[i]; p < offsets[i + 1]; p++) {
+				int other = neighbors[p];
+				sum += ranks[other] * inverseOutDegree[other];
+			}
+			double newRank = term + dampingFactor * sum;
+			diff += Math.abs(newRank - ranks[i]);
+			if (inverseOutDegree[i] == 0)
+				dangling += newRank;
+			newRanks[i] = newRank;
+		}
+		chunkDiff[chunk] = diff;
+		chunkDangling[chunk] = dangling;
+	}
+
+	/**
+	 * Computes the residual of the current ranks, with the snapshot of the
+	 * graph.
+	 */
+	protected void initResidual() {
+		int n = ranks.length;
+		int[] offsets = entering.offsets;
+		int[] neighbors = entering.neighbors;
+		double term = (1 - dampingFactor) / n + dampingFactor * danglingRank
+				/ n;
+		residual = new double[n];
+		for (int i = 0; i < n; i++) {
+			double sum = 0;
+			for (int p = offsets[i]; p < offsets[i + 1]; p++) {
+				int other = neighbors[p];
+				sum += ranks[other] * inverseOutDegree[other];
+			}
+			residual[i] = term + dampingFactor * sum - ranks[i];
+		}
+		uniformResidual = 0;
+		queue = new int[n];
+		queued = new boolean[n];
+		queueHead = 0;
+		queueSize = 0;
+		touched = new int[n];
+		isTouched = new boolean[n];
+		touchedCount = 0;
+		for (int i = 0; i < n; i++)
+			enqueue(i);
+	}
+
+	/**
+	 * Updates the residual when an edge is added or removed. The edge is
+	 * still in the graph in both cases.
+	 */
+	protected void edgeChanged(Edge edge, boolean added) {
+		Node from = edge.getSourceNode();
+		Node to = edge.getTargetNode();
+		arcChanged(edge, from, to, added);
+		if (!edge.isDirected() && from != to)
+			arcChanged(edge, to, from, added);
+	}
+
+	/**
+	 * Updates the residual of the neighbors of u when an arc from u to v is
+	 * added or removed.
+	 */
+	protected void arcChanged(Edge edge, Node u, Node v, boolean added) {
+		int degree = outDegree(u);
+		int oldDegree = added ? degree - 1 : degree;
+		int newDegree = added ? degree : degree - 1;
+		double rank = dampingFactor * ranks[u.getIndex()];
+		double change = (newDegree == 0 ? 0 : rank / newDegree)
+				- (oldDegree == 0 ? 0 : rank / oldDegree);
+		for (Edge e : u.getEachLeavingEdge())
+			if (e != edge)
+				addResidual(e.getOpposite(u).getIndex(), change);
+		if (added)
+			addResidual(v.getIndex(), rank / newDegree);
+		else
+			addResidual(v.getIndex(), -rank / oldDegree);
+		if (oldDegree == 0)
+			uniformResidual -= rank / ranks.length;
+		if (newDegree == 0)
+			uniformResidual += rank / ranks.length;
+	}
+
+	/**
+	 * Pushes the residual until its L1 norm is less than the precision.
+	 */
+	protected void push() {
+		int n = ranks.length;
+		pushCount = 0;
+		while (true) {
+			while (queueSize > 0) {
+				int i = queue[queueHead];
+				queueHead = (queueHead + 1) % n;
+				queueSize--;
+				queued[i] = false;
+				double r = residual[i];
+				if (Math.abs(r) <= precision / (2 * n))
+					continue;
+				ranks[i] += r;
+				residual[i] = 0;
+				if (!isTouched[i]) {
+					isTouched[i] = true;
+					touched[touchedCount++] = i;
+				}
+				pushCount++;
+				Node node = graph.getNode(i);
+				int degree = outDegree(node);
+				if (degree == 0) {
+					uniformResidual += dampingFactor * r / n;
+				} else {
+					double part = dampingFactor * r / degree;
+					for (Edge e : node.getEachLeavingEdge())
+						addResidual(e.getOpposite(node).getIndex(), part);
+				}
+			}
+			if (Math.abs(uniformResidual) * n <= precision / 2)
+				break;
+			for (int i = 0; i < n; i++) {
+				residual[i] += uniformResidual;
+				enqueue(i);
+			}
+			uniformResidual = 0;
+		}
+	}
+
+	protected void addResidual(int i, double r) {
+		residual[i] += r;
+		enqueue(i);
+	}
+
+	protected void enqueue(int i) {
+		if (!queued[i]
+				&& Math.abs(residual[i]) > precision / (2 * ranks.length)) {
+			queue[(queueHead + queueSize) % ranks.length] = i;
+			queueSize++;
+			queued[i] = true;
+		}
+	}
+
+	protected static int outDegree(Node node) {
+		int degree = 0;
+		for (Iterator<Edge> it = node.getLeavingEdgeIterator(); it.hasNext(); it
+				.next())
+			degree++;
+		return degree;
+	}
+
 	// results
 
 	/**
@@ -417,6 +859,15 @@ public class PageRank implements DynamicAlgorithm, ElementSink {
 		return node.getNumber(rankAttribute);
 	}
 
+	/**
+	 * Returns the number of pushes of the last incremental update.
+	 * 
+	 * @return The number of pushes
+	 */
+	public int getPushCount() {
+		return pushCount;
+	}
+
 	/**
 	 * Returns the total number of iterations.
 	 * 
@@ -0,0 +1,537 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.graphstream.algorithm.util.CompressedAdjacency;
+import org.graphstream.algorithm.util.TaskPool;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+
+/**
+ * <p>
+ * Personalized PageRank queries. As for the {@link PageRank}, a random surfer
+ * follows a random leaving edge with probability <it>d</it>, the damping
+ * factor, but with probability <it>1 - d</it> it teleports according to a
+ * given teleport vector instead of to a uniformly chosen node. Surfers on
+ * nodes without leaving edges also teleport. The rank of a node is the
+ * probability that the surfer is on it. With a teleport vector concentrated
+ * on a seed node, or a set of seed nodes, the ranks measure the proximity to
+ * the seeds.
+ * </p>
+ * 
+ * <h2>Usage</h2>
+ * 
+ * <p>
+ * {@link #init(Graph)} takes a snapshot of the graph in compressed arrays.
+ * The queries only read this snapshot and write nothing in the graph, so
+ * several threads can run queries on the same instance. When the graph has
+ * changed, {@link #compute()} takes a new snapshot.
+ * </p>
+ * 
+ * <p>
+ * Single queries, {@link #getRanks(double[])} and
+ * {@link #getTopNodes(int, double[])}, use the forward push algorithm of
+ * Andersen, Chung and Lang. It starts with the teleport vector as residual,
+ * and pushes the residual of the nodes where it is above the precision times
+ * their out-degree: a part 1 - d goes to the rank of the node and the rest is
+ * shared among its neighbors. Only the nodes near the seeds are visited. The
+ * rank of each node is underestimated by at most the precision times its
+ * degree.
+ * </p>
+ * 
+ * <p>
+ * Batch queries, {@link #getTopNodes(int, List)}, compute the top nodes of
+ * one single seed query per source with Monte-Carlo random walks: each walk
+ * starts on the source, stops with probability 1 - d at each step, and
+ * restarts from the source on dangling nodes. The frequency of the end nodes
+ * estimates the ranks. The walks of the sources are shared among
+ * {@link #setParallelism(int)} threads, each query having its own random
+ * numbers, derived from the seed given by {@link #setRandomSeed(long)}.
+ * </p>
+ * 
+ * <h2>Example</h2>
+ * 
+ * <pre>
+ * PersonalizedPageRank ppr = new PersonalizedPageRank();
+ * ppr.init(graph);
+ * 
+ * for (Node node : ppr.getTopNodes(10, graph.getNode(&quot;A&quot;)))
+ * 	System.out.println(node.getId());
+ * </pre>
+ * 
+ * @complexity A forward push query takes O(1 / (precision (1 - d))) pushes,
+ *             independently of the size of the graph, plus O(n) to allocate
+ *             its vectors. A batch query takes O(w / (1 - d)) steps per
+ *             source, where w is the number of walks.
+ * 
+ * @reference Reid Andersen, Fan Chung and Kevin Lang. Local Graph
+ *            Partitioning using PageRank Vectors. FOCS 2006.
+ * @reference Bahman Bahmani, Abdur Chowdhury and Ashish Goel. Fast
+ *            Incremental and Personalized PageRank. VLDB 2010.
+ */
+public class PersonalizedPageRank implements Algorithm {
+	/**
+	 * Default precision of the forward push
+	 */
+	public static final double DEFAULT_PRECISION = 1.0e-6;
+
+	/**
+	 * Default number of walks per source
+	 */
+	public static final int DEFAULT_WALK_COUNT = 10000;
+
+	/**
+	 * Current damping factor
+	 */
+	protected double dampingFactor = PageRank.DEFAULT_DAMPING_FACTOR;
+
+	/**
+	 * Current precision of the forward push
+	 */
+	protected double precision = DEFAULT_PRECISION;
+
+	/**
+	 * Number of walks per source
+	 */
+	protected int walkCount = DEFAULT_WALK_COUNT;
+
+	/**
+	 * Seed of the random numbers of the walks
+	 */
+	protected long randomSeed = System.currentTimeMillis();
+
+	/**
+	 * Number of threads for batch queries
+	 */
+	protected int parallelism = 1;
+
+	/**
+	 * Our graph
+	 */
+	protected Graph graph;
+
+	/**
+	 * Nodes of the snapshot, by index
+	 */
+	protected Node[] nodes;
+
+	/**
+	 * Leaving edges of each node
+	 */
+	protected CompressedAdjacency leaving;
+
+	// parameters
+
+	/**
+	 * Returns the current damping factor.
+	 * 
+	 * @return The current damping factor
+	 */
+	public double getDampingFactor() {
+		return dampingFactor;
+	}
+
+	/**
+	 * Sets the damping factor.
+	 * 
+	 * @param dampingFactor
+	 *            The new damping factor
+	 * @throws IllegalArgumentException
+	 *             If the damping factor is less than 0.01 or greater than 0.99
+	 */
+	public void setDampingFactor(double dampingFactor)
+			throws IllegalArgumentException {
+		if (dampingFactor < 0.01 || dampingFactor > 0.99)
+			throw new IllegalArgumentException(
+					"The damping factor must be between 0.01 and 0.99");
+		this.dampingFactor = dampingFactor;
+	}
+
+	/**
+	 * Returns the precision of the forward push.
+	 * 
+	 * @return The precision
+	 */
+	public double getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * Sets the precision of the forward push. The residual of a node is
+	 * pushed while it is above the precision times its out-degree.
+	 * 
+	 * @param precision
+	 *            The new precision
+	 * @throws IllegalArgumentException
+	 *             if the precision is not positive
+	 */
+	public void setPrecision(double precision) throws IllegalArgumentException {
+		if (precision <= 0)
+			throw new IllegalArgumentException("Precision must be positive");
+		this.precision = precision;
+	}
+
+	/**
+	 * Returns the number of walks per source of batch queries.
+	 * 
+	 * @return The number of walks
+	 */
+	public int getWalkCount() {
+		return walkCount;
+	}
+
+	/**
+	 * Sets the number of walks per source of batch queries.
+	 * 
+	 * @param walkCount
+	 *            The number of walks
+	 * @throws IllegalArgumentException
+	 *             if the number of walks is not positive
+	 */
+	public void setWalkCount(int walkCount) throws IllegalArgumentException {
+		if (walkCount < 1)
+			throw new IllegalArgumentException(
+					"The number of walks must be positive");
+		this.walkCount = walkCount;
+	}
+
+	/**
+	 * Sets the seed of the random numbers of the walks.
+	 * 
+	 * @param randomSeed
+	 *            The seed
+	 */
+	public void setRandomSeed(long randomSeed) {
+		this.randomSeed = randomSeed;
+	}
+
+	/**
+	 * Returns the number of threads of batch queries.
+	 * 
+	 * @return The number of threads
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Sets the number of threads of batch queries.
+	 * 
+	 * @param threads
+	 *            The number of threads
+	 * @throws IllegalArgumentException
+	 *             If the number of threads is less than 1
+	 */
+	public void setParallelism(int threads) throws IllegalArgumentException {
+		if (threads < 1)
+			throw new IllegalArgumentException(
+					"The parallelism must be at least 1");
+		parallelism = threads;
+	}
+
+	// Algorithm implementation
+
+	public void init(Graph graph) {
+		this.graph = graph;
+		compute();
+	}
+
+	/**
+	 * Takes a new snapshot of the graph.
+	 */
+	public void compute() {
+		nodes = new Node[graph.getNodeCount()];
+		for (int i = 0; i < nodes.length; i++)
+			nodes[i] = graph.getNode(i);
+		leaving = new CompressedAdjacency(graph, null,
+				CompressedAdjacency.Direction.LEAVING);
+	}
+
+	// queries
+
+	/**
+	 * Returns the teleport vector of a set of seeds, uniform on the seeds.
+	 * 
+	 * @param seeds
+	 *            The seed nodes
+	 * @return The teleport vector, by node index
+	 */
+	public double[] teleportVector(Node... seeds) {
+		if (seeds.length == 0)
+			throw new IllegalArgumentException("At least one seed is needed");
+		double[] teleport = new double[nodes.length];
+		for (Node seed : seeds)
+			teleport[seed.getIndex()] += 1.0 / seeds.length;
+		return teleport;
+	}
+
+	/**
+	 * Computes the personalized ranks of a set of seeds with the forward
+	 * push.
+	 * 
+	 * @param seeds
+	 *            The seed nodes
+	 * @return The ranks, by node index
+	 */
+	public double[] getRanks(Node... seeds) {
+		return getRanks(teleportVector(seeds));
+	}
+
+	/**
+	 * Computes the personalized ranks of a teleport vector with the forward
+	 * push.
+	 * 
+	 * @param teleport
+	 *            The teleport probability of each node, by node index. It
+	 *            is normalized if it does not sum up to one.
+	 * @return The ranks, by node index
+	 */
+	public double[] getRanks(double[] teleport) {
+		int n = nodes.length;
+		if (teleport.length != n)
+			throw new IllegalArgumentException(
+					"The teleport vector must have one value per node");
+
+		// the teleport vector without its zeros, for the dangling nodes
+		double total = 0;
+		int seedCount = 0;
+		for (int i = 0; i < n; i++) {
+			if (teleport[i] < 0)
+				throw new IllegalArgumentException(
+						"Teleport probabilities must be nonnegative");
+			if (teleport[i] > 0) {
+				total += teleport[i];
+				seedCount++;
+			}
+		}
+		if (total == 0)
+			throw new IllegalArgumentException("The teleport vector is zero");
+		int[] seeds = new int[seedCount];
+		double[] seedWeights = new double[seedCount];
+		seedCount = 0;
+		for (int i = 0; i < n; i++) {
+			if (teleport[i] > 0) {
+				seeds[seedCount] = i;
+				seedWeights[seedCount++] = teleport[i] / total;
+			}
+		}
+
+		double[] ranks = new double[n];
+		double[] residual = new double[n];
+		int[] queue = new int[n];
+		boolean[] queued = new boolean[n];
+		int head = 0, size = 0;
+		for (int k = 0; k < seeds.length; k++) {
+			residual[seeds[k]] = seedWeights[k];
+			queue[size++] = seeds[k];
+			queued[seeds[k]] = true;
+		}
+
+		while (size > 0) {
+			int i = queue[head];
+			head = (head + 1) % n;
+			size--;
+			queued[i] = false;
+			double r = residual[i];
+			int degree = leaving.degree(i);
+			ranks[i] += (1 - dampingFactor) * r;
+			residual[i] = 0;
+
+			if (degree == 0) {
+				for (int k = 0; k < seeds.length; k++) {
+					int j = seeds[k];
+					residual[j] += dampingFactor * r * seedWeights[k];
+					if (!queued[j]
+							&& residual[j] > precision
+									* Math.max(1, leaving.degree(j))) {
+						queue[(head + size++) % n] = j;
+						queued[j] = true;
+					}
+				}
+			} else {
+				double part = dampingFactor * r / degree;
+				for (int p = leaving.offsets[i]; p < leaving.offsets[i + 1]; p++) {
+					int j = leaving.neighbors[p];
+					residual[j] += part;
+					if (!queued[j]
+							&& residual[j] > precision
+									* Math.max(1, leaving.degree(j))) {
+						queue[(head + size++) % n] = j;
+						queued[j] = true;
+					}
+				}
+			}
+		}
+
+		return ranks;
+	}
+
+	/**
+	 * The k nodes of highest personalized rank for a set of seeds, computed
+	 * with the forward push.
+	 * 
+	 * @param k
+	 *            The number of nodes
+	 * @param seeds
+	 *            The seed nodes
+	 * @return The nodes, by decreasing rank
+	 * @throws IllegalArgumentException
+	 *             If k is negative
+	 */
+	public List<Node> getTopNodes(int k, Node... seeds)
+			throws IllegalArgumentException {
+		checkCount(k);
+		return top(k, getRanks(seeds));
+	}
+
+	/**
+	 * The k nodes of highest personalized rank for a teleport vector,
+	 * computed with the forward push.
+	 * 
+	 * @param k
+	 *            The number of nodes
+	 * @param teleport
+	 *            The teleport probability of each node, by node index
+	 * @return The nodes, by decreasing rank
+	 * @throws IllegalArgumentException
+	 *             If k is negative
+	 */
+	public List<Node> getTopNodes(int k, double[] teleport)
+			throws IllegalArgumentException {
+		checkCount(k);
+		return top(k, getRanks(teleport));
+	}
+
+	/**
+	 * The k nodes of highest personalized rank for each source, computed with
+	 * Monte-Carlo random walks.
+	 * 
+	 * @param k
+	 *            The number of nodes per source
+	 * @param sources
+	 *            The sources, each one being the single seed of a query
+	 * @return The nodes of each source, by decreasing rank
+	 * @throws IllegalArgumentException
+	 *             If k is negative
+	 */
+	public List<List<Node>> getTopNodes(final int k, final List<Node> sources)
+			throws IllegalArgumentException {
+		checkCount(k);
+		final List<List<Node>> result = new ArrayList<List<Node>>(
+				sources.size());
+		for (int i = 0; i < sources.size(); i++)
+			result.add(null);
+
+		TaskPool pool = new TaskPool(parallelism);
+		try {
+			pool.forRange(0, sources.size(), 0, new TaskPool.RangeTask() {
+				public void run(int from, int to) {
+					for (int i = from; i < to; i++) {
+						Random random = new Random(randomSeed + i);
+						result.set(i, top(k, getWalkRanks(sources.get(i)
+								.getIndex(), random)));
+					}
+				}
+			});
+		} finally {
+			pool.shutdown();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Estimates the personalized ranks of a single source with random walks.
+	 * 
+	 * @param source
+	 *            The index of the source
+	 * @param random
+	 *            The random numbers
+	 * @return The frequency of the end nodes of the walks, by node index
+	 */
+	public double[] getWalkRanks(int source, Random random) {
+		double[] ranks = new double[nodes.length];
+		for (int w = 0; w < walkCount; w++) {
+			int i = source;
+			while (random.nextDouble() < dampingFactor) {
+				int degree = leaving.degree(i);
+				if (degree == 0)
+					i = source;
+				else
+					i = leaving.neighbors[leaving.offsets[i]
+							+ random.nextInt(degree)];
+			}
+			ranks[i] += 1.0 / walkCount;
+		}
+		return ranks;
+	}
+
+	private static void checkCount(int k) {
+		if (k < 0)
+			throw new IllegalArgumentException(
+					"The number of nodes must be nonnegative");
+	}
+
+	/**
+	 * The k nodes of highest rank, among the nodes of positive rank.
+	 */
+	protected List<Node> top(int k, final double[] ranks) {
+		if (k == 0)
+			return new ArrayList<Node>();
+		PriorityQueue<Integer> best = new PriorityQueue<Integer>(k + 1,
+				new Comparator<Integer>() {
+					public int compare(Integer a, Integer b) {
+						return Double.compare(ranks[a], ranks[b]);
+					}
+				});
+		for (int i = 0; i < ranks.length; i++) {
+			if (ranks[i] > 0
+					&& (best.size() < k || ranks[i] > ranks[best.peek()])) {
+				best.add(i);
+				if (best.size() > k)
+					best.poll();
+			}
+		}
+		List<Node> top = new ArrayList<Node>(best.size());
+		while (!best.isEmpty())
+			top.add(nodes[best.poll()]);
+		Collections.reverse(top);
+		return top;
+	}
+}
@@ -59,6 +59,35 @@ public class Community implements Comparable<Community> {
 		NEXT_COMMUNITY_ID++;
 	}
 
+	/**
+	 * New community instance with the given identifier.
+	 */
+	private Community(Integer id) {
+		this.id = id;
+	}
+
+	/**
+	 * New community instance without identifier yet. Used by the synchronous
+	 * rounds, where the communities originated in parallel are numbered in the
+	 * order of the nodes at the end of the round.
+	 * 
+	 * @return A community whose identifier is given by {@link #assignId()}
+	 */
+	static Community unassigned() {
+		return new Community((Integer) null);
+	}
+
+	/**
+	 * Give its unique identifier to a community created by
+	 * {@link #unassigned()}. Does nothing if the community already has one.
+	 */
+	void assignId() {
+		if (id == null) {
+			id = NEXT_COMMUNITY_ID;
+			NEXT_COMMUNITY_ID++;
+		}
+	}
+
 	/**
 	 * Return the community identifier.
 	 * 
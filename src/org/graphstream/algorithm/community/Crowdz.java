@@ -38,6 +38,7 @@ import java.util.Dictionary;
 import java.util.HashMap;
 
 import org.graphstream.algorithm.measure.MobilityMeasure;
+import org.graphstream.algorithm.measure.VehicleState;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
@@ -112,6 +113,7 @@ public class Crowdz extends EpidemicCommunityAlgorithm {
 	public void setParameters(String speedMarker, String angleMarker) {
 		this.speedMarker = speedMarker;
 		this.angleMarker = angleMarker;
+		resetVehicleState();
 	}
 
 	/**
@@ -130,6 +132,7 @@ public class Crowdz extends EpidemicCommunityAlgorithm {
 		this.speedMarker = (String) params.get("speedMarker");
 		this.angleMarker = (String) params.get("angleMarker");
 		this.weightMarker = (String) params.get("weightMarker");
+		resetVehicleState();
 	}
 	
 	@Override
@@ -202,6 +205,7 @@ public class Crowdz extends EpidemicCommunityAlgorithm {
 		 * Reset the scores for each communities
 		 */
 		communityScores = new HashMap<Object, Double>();
+		VehicleState state = vehicleState(speedMarker, angleMarker, null);
 
 		/*
 		 * Iterate over the nodes that this node "hears"
@@ -216,7 +220,7 @@ public class Crowdz extends EpidemicCommunityAlgorithm {
 
 				// Compute the neighbor node current score
 				Double score = (Double) v.getAttribute(marker + ".score");
-				Double mobilitySimilarity = MobilityMeasure.computeRelativeMobility(u, v, speedMarker, angleMarker);
+				double mobilitySimilarity = MobilityMeasure.computeRelativeMobility(state, u, v);
 				
 
 				// Update the score of the according community
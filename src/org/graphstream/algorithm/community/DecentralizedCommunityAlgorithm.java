@@ -34,6 +34,7 @@ package org.graphstream.algorithm.community;
 import java.util.*;
 
 import org.graphstream.algorithm.DynamicAlgorithm;
+import org.graphstream.algorithm.util.TaskPool;
 import org.graphstream.graph.*;
 import org.graphstream.stream.Sink;
 import org.graphstream.stream.SinkAdapter;
@@ -42,11 +43,59 @@ import org.graphstream.stream.SinkAdapter;
  * Base class for all distributed community detection algorithm. They all
  * implement the DynamicAlgorithm and Sink interfaces.
  * 
+ * <p>
+ * By default, an iteration updates the nodes one after the other in a random
+ * order, and each node sees the communities already updated by its neighbors
+ * during the same iteration. In the synchronous mode (see
+ * {@link #setSynchronous(boolean)}), an iteration is a round where each node
+ * hears the communities of its neighbors as they were at the end of the
+ * previous round. The communities of the previous round are copied in an
+ * array before the round, the new communities are written in a second array,
+ * and the attributes are updated at the end of the round. As the nodes of a
+ * round are independent, they are processed in chunks of consecutive node
+ * indices, in parallel when {@link #setParallelism(int)} is greater than one.
+ * Each chunk is computed by a shallow copy of the algorithm with its own
+ * random number generator, seeded from {@link #getRandom()}, so that the
+ * result of a round only depends on this generator and not on the number of
+ * threads. The new communities are numbered when the attributes are updated,
+ * in the order of the nodes.
+ * </p>
+ * 
+ * <p>
+ * The synchronous mode is only supported by the algorithms that access the
+ * communities through {@link #community(Node)},
+ * {@link #heardCommunity(Node)} and {@link #setCommunity(Node, Object)}
+ * instead of the node attributes, and that keep no other state shared
+ * between the nodes. These algorithms return true from
+ * {@link #supportsSynchronousRounds()}.
+ * </p>
+ * 
+ * <p>
+ * With the frontier scheduling (see {@link #setFrontierScheduling(boolean)}),
+ * an iteration only computes the nodes of the active set instead of all the
+ * nodes. A node becomes active when it is added, when one of its edges is
+ * added or removed, when an attribute of the node or of one of its edges is
+ * changed by someone else than the algorithm, and when a node it hears
+ * changes. The nodes that hear a node, through an edge leaving it, are also
+ * activated when the edges or the attributes of this node change, as their
+ * scores may depend on them. A node changes when, at the end of an iteration,
+ * one of its attributes starting with the community marker has a value
+ * different from the one it had before. The algorithm converges when the
+ * active set is empty. Its size at each iteration is given by
+ * {@link #getActiveSetSize()}, and {@link #requestFullSweep()} makes the next
+ * iteration compute all the nodes.
+ * </p>
+ * 
  * @author Guillaume-Jean Herbiet
  * 
  */
 public abstract class DecentralizedCommunityAlgorithm extends SinkAdapter implements
-		DynamicAlgorithm {
+		DynamicAlgorithm, Cloneable {
+	/**
+	 * Number of consecutive nodes computed by a task in synchronous mode.
+	 */
+	protected static final int ROUND_CHUNK = 256;
+
 	/**
 	 * The graph to apply the algorithm.
 	 */
@@ -92,6 +141,69 @@ public abstract class DecentralizedCommunityAlgorithm extends SinkAdapter implem
 	 */
 	protected Random rng;
 
+	/**
+	 * Nodes hear the communities of the previous round.
+	 */
+	protected boolean synchronous = false;
+
+	/**
+	 * Number of threads computing the nodes in synchronous mode.
+	 */
+	protected int parallelism = 1;
+
+	/**
+	 * Threads computing the nodes, created at the first round.
+	 */
+	protected TaskPool pool;
+
+	/**
+	 * Is a synchronous round in progress ?
+	 */
+	protected boolean inRound = false;
+
+	/**
+	 * Only compute the nodes of the active set.
+	 */
+	protected boolean frontierScheduling = false;
+
+	/**
+	 * Nodes to compute at the next iteration, in the order they were
+	 * activated.
+	 */
+	protected LinkedHashSet<Node> activeNodes = new LinkedHashSet<Node>();
+
+	/**
+	 * Compute all the nodes at the next iteration.
+	 */
+	protected boolean fullSweep = true;
+
+	/**
+	 * Number of nodes computed at the last iteration.
+	 */
+	protected int activeSetSize = 0;
+
+	/**
+	 * Is an iteration in progress, in frontier scheduling ?
+	 */
+	protected boolean computing = false;
+
+	/**
+	 * Value before the current iteration of the attributes written by the
+	 * algorithm, for each node.
+	 */
+	protected LinkedHashMap<Node, HashMap<String, Object>> writtenAttributes = new LinkedHashMap<Node, HashMap<String, Object>>();
+
+	/**
+	 * Communities of the nodes at the end of the previous round, by node
+	 * index.
+	 */
+	protected Object[] previousCommunities;
+
+	/**
+	 * Communities of the nodes for the current round, by node index.
+	 */
+	protected Object[] communities;
+
 	/**
 	 * Create a new distributed community detection algorithm, without attaching
 	 * it to a graph
@@ -174,6 +286,10 @@ public abstract class DecentralizedCommunityAlgorithm extends SinkAdapter implem
 
 //	@Override
 	public void terminate() {
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
 	}
 
 	/**
@@ -232,6 +348,116 @@ public abstract class DecentralizedCommunityAlgorithm extends SinkAdapter implem
 		return this.rng;
 	}
 
+	/**
+	 * Is the synchronous mode on ?
+	 * 
+	 * @return True if the nodes hear the communities of the previous round
+	 */
+	public boolean isSynchronous() {
+		return synchronous;
+	}
+
+	/**
+	 * Switches on or off the synchronous mode. In this mode, each iteration is
+	 * a round where the nodes hear the communities their neighbors had at the
+	 * end of the previous round.
+	 * 
+	 * @param synchronous
+	 *            Synchronous mode
+	 * @throws UnsupportedOperationException
+	 *             If the synchronous mode is switched on for an algorithm that
+	 *             does not support it
+	 */
+	public void setSynchronous(boolean synchronous)
+			throws UnsupportedOperationException {
+		if (synchronous && !supportsSynchronousRounds())
+			throw new UnsupportedOperationException(getClass().getSimpleName()
+					+ " does not support the synchronous mode");
+		this.synchronous = synchronous;
+	}
+
+	/**
+	 * Can this algorithm compute synchronous rounds ? This is only the case
+	 * when {@link #computeNode(Node)} accesses the communities and the scores
+	 * through the round accessors and writes no other node attribute.
+	 * 
+	 * @return False by default
+	 */
+	protected boolean supportsSynchronousRounds() {
+		return false;
+	}
+
+	/**
+	 * Returns the number of threads computing the nodes in synchronous mode.
+	 * 
+	 * @return The number of threads
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Sets the number of threads computing the nodes in synchronous mode. With
+	 * one thread, the default, the nodes are computed in the calling thread.
+	 * The asynchronous mode is always sequential.
+	 * 
+	 * @param threads
+	 *            The number of threads
+	 * @throws IllegalArgumentException
+	 *             If the number of threads is less than 1
+	 */
+	public void setParallelism(int threads) throws IllegalArgumentException {
+		if (threads < 1)
+			throw new IllegalArgumentException(
+					"The parallelism must be at least 1");
+		parallelism = threads;
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+	/**
+	 * Is the frontier scheduling on ?
+	 * 
+	 * @return True if only the nodes of the active set are computed
+	 */
+	public boolean isFrontierScheduling() {
+		return frontierScheduling;
+	}
+
+	/**
+	 * Switches on or off the frontier scheduling. In this mode, each iteration
+	 * only computes the nodes that were activated by a change of the graph or
+	 * of the community of the nodes they hear. The first iteration after this
+	 * mode is switched on computes all the nodes.
+	 * 
+	 * @param frontierScheduling
+	 *            Frontier scheduling
+	 */
+	public void setFrontierScheduling(boolean frontierScheduling) {
+		this.frontierScheduling = frontierScheduling;
+		activeNodes.clear();
+		fullSweep = true;
+	}
+
+	/**
+	 * Make the next iteration compute all the nodes, in frontier scheduling.
+	 */
+	public void requestFullSweep() {
+		fullSweep = true;
+	}
+
+	/**
+	 * Number of nodes computed by the last iteration. This is the number of
+	 * nodes of the graph, unless the frontier scheduling is on.
+	 * 
+	 * @return The size of the active set at the last iteration
+	 */
+	public int getActiveSetSize() {
+		return activeSetSize;
+	}
+
 	/**
 	 * Compute an iteration of the algorithm for all the nodes of the network.
 	 * 
@@ -240,12 +466,22 @@ public abstract class DecentralizedCommunityAlgorithm extends SinkAdapter implem
 	 */
 //	@Override
 	public void compute() {
+		if (frontierScheduling) {
+			computeFrontier();
+			return;
+		}
+
 		/*
 		 * This simply calls the computeNode method for all nodes in the graph.
 		 * Nodes are processed in a random order. Computation only occurs if the
 		 * graph has changed since last call
 		 */
-		if (graphChanged) {
+		if (graphChanged)
+			activeSetSize = graph.getNodeCount();
+		if (graphChanged && synchronous) {
+			computeRound();
+			graphChanged = staticMode;
+		} else if (graphChanged) {
 			ArrayList<Node> nodeSet = new ArrayList<Node>(graph.getNodeSet());
 			Collections.shuffle(nodeSet, rng);
 			for (Node node : nodeSet) {
@@ -263,6 +499,249 @@ public abstract class DecentralizedCommunityAlgorithm extends SinkAdapter implem
 	 */
 	public abstract void computeNode(Node node);
 
+	/**
+	 * Compute an iteration of the algorithm for the nodes of the active set,
+	 * or for all the nodes if a full sweep was requested.
+	 * 
+	 * @complexity A times the complexity of the computeNode() function, where
+	 *             A is the size of the active set.
+	 */
+	protected void computeFrontier() {
+		ArrayList<Node> nodes;
+		if (fullSweep)
+			nodes = new ArrayList<Node>(graph.getNodeSet());
+		else
+			nodes = new ArrayList<Node>(activeNodes);
+		activeNodes.clear();
+		fullSweep = false;
+		activeSetSize = nodes.size();
+
+		if (nodes.isEmpty())
+			return;
+
+		computing = true;
+		try {
+			if (synchronous) {
+				Collections.sort(nodes, new Comparator<Node>() {
+					public int compare(Node a, Node b) {
+						return a.getIndex() - b.getIndex();
+					}
+				});
+				computeRound(nodes);
+			} else {
+				Collections.shuffle(nodes, rng);
+				for (Node node : nodes) {
+					computeNode(node);
+					updateDisplayClass(node);
+				}
+			}
+		} finally {
+			computing = false;
+		}
+
+		/*
+		 * The nodes hearing a node whose attributes changed are computed at
+		 * the next iteration
+		 */
+		for (Map.Entry<Node, HashMap<String, Object>> entry : writtenAttributes
+				.entrySet()) {
+			Node node = entry.getKey();
+			for (Map.Entry<String, Object> old : entry.getValue().entrySet()) {
+				Object value = node.getAttribute(old.getKey());
+				if (value == null ? old.getValue() != null : !value
+						.equals(old.getValue())) {
+					activateListeners(node);
+					break;
+				}
+			}
+		}
+		writtenAttributes.clear();
+	}
+
+	/**
+	 * Compute a synchronous round of the algorithm for all the nodes.
+	 * 
+	 * @complexity N times the complexity of the computeNode() function, where N
+	 *             is the number of nodes in the network, divided by the number
+	 *             of threads.
+	 */
+	protected void computeRound() {
+		computeRound(new ArrayList<Node>(graph.getNodeSet()));
+	}
+
+	/**
+	 * Compute a synchronous round of the algorithm for the given nodes. The
+	 * nodes are computed by chunks of {@link #ROUND_CHUNK} consecutive nodes
+	 * of the list, then the attributes are updated in the order of the list.
+	 * 
+	 * @param nodes
+	 *            The nodes to compute, in the order of their indices
+	 */
+	protected void computeRound(final List<Node> nodes) {
+		int n = nodes.size();
+		beginRound(graph.getNodeCount());
+
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		for (int from = 0; from < n; from += ROUND_CHUNK) {
+			final DecentralizedCommunityAlgorithm worker = roundWorker(new Random(
+					rng.nextLong()));
+			final int start = from;
+			final int end = Math.min(n, from + ROUND_CHUNK);
+			tasks.add(new Runnable() {
+				public void run() {
+					for (int i = start; i < end; i++)
+						worker.computeNode(nodes.get(i));
+				}
+			});
+		}
+
+		try {
+			pool().execute(tasks);
+		} finally {
+			inRound = false;
+		}
+
+		for (Node node : nodes)
+			commitNode(node);
+	}
+
+	/**
+	 * Add a node to the active set, in frontier scheduling.
+	 * 
+	 * @param node
+	 *            The node
+	 */
+	protected void activate(Node node) {
+		if (frontierScheduling)
+			activeNodes.add(node);
+	}
+
+	/**
+	 * Add to the active set the nodes that hear a node, in frontier
+	 * scheduling.
+	 * 
+	 * @param node
+	 *            The node
+	 */
+	protected void activateListeners(Node node) {
+		if (frontierScheduling)
+			for (Edge e : node.getEachLeavingEdge())
+				activeNodes.add(e.getOpposite(node));
+	}
+
+	/**
+	 * Threads computing the nodes in synchronous mode, created when first
+	 * needed.
+	 * 
+	 * @return The pool of {@link #getParallelism()} threads
+	 */
+	protected TaskPool pool() {
+		if (pool == null)
+			pool = new TaskPool(parallelism);
+		return pool;
+	}
+
+	/**
+	 * Copy the communities of the nodes before a synchronous round. Both the
+	 * previous and the current communities of a node are its community
+	 * attribute until the node is computed.
+	 * 
+	 * @param n
+	 *            The number of nodes
+	 */
+	protected void beginRound(int n) {
+		if (communities == null || communities.length < n) {
+			communities = new Object[n];
+			previousCommunities = new Object[n];
+		}
+		for (int i = 0; i < n; i++) {
+			Object c = graph.getNode(i).getAttribute(marker);
+			communities[i] = c;
+			previousCommunities[i] = c;
+		}
+		inRound = true;
+	}
+
+	/**
+	 * Copy of this algorithm computing a chunk of nodes during a synchronous
+	 * round, using the given random number generator.
+	 * 
+	 * @param random
+	 *            The random number generator of the chunk
+	 * @return A shallow copy of this algorithm
+	 */
+	protected DecentralizedCommunityAlgorithm roundWorker(Random random) {
+		try {
+			DecentralizedCommunityAlgorithm worker = (DecentralizedCommunityAlgorithm) clone();
+			worker.rng = random;
+			return worker;
+		} catch (CloneNotSupportedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Store in the attributes of a node the community computed during the
+	 * synchronous round. A community originated during the round is given its
+	 * identifier here.
+	 * 
+	 * @param node
+	 *            The node
+	 */
+	protected void commitNode(Node node) {
+		Object c = communities[node.getIndex()];
+		if (c == null)
+			return;
+		if (c instanceof Community)
+			((Community) c).assignId();
+		if (!c.equals(previousCommunities[node.getIndex()]))
+			node.setAttribute(marker, c);
+		updateDisplayClass(node);
+	}
+
+	/**
+	 * Current community of a node. During a synchronous round, this is the
+	 * community computed for the node in this round, if any.
+	 * 
+	 * @param node
+	 *            The node
+	 * @return The community of the node, or null if it has none
+	 */
+	protected Object community(Node node) {
+		return inRound ? communities[node.getIndex()] : node
+				.getAttribute(marker);
+	}
+
+	/**
+	 * Community of a neighbor, as heard by the node being computed. During a
+	 * synchronous round, this is the community of the neighbor at the end of
+	 * the previous round.
+	 * 
+	 * @param node
+	 *            The neighbor
+	 * @return The community of the neighbor, or null if it has none
+	 */
+	protected Object heardCommunity(Node node) {
+		return inRound ? previousCommunities[node.getIndex()] : node
+				.getAttribute(marker);
+	}
+
+	/**
+	 * Change the community of a node. During a synchronous round, the
+	 * attribute is only updated at the end of the round.
+	 * 
+	 * @param node
+	 *            The node
+	 * @param community
+	 *            Its new community
+	 */
+	protected void setCommunity(Node node, Object community) {
+		if (inRound)
+			communities[node.getIndex()] = community;
+		else
+			node.setAttribute(marker, community);
+	}
+
 	/**
 	 * Generate a new original community and attribute it to a node
 	 * 
@@ -270,7 +749,10 @@ public abstract class DecentralizedCommunityAlgorithm extends SinkAdapter implem
 	 *            The node that will originate the new community
 	 */
 	protected void originateCommunity(Node node) {
-		node.addAttribute(marker, new Community());
+		if (inRound)
+			setCommunity(node, Community.unassigned());
+		else
+			node.addAttribute(marker, new Community());
 	}
 
 	/**
@@ -301,27 +783,48 @@ public abstract class DecentralizedCommunityAlgorithm extends SinkAdapter implem
 	@Override
 	public void nodeAdded(String graphId, long timeId, String nodeId) {
 		graphChanged = true;
+		if (frontierScheduling)
+			activate(graph.getNode(nodeId));
 	}
 
 	@Override
 	public void nodeRemoved(String graphId, long timeId, String nodeId) {
 		graphChanged = true;
+		if (frontierScheduling)
+			activeNodes.remove(graph.getNode(nodeId));
 	}
 
 	@Override
 	public void edgeAdded(String graphId, long timeId, String edgeId,
 			String fromNodeId, String toNodeId, boolean directed) {
 		graphChanged = true;
+		if (frontierScheduling)
+			edgeChanged(graph.getEdge(edgeId));
 	}
 	
 	@Override
 	public void edgeRemoved(String graphId, long timeId, String edgeId) {
 		graphChanged = true;
+		if (frontierScheduling)
+			edgeChanged(graph.getEdge(edgeId));
+	}
+
+	/**
+	 * Activate the extremities of an edge that is added or removed, and the
+	 * nodes that hear them.
+	 */
+	protected void edgeChanged(Edge edge) {
+		activate(edge.getNode0());
+		activateListeners(edge.getNode0());
+		activate(edge.getNode1());
+		activateListeners(edge.getNode1());
 	}
 
 	@Override
 	public void graphCleared(String graphId, long timeId) {
 		graphChanged = true;
+		activeNodes.clear();
+		fullSweep = true;
 	}
 
 	@Override
@@ -352,26 +855,77 @@ public abstract class DecentralizedCommunityAlgorithm extends SinkAdapter implem
 	@Override
 	public void nodeAttributeChanged(String graphId, long timeId,
 			String nodeId, String attribute, Object oldValue, Object newValue) {
+		if (frontierScheduling)
+			nodeAttributeChanged(graph.getNode(nodeId), attribute, oldValue);
 	}
 
 	@Override
 	public void nodeAttributeRemoved(String graphId, long timeId,
 			String nodeId, String attribute) {
+		if (frontierScheduling) {
+			Node node = graph.getNode(nodeId);
+			nodeAttributeChanged(node, attribute, node.getAttribute(attribute));
+		}
+	}
+
+	/**
+	 * Activate the nodes that hear a node whose attribute changed, and the
+	 * node itself if the attribute was not written by this algorithm. The
+	 * display attributes are ignored. The attributes written by the algorithm
+	 * during an iteration are only compared to their previous value at the
+	 * end of the iteration.
+	 */
+	protected void nodeAttributeChanged(Node node, String attribute,
+			Object oldValue) {
+		if (attribute.startsWith("ui."))
+			return;
+
+		if (attribute.startsWith(marker) && computing) {
+			HashMap<String, Object> old = writtenAttributes.get(node);
+			if (old == null) {
+				old = new HashMap<String, Object>();
+				writtenAttributes.put(node, old);
+			}
+			if (!old.containsKey(attribute))
+				old.put(attribute, oldValue);
+			return;
+		}
+
+		if (!attribute.startsWith(marker))
+			activate(node);
+		activateListeners(node);
 	}
 
 	@Override
 	public void edgeAttributeAdded(String graphId, long timeId, String edgeId,
 			String attribute, Object value) {
+		if (frontierScheduling)
+			edgeAttributeChanged(graph.getEdge(edgeId), attribute);
 	}
 
 	@Override
 	public void edgeAttributeChanged(String graphId, long timeId,
 			String edgeId, String attribute, Object oldValue, Object newValue) {
+		if (frontierScheduling)
+			edgeAttributeChanged(graph.getEdge(edgeId), attribute);
 	}
 	
 	@Override
 	public void edgeAttributeRemoved(String graphId, long timeId,
 			String edgeId, String attribute) {
+		if (frontierScheduling)
+			edgeAttributeChanged(graph.getEdge(edgeId), attribute);
+	}
+
+	/**
+	 * Activate the extremities of an edge whose attribute changed. The display
+	 * attributes are ignored.
+	 */
+	protected void edgeAttributeChanged(Edge edge, String attribute) {
+		if (!attribute.startsWith("ui.")) {
+			activate(edge.getNode0());
+			activate(edge.getNode1());
+		}
 	}
 
 }
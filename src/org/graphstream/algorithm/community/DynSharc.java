@@ -95,7 +95,7 @@ public class DynSharc extends NewSawSharc {
 				// Enable break mode
 				u.setAttribute(marker + ".break", breakPeriod - 1);
 				u.setAttribute(marker + ".broken_community",
-						u.getAttribute(marker));
+						u.<Object> getAttribute(marker));
 			}
 		}
 	}
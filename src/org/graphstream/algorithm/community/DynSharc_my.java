@@ -173,7 +173,7 @@ public class DynSharc_my extends NewSawSharc_my {
 				// Enable break mode
 				u.setAttribute(marker + ".break", breakPeriod - 1);
 				u.setAttribute(marker + ".broken_community",
-						u.getAttribute(marker));
+						u.<Object> getAttribute(marker));
 			}
 		}
 
@@ -178,7 +178,7 @@ public class DynSharc_oryg extends NewSawSharc_oryg {
 				// Enable break mode
 				u.setAttribute(marker + ".break", breakPeriod - 1);
 				u.setAttribute(marker + ".broken_community",
-						u.getAttribute(marker));
+						u.<Object> getAttribute(marker));
 			}
 		}
 
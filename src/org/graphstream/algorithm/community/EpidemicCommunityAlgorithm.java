@@ -32,9 +32,10 @@
 package org.graphstream.algorithm.community;
 
 import java.util.HashMap;
+import java.util.Random;
 import java.util.TreeMap;
 
-import org.graphstream.graph.Edge;
+import org.graphstream.algorithm.measure.VehicleState;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
 
@@ -54,10 +55,42 @@ import org.graphstream.graph.Node;
 public class EpidemicCommunityAlgorithm extends DecentralizedCommunityAlgorithm {
 
 	/**
-	 * Heard communities and their associated scores
+	 * Heard communities and their associated scores, for the algorithms that
+	 * fill this map in their own communityScores() method. The algorithms of
+	 * this package use {@link #labelScores} and set this field to null.
 	 */
 	protected HashMap<Object, Double> communityScores;
 
+	/**
+	 * Heard communities and their associated scores, by label. This table is
+	 * reused for all the nodes.
+	 */
+	protected LabelScores labelScores = new LabelScores();
+
+	/**
+	 * Labels of the communities that are not {@link Community} objects.
+	 */
+	protected HashMap<Object, Integer> otherLabels = new HashMap<Object, Integer>();
+
+	/**
+	 * Scores of the communities of the nodes at the end of the previous
+	 * synchronous round, by node index. NaN when the node has no score.
+	 */
+	protected double[] previousScores;
+
+	/**
+	 * Scores of the communities of the nodes for the current synchronous
+	 * round, by node index.
+	 */
+	protected double[] scores;
+
+	/**
+	 * Mobility of the nodes, for the mobility-aware subclasses. Created by
+	 * the first call to
+	 * {@link #vehicleState(String, String, String)}.
+	 */
+	protected VehicleState vehicles;
+
 	public EpidemicCommunityAlgorithm() {
 		super();
 	}
@@ -70,6 +103,57 @@ public class EpidemicCommunityAlgorithm extends DecentralizedCommunityAlgorithm
 		super(graph, marker);
 	}
 	
+	@Override
+	public void terminate() {
+		super.terminate();
+		resetVehicleState();
+	}
+
+	/**
+	 * Vehicle state of the graph, read from the given attributes and attached
+	 * to the graph at the first call. The attributes of the later calls are
+	 * ignored until {@link #resetVehicleState()}.
+	 * 
+	 * @param speedMarker
+	 *            Attribute of the instantaneous speed, or null
+	 * @param angleMarker
+	 *            Attribute of the angle, or null
+	 * @param timeMeanSpeedMarker
+	 *            Attribute of the time mean speed, or null
+	 * @return The vehicle state
+	 */
+	protected VehicleState vehicleState(String speedMarker,
+			String angleMarker, String timeMeanSpeedMarker) {
+		if (vehicles == null) {
+			vehicles = new VehicleState(speedMarker, angleMarker,
+					timeMeanSpeedMarker, null);
+			vehicles.init(graph);
+		}
+		return vehicles;
+	}
+
+	/**
+	 * Detach the vehicle state from the graph, for instance when the mobility
+	 * attributes change.
+	 */
+	protected void resetVehicleState() {
+		if (vehicles != null) {
+			vehicles.terminate();
+			vehicles = null;
+		}
+	}
+
+	/**
+	 * Only true for the exact class: a subclass overriding
+	 * {@link #computeNode(Node)} or {@link #communityScores(Node)} has to
+	 * override this method again once it only goes through the round
+	 * accessors.
+	 */
+	@Override
+	protected boolean supportsSynchronousRounds() {
+		return getClass() == EpidemicCommunityAlgorithm.class;
+	}
+
 	/**
 	 * Perform computation of one iteration of the algorithm on a given node
 	 * using the epidemic label propagation algorithm.
@@ -91,14 +175,31 @@ public class EpidemicCommunityAlgorithm extends DecentralizedCommunityAlgorithm
 		Object maxCommunity = null;
 		Double maxScore = Double.NEGATIVE_INFINITY;
 
-		TreeMap<Object, Double> scores = new TreeMap<Object, Double>(
-				communityScores);
-		for (Object c : scores.keySet()) {
-			Double s = communityScores.get(c);
+		if (communityScores != null) {
+			TreeMap<Object, Double> sorted = new TreeMap<Object, Double>(
+					communityScores);
+			for (Object c : sorted.keySet()) {
+				Double s = communityScores.get(c);
 
-			if (s > maxScore || (s == maxScore && rng.nextDouble() >= 0.5)) {
-				maxCommunity = c;
-				maxScore = s;
+				if (s > maxScore || (s == maxScore && rng.nextDouble() >= 0.5)) {
+					maxCommunity = c;
+					maxScore = s;
+				}
+			}
+		} else {
+			/*
+			 * Ties go to the lowest community, as in the loop above where the
+			 * boxed scores are compared by reference.
+			 */
+			int max = -1;
+			for (int i = 0; i < labelScores.size(); i++)
+				if (max < 0 || labelScores.score(i) > labelScores.score(max)
+						|| (labelScores.score(i) == labelScores.score(max) && before(
+								i, max)))
+					max = i;
+			if (max >= 0) {
+				maxCommunity = labelScores.community(max);
+				maxScore = labelScores.score(max);
 			}
 		}
 		
@@ -108,8 +209,8 @@ public class EpidemicCommunityAlgorithm extends DecentralizedCommunityAlgorithm
 		if (maxCommunity == null)
 			originateCommunity(node);
 		else {
-			node.setAttribute(marker, maxCommunity);
-			node.setAttribute(marker + ".score", maxScore);
+			setCommunity(node, maxCommunity);
+			setScore(node, maxScore);
 		}
 	}
 
@@ -126,29 +227,153 @@ public class EpidemicCommunityAlgorithm extends DecentralizedCommunityAlgorithm
 		/*
 		 * Reset the scores for each communities
 		 */
-		communityScores = new HashMap<Object, Double>();
+		communityScores = null;
+		labelScores.clear();
 
 		/*
 		 * Iterate over the nodes that this node "hears"
 		 */
-		for (Edge e : u.getEnteringEdgeSet()) {
-			Node v = e.getOpposite(u);
+		for (int i = 0; i < u.getInDegree(); i++) {
+			Node v = u.getEnteringEdge(i).getOpposite(u);
 
 			/*
 			 * Update the count for this community
 			 */
-			if (v.hasAttribute(marker))
-				if (communityScores.get(v.getAttribute(marker)) == null)
-					communityScores.put(v.getAttribute(marker), 1.0);
-				else
-					communityScores.put(v.getAttribute(marker),
-							communityScores.get(v.getAttribute(marker)) + 1.0);
+			Object c = heardCommunity(v);
+			if (c != null)
+				labelScores.add(label(c), c, 1.0);
+		}
+	}
+
+	/**
+	 * Integer label of a community. The label of a {@link Community} is its
+	 * identifier. The other objects used as communities, for instance strings
+	 * read from a file, are given negative labels.
+	 * 
+	 * @param community
+	 *            The community
+	 * @return Its label
+	 */
+	protected int label(Object community) {
+		if (community instanceof Community) {
+			Integer id = ((Community) community).id();
+			if (id != null)
+				return id;
+		}
+
+		synchronized (otherLabels) {
+			Integer label = otherLabels.get(community);
+			if (label == null) {
+				label = -1 - otherLabels.size();
+				otherLabels.put(community, label);
+			}
+			return label;
 		}
 	}
 
+	/**
+	 * Is the community of the i-th entry of {@link #labelScores} before the
+	 * community of the j-th entry, in the natural order of the communities ?
+	 */
+	@SuppressWarnings("unchecked")
+	protected boolean before(int i, int j) {
+		int li = labelScores.label(i);
+		int lj = labelScores.label(j);
+		if (li >= 0 && lj >= 0)
+			return li < lj;
+		return ((Comparable<Object>) labelScores.community(i))
+				.compareTo(labelScores.community(j)) < 0;
+	}
+
 	@Override
 	protected void originateCommunity(Node node) {
 		super.originateCommunity(node);
-		node.setAttribute(marker + ".score", 0.0);
+		setScore(node, 0.0);
+	}
+
+	@Override
+	protected DecentralizedCommunityAlgorithm roundWorker(Random random) {
+		EpidemicCommunityAlgorithm worker = (EpidemicCommunityAlgorithm) super
+				.roundWorker(random);
+		worker.labelScores = new LabelScores();
+		return worker;
+	}
+
+	@Override
+	protected void setCommunity(Node node, Object community) {
+		if (inRound || !community.equals(node.getAttribute(marker)))
+			super.setCommunity(node, community);
+	}
+
+	@Override
+	protected void beginRound(int n) {
+		if (scores == null || scores.length < n) {
+			scores = new double[n];
+			previousScores = new double[n];
+		}
+		for (int i = 0; i < n; i++) {
+			Object s = graph.getNode(i).getAttribute(marker + ".score");
+			scores[i] = s == null ? Double.NaN : ((Number) s).doubleValue();
+			previousScores[i] = scores[i];
+		}
+		super.beginRound(n);
+	}
+
+	@Override
+	protected void commitNode(Node node) {
+		super.commitNode(node);
+		double s = scores[node.getIndex()];
+		if (!Double.isNaN(s) && s != previousScores[node.getIndex()])
+			node.setAttribute(marker + ".score", s);
+	}
+
+	/**
+	 * Current score of the community of a node. During a synchronous round,
+	 * this is the score computed for the node in this round, if any.
+	 * 
+	 * @param node
+	 *            The node
+	 * @return The score, or null if the node has none
+	 */
+	protected Double score(Node node) {
+		if (!inRound)
+			return (Double) node.getAttribute(marker + ".score");
+		double s = scores[node.getIndex()];
+		return Double.isNaN(s) ? null : s;
+	}
+
+	/**
+	 * Score of the community of a neighbor, as heard by the node being
+	 * computed. During a synchronous round, this is the score of the neighbor
+	 * at the end of the previous round.
+	 * 
+	 * @param node
+	 *            The neighbor
+	 * @return The score, or null if the neighbor has none
+	 */
+	protected Double heardScore(Node node) {
+		if (!inRound)
+			return (Double) node.getAttribute(marker + ".score");
+		double s = previousScores[node.getIndex()];
+		return Double.isNaN(s) ? null : s;
+	}
+
+	/**
+	 * Change the score of the community of a node. During a synchronous round,
+	 * the attribute is only updated at the end of the round.
+	 * 
+	 * @param node
+	 *            The node
+	 * @param score
+	 *            The new score
+	 */
+	protected void setScore(Node node, double score) {
+		if (inRound)
+			scores[node.getIndex()] = score;
+		else {
+			Object old = node.getAttribute(marker + ".score");
+			if (!(old instanceof Double) || (Double) old != score)
+				node.setAttribute(marker + ".score", score);
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.community;
+
+import java.util.Arrays;
+
+/**
+ * Scores of the communities heard by a node, used by the label propagation
+ * algorithms.
+ * 
+ * <p>
+ * Each community is identified by an integer label (see
+ * {@link EpidemicCommunityAlgorithm#label(Object)}). The scores are
+ * accumulated in an open addressing hash table from labels to doubles, that
+ * also keeps the community object of each label and the order in which the
+ * labels were added. The table is cleared in time proportional to the number
+ * of labels it contains, so the same instance is reused for all the nodes and
+ * nothing is allocated once it is large enough.
+ * </p>
+ * 
+ * @complexity Adding a score is O(1) on average.
+ */
+public class LabelScores {
+	/**
+	 * Key of the empty slots. No label has this value.
+	 */
+	protected static final int EMPTY = Integer.MIN_VALUE;
+
+	/**
+	 * Labels of the slots.
+	 */
+	protected int[] keys;
+
+	/**
+	 * Scores of the slots.
+	 */
+	protected double[] values;
+
+	/**
+	 * Communities of the slots.
+	 */
+	protected Object[] communities;
+
+	/**
+	 * Used slots, in the order the labels were added.
+	 */
+	protected int[] order;
+
+	/**
+	 * Number of labels.
+	 */
+	protected int size;
+
+	/**
+	 * New empty table.
+	 */
+	public LabelScores() {
+		allocate(16);
+	}
+
+	protected void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new double[capacity];
+		communities = new Object[capacity];
+		order = new int[capacity / 2];
+		size = 0;
+		Arrays.fill(keys, EMPTY);
+	}
+
+	/**
+	 * Remove all the labels.
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			int slot = order[i];
+			keys[slot] = EMPTY;
+			communities[slot] = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Number of labels in the table.
+	 * 
+	 * @return The number of labels
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Add a value to the score of a label. The label is inserted with this
+	 * value if it is not in the table.
+	 * 
+	 * @param label
+	 *            The label
+	 * @param community
+	 *            The community of this label
+	 * @param value
+	 *            The value added to the score
+	 */
+	public void add(int label, Object community, double value) {
+		int slot = slot(label);
+
+		if (keys[slot] == label) {
+			values[slot] += value;
+			return;
+		}
+
+		if (2 * (size + 1) > keys.length) {
+			grow();
+			slot = slot(label);
+		}
+
+		keys[slot] = label;
+		values[slot] = value;
+		communities[slot] = community;
+		order[size++] = slot;
+	}
+
+	/**
+	 * Score of a label.
+	 * 
+	 * @param label
+	 *            The label
+	 * @return Its score, or NaN if the label is not in the table
+	 */
+	public double get(int label) {
+		int slot = slot(label);
+		return keys[slot] == label ? values[slot] : Double.NaN;
+	}
+
+	/**
+	 * Label of the i-th entry, in the order of insertion.
+	 * 
+	 * @param i
+	 *            Index of the entry, between 0 and size() - 1
+	 * @return The label
+	 */
+	public int label(int i) {
+		return keys[order[i]];
+	}
+
+	/**
+	 * Community of the i-th entry, in the order of insertion.
+	 * 
+	 * @param i
+	 *            Index of the entry, between 0 and size() - 1
+	 * @return The community
+	 */
+	public Object community(int i) {
+		return communities[order[i]];
+	}
+
+	/**
+	 * Score of the i-th entry, in the order of insertion.
+	 * 
+	 * @param i
+	 *            Index of the entry, between 0 and size() - 1
+	 * @return The score
+	 */
+	public double score(int i) {
+		return values[order[i]];
+	}
+
+	/**
+	 * Slot of a label, or the empty slot where it would be inserted.
+	 */
+	protected int slot(int label) {
+		int mask = keys.length - 1;
+		int h = label * 0x9E3779B9;
+		int slot = (h ^ (h >>> 16)) & mask;
+		while (keys[slot] != EMPTY && keys[slot] != label)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	protected void grow() {
+		int[] oldKeys = keys;
+		double[] oldValues = values;
+		Object[] oldCommunities = communities;
+		int[] oldOrder = order;
+		int oldSize = size;
+
+		allocate(2 * keys.length);
+		for (int i = 0; i < oldSize; i++) {
+			int old = oldOrder[i];
+			int slot = slot(oldKeys[old]);
+			keys[slot] = oldKeys[old];
+			values[slot] = oldValues[old];
+			communities[slot] = oldCommunities[old];
+			order[size++] = slot;
+		}
+	}
+}
@@ -32,7 +32,6 @@
 package org.graphstream.algorithm.community;
 
 import java.util.Dictionary;
-import java.util.HashMap;
 
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
@@ -193,13 +192,22 @@ public class Leung extends EpidemicCommunityAlgorithm {
 		this.weightMarker = (String) params.get("weightMarker");
 	}
 	
+	/**
+	 * A subclass has to override this method again once it only goes
+	 * through the round accessors.
+	 */
+	@Override
+	protected boolean supportsSynchronousRounds() {
+		return getClass() == Leung.class;
+	}
+
 	@Override
 	public void computeNode(Node node) {
 		/*
 		 * Recall and update the node current community and previous score
 		 */
-		Object previousCommunity = node.getAttribute(marker);
-		Double previousScore = (Double) node.getAttribute(marker + ".score");
+		Object previousCommunity = community(node);
+		Double previousScore = score(node);
 		
 		/*
 		 * Added by Agata, to track stability (keep the previous community
@@ -216,8 +224,8 @@ public class Leung extends EpidemicCommunityAlgorithm {
 
 		// Handle first iteration // originate new community
 		if (previousCommunity == null) {
-			previousCommunity = node.getAttribute(marker);
-			previousScore = (Double) node.getAttribute(marker + ".score");
+			previousCommunity = community(node);
+			previousScore = score(node);
 		} 
 //		else {
 //			previousDegree = (Integer) node.getAttribute("degree");
@@ -230,9 +238,9 @@ public class Leung extends EpidemicCommunityAlgorithm {
 		 * community at this iteration (or we are at the first simulation step):
 		 * keep the maximum label score
 		 */
-		if ((node.getAttribute(marker).equals(previousCommunity))
+		if ((community(node).equals(previousCommunity))
 				&& (previousScore.equals(1.0)))
-			node.setAttribute(marker + ".score", 1.0);
+			setScore(node, 1.0);
 
 		/*
 		 * The node is the originator of the community and has no neighbours
@@ -252,12 +260,10 @@ public class Leung extends EpidemicCommunityAlgorithm {
 			Double maxLabelScore = Double.NEGATIVE_INFINITY;
 			for (Edge e : node.getEnteringEdgeSet()) {
 				Node v = e.getOpposite(node);
-				if (v.hasAttribute(marker)
-						&& v.getAttribute(marker).equals(
-								node.getAttribute(marker))) {
-					if ((Double) v.getAttribute(marker + ".score") > maxLabelScore)
-						maxLabelScore = (Double) v.getAttribute(marker
-								+ ".score");
+				Object c = heardCommunity(v);
+				if (c != null && c.equals(community(node))) {
+					if (heardScore(v) > maxLabelScore)
+						maxLabelScore = heardScore(v);
 				}
 			}
 			/*
@@ -266,7 +272,7 @@ public class Leung extends EpidemicCommunityAlgorithm {
 			 *  The case when the node continues traveling without neighbors was handled earlier
 			 */
 			if (!maxLabelScore.equals(Double.NEGATIVE_INFINITY)) { 
-				node.setAttribute(marker + ".score", maxLabelScore - delta); // score indicates the distance from the originator, 
+				setScore(node, maxLabelScore - delta); // score indicates the distance from the originator, 
 				// if the originator of the community is the neighbour of the node, then the maxLabelScore is 1, so the node gets 1-delta
 			}
 
@@ -287,28 +293,30 @@ public class Leung extends EpidemicCommunityAlgorithm {
 		/*
 		 * Reset the scores for each communities
 		 */
-		communityScores = new HashMap<Object, Double>();
+		communityScores = null;
+		labelScores.clear();
 
 		/*
 		 * Iterate over the nodes that this node "hears"
 		 */
-		for (Edge e : u.getEnteringEdgeSet()) {
+		for (int i = 0; i < u.getInDegree(); i++) {
+			Edge e = u.getEnteringEdge(i);
 			Node v = e.getOpposite(u);
 
 			/*
 			 * Update the count for this community
 			 */
-			if (v.hasAttribute(marker)) {
+			Object c = heardCommunity(v);
+			if (c != null) {
 
 				// Compute the neighbor node current score
-				Double score = (Double) v.getAttribute(marker + ".score")
-						* Math.pow(v.getInDegree(), m);
+				double score = heardScore(v) * Math.pow(v.getInDegree(), m);
 
 				/*
 				 * The rest of the formula depends on the weighted status of the
 				 * network
 				 */
-				Double weight;
+				double weight;
 				if (e.hasAttribute(weightMarker))
 					if (e.isDirected()) {
 						Edge e2 = v.getEdgeToward(u.getId());
@@ -323,12 +331,7 @@ public class Leung extends EpidemicCommunityAlgorithm {
 					weight = 1.0;
 
 				// Update the score of the according community
-				if (communityScores.get(v.getAttribute(marker)) == null)
-					communityScores.put(v.getAttribute(marker), score * weight);
-				else
-					communityScores.put(v.getAttribute(marker),
-							communityScores.get(v.getAttribute(marker))
-									+ (score * weight));
+				labelScores.add(label(c), c, score * weight);
 			}
 		}
 	}
@@ -338,6 +341,6 @@ public class Leung extends EpidemicCommunityAlgorithm {
 		super.originateCommunity(node);
 
 		// Correct the original community score for the Leung algorithm
-		node.setAttribute(marker + ".score", 1.0);
+		setScore(node, 1.0);
 	}
 }
@@ -42,6 +42,7 @@ import java.util.Dictionary;
 import java.util.HashMap;
 
 import org.graphstream.algorithm.measure.MobilityMeasure;
+import org.graphstream.algorithm.measure.VehicleState;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
@@ -270,6 +271,7 @@ public class MobileLeung extends EpidemicCommunityAlgorithm {
 		this.mobilityMarkers = (HashMap<MobileMarker, String>) params.get("mobilityMarkers");
 		this.mobilityMetric = (String) params.get("mobilityMetric");
 		this.outLog = (BufferedWriter) params.get("outLog");
+		resetVehicleState();
 	}
 	
 	@Override
@@ -348,10 +350,10 @@ public class MobileLeung extends EpidemicCommunityAlgorithm {
 		/*
 		 * Iterate over the nodes that this node "hears"
 		 */
-		Double mobilitySimilarity = 1.0;
-		
-		String speedMarker = this.mobilityMarkers.get(MobileMarker.SPEED);
-		String angleMarker = this.mobilityMarkers.get(MobileMarker.ANGLE);
+		double mobilitySimilarity = 1.0;
+		VehicleState state = vehicleState(
+				mobilityMarkers.get(MobileMarker.SPEED),
+				mobilityMarkers.get(MobileMarker.ANGLE), null);
 		
 		for (Edge e : u.getEnteringEdgeSet()) {
 			Node v = e.getOpposite(u);
@@ -363,7 +365,7 @@ public class MobileLeung extends EpidemicCommunityAlgorithm {
 				Double nodeScore = (Double) v.getAttribute(marker + ".score");
 				
 				Double topologySimilarity = Math.pow(v.getInDegree(), m);
-				mobilitySimilarity = MobilityMeasure.computeRelativeMobility(u, v, speedMarker, angleMarker);
+				mobilitySimilarity = MobilityMeasure.computeRelativeMobility(state, u, v);
 				if (mobilitySimilarity < 0.0) {
 					mobilitySimilarity = 0.0;
 				}
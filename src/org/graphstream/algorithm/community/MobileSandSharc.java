@@ -7,6 +7,7 @@ import java.text.DecimalFormat;
 import java.util.Dictionary;
 import java.util.HashMap;
 import org.graphstream.algorithm.measure.MobilityMeasure;
+import org.graphstream.algorithm.measure.VehicleState;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
@@ -73,6 +74,13 @@ public class MobileSandSharc extends DynSharc_my {
 
 	protected String speedType = "timemean"; // or 'instant' , 'spacetimemean'
 	protected int emergencePeriod;
+
+	/**
+	 * Speed used by the mobility similarity, given by the speed type.
+	 */
+	protected static final int NO_SPEED = 0, INSTANT_SPEED = 1,
+			TIME_MEAN_SPEED = 2;
+	protected int speedMode = TIME_MEAN_SPEED;
 	
 	/**
 	 * @param graph
@@ -100,7 +108,15 @@ public class MobileSandSharc extends DynSharc_my {
 		if (params.get("speedType") != null) {
 			this.speedType = (String) params.get("speedType");
 		}
+		if (speedType.equals("instant"))
+			speedMode = INSTANT_SPEED;
+		else if (speedType.equals("timemean")
+				|| speedType.equals("spacetimemean"))
+			speedMode = TIME_MEAN_SPEED;
+		else
+			speedMode = NO_SPEED;
 		emergencePeriod = 2;
+		resetVehicleState();
 	}
 	
 	protected void updateOriginator(Node u, Object previousCommunity) {
@@ -338,29 +354,21 @@ public class MobileSandSharc extends DynSharc_my {
 
 	
 	protected Double mobilitySimilarity(Node a, Node b) {
-		Double speedA = 0.0;
-		Double speedB = 0.0;
+		VehicleState state = vehicleState(speedMarker, angleMarker,
+				timeMeanSpeedMarker);
+		switch (speedMode) {
 		// get instantaneouos speed
-		if (this.speedType.equals("instant")) {
-			speedA = MobilityMeasure.getMarkerValue(a, speedMarker);
-			speedB = MobilityMeasure.getMarkerValue(b, speedMarker);	
-		}
-		// get mean speed
-		else if (speedType.equals("timemean") || speedType.equals("spacetimemean")) {
-			if (a.hasAttribute(timeMeanSpeedMarker)) {
-				speedA = MobilityMeasure.getMarkerValue(a, timeMeanSpeedMarker);
-//				System.out.println("use timeMeanSpeedMarker "  + a.getId() + " " +  timeMeanSpeedMarker + " "  + speedA);	
-			}
-			if (b.hasAttribute(timeMeanSpeedMarker)) {
-				speedB = MobilityMeasure.getMarkerValue(b, timeMeanSpeedMarker);	
-			}
+		case INSTANT_SPEED:
+			return MobilityMeasure.calculateDegreeOfCongestionDependence(
+					state, a, b, false);
+		// get mean speed, 0 when unknown
+		case TIME_MEAN_SPEED:
+			return MobilityMeasure.calculateDegreeOfCongestionDependence(
+					state, a, b, true);
+		default:
+			return MobilityMeasure.calculateDegreeOfCongestionDependence(0.0,
+					0.0, state.angle(a), state.angle(b));
 		}
-		// get angle
-		Double angleA = MobilityMeasure.getMarkerValue(a, angleMarker);
-		Double angleB = MobilityMeasure.getMarkerValue(b, angleMarker);
-		Double mobSim = MobilityMeasure.calculateDegreeOfCongestionDependence(speedA, speedB, angleA, angleB);
-//		System.out.println("mob sim " + a.getId() + "-" + b.getId() + "=" + mobSim);	
-		return mobSim;
 	}
 	
 	protected void setStabilityWeight(Node a, Node b) {
@@ -34,7 +34,12 @@ import org.graphstream.graph.*;
  * 
  */
 public class Sharc extends EpidemicCommunityAlgorithm {
-	protected HashMap<Object, Double> communityCounts;
+
+	/**
+	 * Neighborhood overlap of the nodes, kept up to date from the graph
+	 * events.
+	 */
+	protected SimilarityCache neighborhoods;
 
 	/**
 	 * New instance of the SHARC community detection algorithm, not attached to
@@ -69,6 +74,53 @@ public class Sharc extends EpidemicCommunityAlgorithm {
 		super(graph);
 	}
 
+	@Override
+	public void init(Graph graph) {
+		super.init(graph);
+		neighborhoods = new SimilarityCache(graph);
+	}
+
+	@Override
+	protected void beginRound(int n) {
+		super.beginRound(n);
+		neighborhoods.update(pool());
+	}
+
+	@Override
+	public void nodeRemoved(String graphId, long timeId, String nodeId) {
+		super.nodeRemoved(graphId, timeId, nodeId);
+		neighborhoods.nodeRemoved(graph.getNode(nodeId));
+	}
+
+	@Override
+	public void edgeAdded(String graphId, long timeId, String edgeId,
+			String fromNodeId, String toNodeId, boolean directed) {
+		super.edgeAdded(graphId, timeId, edgeId, fromNodeId, toNodeId,
+				directed);
+		neighborhoods.edgeAdded(graph.getEdge(edgeId));
+	}
+
+	@Override
+	public void edgeRemoved(String graphId, long timeId, String edgeId) {
+		super.edgeRemoved(graphId, timeId, edgeId);
+		neighborhoods.edgeRemoved(graph.getEdge(edgeId));
+	}
+
+	@Override
+	public void graphCleared(String graphId, long timeId) {
+		super.graphCleared(graphId, timeId);
+		neighborhoods.clear();
+	}
+
+	/**
+	 * The SAw-SHARC variants keep their freshness, originator and break
+	 * states in the node attributes, so only this class is supported.
+	 */
+	@Override
+	protected boolean supportsSynchronousRounds() {
+		return getClass() == Sharc.class;
+	}
+
 	@Override
 	public void computeNode(Node u) {
 		/*
@@ -100,37 +152,23 @@ public class Sharc extends EpidemicCommunityAlgorithm {
 	 */
 	@Override
 	protected void communityScores(Node u) {
-		/*
-		 * Compute the "simple" count of received messages for each community.
-		 * This will be used as a fallback metric if the maximum "Sharc" score
-		 * is 0, meaning there is no preferred community.
-		 */
-		super.communityScores(u);
-		communityCounts = communityScores;
-
 		/*
 		 * Reset the scores for each communities
 		 */
-		communityScores = new HashMap<Object, Double>();
+		communityScores = null;
+		labelScores.clear();
 
 		/*
 		 * Iterate over the nodes that this node "hears"
 		 */
-		for (Edge e : u.getEnteringEdgeSet()) {
-			Node v = e.getOpposite(u);
+		for (int i = 0; i < u.getInDegree(); i++) {
+			Node v = u.getEnteringEdge(i).getOpposite(u);
 			/*
-			 * Update the count for this community
+			 * Update the score for this community
 			 */
-			if (v.hasAttribute(marker)) {
-				// Update score
-				if (communityScores.get(v.getAttribute(marker)) == null)
-					communityScores.put(v.getAttribute(marker),
-							similarity(u, v));
-				else
-					communityScores.put(v.getAttribute(marker),
-							communityScores.get(v.getAttribute(marker))
-									+ similarity(u, v));
-			}
+			Object c = heardCommunity(v);
+			if (c != null)
+				labelScores.add(label(c), c, similarity(u, v));
 		}
 	}
 
@@ -142,27 +180,15 @@ public class Sharc extends EpidemicCommunityAlgorithm {
 	 * @param b
 	 *            The second node
 	 * @return The similarity value between the two nodes
-	 * @complexity O(DELTA) where DELTA is the average node degree in the
-	 *             network
+	 * @complexity O(1) when the neighborhoods of a and b did not change since
+	 *             the last call, O(DELTA) otherwise where DELTA is the average
+	 *             node degree in the network
 	 */
 	protected Double similarity(Node a, Node b) {
-		Double similarity = 0.0;
-
-		for (Edge e : a.getEnteringEdgeSet()) {
-			Node v = e.getOpposite(a);
-			if (!b.hasEdgeFrom(v.getId()))
-				similarity += 1.0;
-		}
-
-		for (Edge e : b.getEnteringEdgeSet()) {
-			Node v = e.getOpposite(b);
-			if (!a.hasEdgeFrom(v.getId()))
-				similarity += 1.0;
-		}
-
 		if (a.getDegree() == 0 && b.getDegree() == 0)
 			return 0.0;
 		else
-			return 1 - (similarity / (a.getDegree() + b.getDegree()));
+			return 1 - ((double) neighborhoods.difference(a, b) / (a
+					.getDegree() + b.getDegree()));
 	}
 }
@@ -34,6 +34,12 @@ import org.graphstream.graph.*;
  * 
  */
 public class Sharc_my extends EpidemicCommunityAlgorithm {
+
+	/**
+	 * Neighborhood overlap of the nodes, kept up to date from the graph
+	 * events.
+	 */
+	protected SimilarityCache neighborhoods;
 	protected HashMap<Object, Double> communityCounts;
 
 	/**
@@ -69,6 +75,38 @@ public class Sharc_my extends EpidemicCommunityAlgorithm {
 		super(graph);
 	}
 
+	@Override
+	public void init(Graph graph) {
+		super.init(graph);
+		neighborhoods = new SimilarityCache(graph);
+	}
+
+	@Override
+	public void nodeRemoved(String graphId, long timeId, String nodeId) {
+		super.nodeRemoved(graphId, timeId, nodeId);
+		neighborhoods.nodeRemoved(graph.getNode(nodeId));
+	}
+
+	@Override
+	public void edgeAdded(String graphId, long timeId, String edgeId,
+			String fromNodeId, String toNodeId, boolean directed) {
+		super.edgeAdded(graphId, timeId, edgeId, fromNodeId, toNodeId,
+				directed);
+		neighborhoods.edgeAdded(graph.getEdge(edgeId));
+	}
+
+	@Override
+	public void edgeRemoved(String graphId, long timeId, String edgeId) {
+		super.edgeRemoved(graphId, timeId, edgeId);
+		neighborhoods.edgeRemoved(graph.getEdge(edgeId));
+	}
+
+	@Override
+	public void graphCleared(String graphId, long timeId) {
+		super.graphCleared(graphId, timeId);
+		neighborhoods.clear();
+	}
+
 	@Override
 	public void computeNode(Node u) {
 		/*
@@ -134,24 +172,11 @@ public class Sharc_my extends EpidemicCommunityAlgorithm {
 	 * @param b
 	 *            The second node
 	 * @return The similarity value between the two nodes
-	 * @complexity O(DELTA) where DELTA is the average node degree in the
-	 *             network
+	 * @complexity O(1) when the neighborhoods of a and b did not change since
+	 *             the last call, O(DELTA) otherwise where DELTA is the average
+	 *             node degree in the network
 	 */
 	public Double similarity(Node a, Node b) {
-		Double similarity = 0.0;
-
-		for (Edge e : a.getEnteringEdgeSet()) {
-			Node v = e.getOpposite(a);
-			if (!b.hasEdgeFrom(v.getId()))
-				similarity += 1.0;
-		}
-
-		for (Edge e : b.getEnteringEdgeSet()) {
-			Node v = e.getOpposite(b);
-			if (!a.hasEdgeFrom(v.getId()))
-				similarity += 1.0;
-		}
-
 		if (a.getDegree() == 0 && b.getDegree() == 0) {
 			return 0.0;
 		}
@@ -162,7 +187,8 @@ public class Sharc_my extends EpidemicCommunityAlgorithm {
 			return 1.0;
 		}
 		else {
-			return 1 - (similarity / (a.getDegree() + b.getDegree()));
+			return 1 - ((double) neighborhoods.difference(a, b) / (a
+					.getDegree() + b.getDegree()));
 		}
 	}
 	
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.community;
+
+import java.util.Arrays;
+
+import org.graphstream.algorithm.util.TaskPool;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+
+/**
+ * Neighborhood overlap of the nodes of a graph, used by the neighborhood
+ * similarity of the SHARC algorithms.
+ * 
+ * <p>
+ * The overlap of two nodes a and b is given by the number of edges entering a
+ * whose source is not a neighbor of b, plus the number of edges entering b
+ * whose source is not a neighbor of a. It is computed by merging the sorted
+ * indices of the sources of the edges entering each node, and stored for each
+ * edge, by edge index. The algorithm using this cache forwards the edge and
+ * node events it receives, so that only the values of the edges incident to
+ * the nodes whose neighborhood changed are computed again.
+ * </p>
+ * 
+ * <p>
+ * The values are computed lazily. Before computing the nodes in parallel,
+ * {@link #update(TaskPool)} must be called so that the cache is only read by
+ * the threads.
+ * </p>
+ */
+public class SimilarityCache {
+	/**
+	 * The graph.
+	 */
+	protected Graph graph;
+
+	/**
+	 * Sorted indices of the sources of the edges entering each node, by node
+	 * index, or null if they must be computed again.
+	 */
+	protected int[][] sources;
+
+	/**
+	 * Node for which each array of {@link #sources} was computed.
+	 */
+	protected Node[] sourceOwners;
+
+	/**
+	 * Number of non shared neighbors of the extremities of each edge, by edge
+	 * index.
+	 */
+	protected int[] differences;
+
+	/**
+	 * Edge for which each value of {@link #differences} was computed, null if
+	 * the value must be computed again.
+	 */
+	protected Edge[] differenceOwners;
+
+	/**
+	 * New empty cache for the given graph.
+	 * 
+	 * @param graph
+	 *            The graph
+	 */
+	public SimilarityCache(Graph graph) {
+		this.graph = graph;
+		clear();
+	}
+
+	/**
+	 * Forget all the values.
+	 */
+	public void clear() {
+		sources = new int[16][];
+		sourceOwners = new Node[16];
+		differences = new int[16];
+		differenceOwners = new Edge[16];
+	}
+
+	/**
+	 * Number of edges entering a whose source is not a neighbor of b, plus the
+	 * number of edges entering b whose source is not a neighbor of a.
+	 * 
+	 * @param a
+	 *            The first node
+	 * @param b
+	 *            The second node
+	 * @return The number of non shared neighbors
+	 * @complexity O(1) if a and b are adjacent and the value was already
+	 *             computed, otherwise O(DELTA) where DELTA is the degree of
+	 *             the nodes
+	 */
+	public int difference(Node a, Node b) {
+		Edge e = a.getEdgeBetween(b);
+		if (e == null)
+			return difference(sources(a), sources(b));
+
+		int i = e.getIndex();
+		if (i < differences.length && differenceOwners[i] == e)
+			return differences[i];
+
+		int d = difference(sources(a), sources(b));
+		ensureEdgeCapacity(graph.getEdgeCount());
+		differences[i] = d;
+		differenceOwners[i] = e;
+		return d;
+	}
+
+	/**
+	 * Compute all the missing values, in parallel on the given pool.
+	 * 
+	 * @param pool
+	 *            The threads
+	 */
+	public void update(TaskPool pool) {
+		int n = graph.getNodeCount();
+		for (int i = 0; i < n; i++)
+			sources(graph.getNode(i));
+
+		ensureEdgeCapacity(graph.getEdgeCount());
+		pool.forRange(0, graph.getEdgeCount(), 0, new TaskPool.RangeTask() {
+			public void run(int from, int to) {
+				for (int i = from; i < to; i++) {
+					Edge e = graph.getEdge(i);
+					if (differenceOwners[i] != e) {
+						differences[i] = difference(
+								sources[e.getNode0().getIndex()],
+								sources[e.getNode1().getIndex()]);
+						differenceOwners[i] = e;
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Must be called when an edge is added.
+	 * 
+	 * @param e
+	 *            The new edge
+	 */
+	public void edgeAdded(Edge e) {
+		invalidate(e.getNode0());
+		invalidate(e.getNode1());
+	}
+
+	/**
+	 * Must be called when an edge is removed, while it is still in the graph.
+	 * 
+	 * @param e
+	 *            The edge
+	 */
+	public void edgeRemoved(Edge e) {
+		invalidate(e.getNode0());
+		invalidate(e.getNode1());
+	}
+
+	/**
+	 * Must be called when a node is removed, while it is still in the graph.
+	 * The last node takes the index of the removed node, so the arrays
+	 * containing the index of its neighbors are computed again.
+	 * 
+	 * @param node
+	 *            The node
+	 */
+	public void nodeRemoved(Node node) {
+		Node last = graph.getNode(graph.getNodeCount() - 1);
+		if (last != node)
+			for (Edge e : last.getEachEdge()) {
+				Node v = e.getOpposite(last);
+				if (v.getIndex() < sources.length)
+					sources[v.getIndex()] = null;
+			}
+	}
+
+	/**
+	 * Forget the neighborhood of a node and the values of the edges incident
+	 * to it.
+	 */
+	protected void invalidate(Node node) {
+		if (node.getIndex() < sources.length)
+			sources[node.getIndex()] = null;
+		for (Edge e : node.getEachEdge())
+			if (e.getIndex() < differenceOwners.length)
+				differenceOwners[e.getIndex()] = null;
+	}
+
+	/**
+	 * Sorted indices of the sources of the edges entering a node.
+	 */
+	protected int[] sources(Node node) {
+		int i = node.getIndex();
+		if (i < sources.length && sources[i] != null && sourceOwners[i] == node)
+			return sources[i];
+
+		int[] s = new int[node.getInDegree()];
+		for (int j = 0; j < s.length; j++)
+			s[j] = node.getEnteringEdge(j).getOpposite(node).getIndex();
+		Arrays.sort(s);
+
+		if (i >= sources.length) {
+			int capacity = Math.max(2 * sources.length, graph.getNodeCount());
+			sources = Arrays.copyOf(sources, capacity);
+			sourceOwners = Arrays.copyOf(sourceOwners, capacity);
+		}
+		sources[i] = s;
+		sourceOwners[i] = node;
+		return s;
+	}
+
+	protected void ensureEdgeCapacity(int m) {
+		if (m > differences.length) {
+			int capacity = Math.max(2 * differences.length, m);
+			differences = Arrays.copyOf(differences, capacity);
+			differenceOwners = Arrays.copyOf(differenceOwners, capacity);
+		}
+	}
+
+	/**
+	 * Number of elements of a not in b plus number of elements of b not in a,
+	 * counted with their multiplicity.
+	 */
+	protected static int difference(int[] a, int[] b) {
+		return missing(a, b) + missing(b, a);
+	}
+
+	/**
+	 * Number of elements of a not in b, a and b being sorted.
+	 */
+	protected static int missing(int[] a, int[] b) {
+		int count = 0;
+		int j = 0;
+		for (int i = 0; i < a.length; i++) {
+			while (j < b.length && b[j] < a[i])
+				j++;
+			if (j == b.length || b[j] != a[i])
+				count++;
+		}
+		return count;
+	}
+}
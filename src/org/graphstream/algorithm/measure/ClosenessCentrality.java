@@ -31,14 +31,45 @@
  */
 package org.graphstream.algorithm.measure;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.graphstream.algorithm.APSP;
 import org.graphstream.algorithm.APSP.APSPInfo;
+import org.graphstream.algorithm.util.CompressedAdjacency;
+import org.graphstream.algorithm.util.IndexedPriorityQueue;
+import org.graphstream.algorithm.util.TaskPool;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
 
 /**
  * Compute closeness centrality.
  * 
+ * <p>
+ * By default, distances are read in the {@link APSPInfo} of each node, which
+ * needs the all pair shortest paths to be computed first. With
+ * {@link #setPerSourceSearch(boolean)}, the distances are instead computed
+ * with one breadth first search, or one Dijkstra search on weighted graphs,
+ * from each node, on a compressed copy of the graph. Each search follows the
+ * edges backward, so that it gives the distances from all the nodes to its
+ * source, which are added to the sums of these nodes. Searches are shared
+ * among {@link #setParallelism(int)} threads, each one needing O(n) memory.
+ * Unreachable nodes are ignored by the classical method and count for 0 in
+ * the Dangalchev method.
+ * </p>
+ * 
+ * <p>
+ * On large graphs, {@link #setSampleSize(int)} makes the searches start only
+ * from k sources chosen at random. The sum of the distances of each node is
+ * estimated as n/k times the sum of its distances to the sources, as
+ * Eppstein and Wang.
+ * </p>
+ * 
+ * @reference David Eppstein and Joseph Wang. Fast Approximation of
+ *            Centrality. Journal of Graph Algorithms and Applications, 8:1,
+ *            pp. 39 - 45, 2004.
  */
 public class ClosenessCentrality extends AbstractCentrality {
 	public static final String DEFAULT_ATTRIBUTE_KEY = "closeness";
@@ -58,6 +89,38 @@ public class ClosenessCentrality extends AbstractCentrality {
 
 	// APSP algorithm if computed in this algorithm.
 	private APSP apsp;
+
+	/**
+	 * Flag indicating if distances are computed with one search per source
+	 * instead of being read in {@link APSPInfo}.
+	 */
+	protected boolean perSourceSearch = false;
+
+	/**
+	 * Attribute of the edge weights for searches, null if the graph is not
+	 * weighted.
+	 */
+	protected String weightAttribute = "weight";
+
+	/**
+	 * Flag indicating if searches take edge orientation into account.
+	 */
+	protected boolean directed = true;
+
+	/**
+	 * Number of threads running searches.
+	 */
+	protected int parallelism = 1;
+
+	/**
+	 * Number of sampled sources, 0 for all the nodes.
+	 */
+	protected int sampleSize = 0;
+
+	/**
+	 * Random numbers used to sample sources.
+	 */
+	protected Random random = new Random();
 	
 	/**
 	 * Default construtor. Same as calling `ClosenessCentrality("closeness")`.
@@ -109,11 +172,85 @@ public class ClosenessCentrality extends AbstractCentrality {
 		this.useDangalchevMethod = useDangalchevMethod;
 	}
 
+	/**
+	 * Compute distances with one search per source, see the class
+	 * documentation. Then the {@link APSP} is neither computed nor read.
+	 * 
+	 * @param on
+	 *            true to use searches
+	 */
+	public void setPerSourceSearch(boolean on) {
+		this.perSourceSearch = on;
+	}
+
+	/**
+	 * Set the attribute of edge weights used by searches, "weight" by
+	 * default as for {@link APSP}. Edges without this attribute have a weight
+	 * of one.
+	 * 
+	 * @param weightAttribute
+	 *            the attribute, or null to ignore weights
+	 */
+	public void setWeightAttribute(String weightAttribute) {
+		this.weightAttribute = weightAttribute;
+	}
+
+	/**
+	 * Take edge orientation into account in searches, true by default as for
+	 * {@link APSP}.
+	 * 
+	 * @param directed
+	 *            false to ignore edge orientation
+	 */
+	public void setDirected(boolean directed) {
+		this.directed = directed;
+	}
+
+	/**
+	 * Set the number of threads running searches.
+	 * 
+	 * @param threads
+	 *            number of threads, at least one
+	 */
+	public void setParallelism(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("at least one thread is needed");
+
+		this.parallelism = threads;
+	}
+
+	/**
+	 * Estimate the centrality from searches starting at k sources chosen at
+	 * random. This implies searches.
+	 * 
+	 * @param k
+	 *            number of sources, 0 to use all the nodes
+	 */
+	public void setSampleSize(int k) {
+		if (k < 0)
+			throw new IllegalArgumentException("negative sample size");
+
+		this.sampleSize = k;
+
+		if (k > 0)
+			perSourceSearch = true;
+	}
+
+	/**
+	 * Set the seed of the random numbers used to sample sources.
+	 * 
+	 * @param seed
+	 *            the seed
+	 */
+	public void setRandomSeed(long seed) {
+		random = new Random(seed);
+	}
+
 	@Override
 	public void init(Graph graph) {
 		super.init(graph);
 		
-		if (computeAPSP) {
+		if (computeAPSP && !perSourceSearch) {
 			apsp = new APSP();
 			apsp.init(graph);
 		}
@@ -126,11 +263,22 @@ public class ClosenessCentrality extends AbstractCentrality {
 	 * org.graphstream.algorithm.measure.AbstractCentrality#computeCentrality()
 	 */
 	protected void computeCentrality() {
+		if (perSourceSearch) {
+			computeWithSearches();
+			return;
+		}
+
 		int count = graph.getNodeCount();
 		Node node, other;
 
-		if (computeAPSP)
+		if (computeAPSP) {
+			if (apsp == null) {
+				apsp = new APSP();
+				apsp.init(graph);
+			}
+
 			apsp.compute();
+		}
 
 		for (int idx = 0; idx < count; idx++) {
 			node = graph.getNode(idx);
@@ -164,4 +312,147 @@ public class ClosenessCentrality extends AbstractCentrality {
 				data[idx] = 1 / data[idx];
 		}
 	}
+
+	/**
+	 * Sum the distances, or their Dangalchev terms, with one search per
+	 * source.
+	 */
+	protected void computeWithSearches() {
+		final int n = graph.getNodeCount();
+		final CompressedAdjacency adj = new CompressedAdjacency(graph,
+				weightAttribute, directed ? CompressedAdjacency.Direction.ENTERING
+						: CompressedAdjacency.Direction.BOTH);
+
+		if (adj.negativeWeights)
+			throw new IllegalArgumentException(
+					"searches need nonnegative weights");
+
+		final int[] sources;
+		double scale = 1;
+
+		if (sampleSize > 0 && sampleSize < n) {
+			sources = new int[sampleSize];
+
+			for (int i = 0; i < sampleSize; i++)
+				sources[i] = random.nextInt(n);
+
+			scale = n / (double) sampleSize;
+		} else {
+			sources = new int[n];
+
+			for (int i = 0; i < n; i++)
+				sources[i] = i;
+		}
+
+		final AtomicInteger next = new AtomicInteger();
+		final ArrayList<double[]> sums = new ArrayList<double[]>();
+		ArrayList<Runnable> tasks = new ArrayList<Runnable>();
+
+		for (int t = 0; t < Math.min(parallelism, Math.max(1, sources.length)); t++) {
+			final double[] sum = new double[n];
+
+			sums.add(sum);
+			tasks.add(new Runnable() {
+				public void run() {
+					double[] dist = new double[n];
+					int[] order = new int[n];
+					IndexedPriorityQueue heap = adj.weighted ? IndexedPriorityQueue.Type.BINARY_HEAP
+							.create(n) : null;
+					int i;
+
+					Arrays.fill(dist, Double.POSITIVE_INFINITY);
+
+					while ((i = next.getAndIncrement()) < sources.length) {
+						int reached = search(adj, sources[i], dist, order,
+								heap);
+
+						for (int k = 0; k < reached; k++) {
+							int v = order[k];
+
+							if (useDangalchevMethod)
+								sum[v] += Math.pow(2, -dist[v]);
+							else
+								sum[v] += dist[v];
+
+							dist[v] = Double.POSITIVE_INFINITY;
+						}
+					}
+				}
+			});
+		}
+
+		TaskPool pool = new TaskPool(tasks.size());
+
+		try {
+			pool.execute(tasks);
+		} finally {
+			pool.shutdown();
+		}
+
+		for (int idx = 0; idx < n; idx++) {
+			double sum = 0;
+
+			for (double[] s : sums)
+				sum += s[idx];
+
+			if (useDangalchevMethod)
+				// Remove the term of the node itself, at distance 0.
+				data[idx] = scale * sum - 1;
+			else
+				data[idx] = 1 / (scale * sum);
+		}
+	}
+
+	/**
+	 * Breadth first search, or Dijkstra search if the heap is not null, from
+	 * a source.
+	 * 
+	 * @return the number of nodes reached, stored in order
+	 */
+	protected static int search(CompressedAdjacency adj, int source,
+			double[] dist, int[] order, IndexedPriorityQueue heap) {
+		int reached = 0;
+
+		dist[source] = 0;
+
+		if (heap == null) {
+			int head = 0;
+
+			order[reached++] = source;
+
+			while (head < reached) {
+				int v = order[head++];
+
+				for (int p = adj.offsets[v]; p < adj.offsets[v + 1]; p++) {
+					int w = adj.neighbors[p];
+
+					if (dist[w] == Double.POSITIVE_INFINITY) {
+						dist[w] = dist[v] + 1;
+						order[reached++] = w;
+					}
+				}
+			}
+		} else {
+			heap.clear();
+			heap.add(source, 0);
+
+			while (!heap.isEmpty()) {
+				int v = heap.extractMin();
+
+				order[reached++] = v;
+
+				for (int p = adj.offsets[v]; p < adj.offsets[v + 1]; p++) {
+					int w = adj.neighbors[p];
+					double d = dist[v] + adj.weights[p];
+
+					if (d < dist[w]) {
+						dist[w] = d;
+						heap.addOrDecrease(w, d);
+					}
+				}
+			}
+		}
+
+		return reached;
+	}
 }
@@ -33,9 +33,30 @@ package org.graphstream.algorithm.measure;
 
 import java.util.Arrays;
 
-import org.graphstream.graph.Edge;
-import org.graphstream.graph.Node;
+import org.graphstream.algorithm.util.CompressedAdjacency;
+import org.graphstream.algorithm.util.TaskPool;
 
+/**
+ * Eigenvector centrality, computed by power iteration.
+ * 
+ * <p>
+ * The centrality vector is multiplied by the weighted adjacency matrix of the
+ * graph, then normalized so that its L2 norm is one. The adjacency is first
+ * copied in compressed arrays, with the weights, so that iterations do not
+ * access the graph. By default, exactly the maximum number of iterations is
+ * done. With a positive tolerance (see {@link #setTolerance(double)}), the
+ * iteration stops as soon as the L2 norm of the difference between two
+ * consecutive vectors is less than the tolerance.
+ * </p>
+ * 
+ * <p>
+ * When the centrality is computed repeatedly on a slowly changing graph,
+ * {@link #setWarmStart(boolean)} allows to start from the previous vector
+ * instead of a uniform one, which needs less iterations to converge. With
+ * {@link #setParallelism(int)} greater than one, the products are computed by
+ * several threads, each one on a range of nodes.
+ * </p>
+ */
 public class EigenvectorCentrality extends AbstractCentrality {
 	public static final String DEFAULT_ATTRIBUTE_KEY = "eigenvector";
 	
@@ -44,6 +65,27 @@ public class EigenvectorCentrality extends AbstractCentrality {
 	protected int maxIter;
 	protected String weightAttribute;
 
+	/**
+	 * Stop when the L2 norm of the difference between two iterations is less
+	 * than this tolerance, never if 0.
+	 */
+	protected double tolerance = 0;
+
+	/**
+	 * Start from the previous vector if possible.
+	 */
+	protected boolean warmStart = false;
+
+	/**
+	 * Number of threads computing the products.
+	 */
+	protected int parallelism = 1;
+
+	/**
+	 * Number of iterations of the last computation.
+	 */
+	protected int iterations;
+
 	public EigenvectorCentrality() {
 		this("DEFAULT_ATTRIBUTE_KEY", NormalizationMode.NONE);
 	}
@@ -60,52 +102,144 @@ public class EigenvectorCentrality extends AbstractCentrality {
 		this.weightAttribute = weightAttribute;
 	}
 
+	/**
+	 * Set the tolerance of the convergence test.
+	 * 
+	 * @param tolerance
+	 *            the L2 norm of the difference between two iterations under
+	 *            which the iteration stops, 0 to always do the maximum number
+	 *            of iterations
+	 */
+	public void setTolerance(double tolerance) {
+		if (tolerance < 0)
+			throw new IllegalArgumentException("negative tolerance");
+
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Getter for {@link #tolerance}.
+	 * 
+	 * @return {@link #tolerance}
+	 */
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	/**
+	 * Start the next computations from the last computed vector, if the
+	 * number of nodes has not changed.
+	 * 
+	 * @param warmStart
+	 *            true to start from the previous vector
+	 */
+	public void setWarmStart(boolean warmStart) {
+		this.warmStart = warmStart;
+	}
+
+	/**
+	 * Set the number of threads computing the products.
+	 * 
+	 * @param threads
+	 *            number of threads, at least one
+	 */
+	public void setParallelism(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("at least one thread is needed");
+
+		this.parallelism = threads;
+	}
+
+	/**
+	 * Number of iterations done by the last computation.
+	 * 
+	 * @return the iteration count
+	 */
+	public int getIterationCount() {
+		return iterations;
+	}
+
 	@Override
 	protected void computeCentrality() {
 		int n = graph.getNodeCount();
+		final CompressedAdjacency adj = new CompressedAdjacency(graph,
+				weightAttribute, CompressedAdjacency.Direction.BOTH);
 		double[] x1 = new double[n];
 		double[] x2 = new double[n];
 		double[] t;
-		double f, s;
-		int iter = maxIter;
-		Node node;
-		Edge edge;
-
-		Arrays.fill(x2, 1.0 / n);
-
-		while (iter-- > 0) {
-			//
-			// Swap x1 and x2
-			//
-			t = x1;
-			x1 = x2;
-			x2 = t;
+		double s, diff;
+		TaskPool pool = parallelism > 1 ? new TaskPool(parallelism) : null;
 
-			Arrays.fill(x2, 0);
-			s = 0;
+		s = 0;
 
-			for (int idx = 0; idx < n; idx++) {
-				node = graph.getNode(idx);
-
-				for (int i = 0; i < node.getDegree(); i++) {
-					edge = node.getEdge(i);
-					f = 1;
+		if (warmStart && data != null && data.length == n)
+			for (int idx = 0; idx < n; idx++)
+				s += data[idx] * data[idx];
+
+		if (s > 0)
+			System.arraycopy(data, 0, x2, 0, n);
+		else
+			Arrays.fill(x2, 1.0 / n);
+
+		iterations = 0;
+
+		try {
+			while (iterations < maxIter) {
+				//
+				// Swap x1 and x2
+				//
+				t = x1;
+				x1 = x2;
+				x2 = t;
+
+				final double[] x = x1, y = x2;
+
+				if (pool == null) {
+					multiply(adj, x, y, 0, n);
+				} else {
+					pool.forRange(0, n, 0, new TaskPool.RangeTask() {
+						public void run(int from, int to) {
+							multiply(adj, x, y, from, to);
+						}
+					});
+				}
 
-					if (edge.hasNumber(weightAttribute))
-						f = edge.getNumber(weightAttribute);
+				s = 0;
+				for (int idx = 0; idx < n; idx++)
+					s += x2[idx] * x2[idx];
 
-					x2[idx] += x1[edge.getOpposite(node).getIndex()] * f;
+				s = s == 0 ? 1.0 : 1.0 / Math.sqrt(s);
+				diff = 0;
+				for (int idx = 0; idx < n; idx++) {
+					x2[idx] *= s;
+					diff += (x2[idx] - x1[idx]) * (x2[idx] - x1[idx]);
 				}
 
-				s += x2[idx] * x2[idx];
-			}
+				iterations++;
 
-			s = s == 0 ? 1.0 : 1.0 / Math.sqrt(s);
-			for (int idx = 0; idx < n; idx++)
-				x2[idx] *= s;
+				if (Math.sqrt(diff) < tolerance)
+					break;
+			}
+		} finally {
+			if (pool != null)
+				pool.shutdown();
 		}
 
 		data = x2;
 	}
 
+	/**
+	 * Product of the adjacency matrix and a vector, for a range of nodes.
+	 */
+	protected static void multiply(CompressedAdjacency adj, double[] x,
+			double[] y, int from, int to) {
+		for (int idx = from; idx < to; idx++) {
+			double sum = 0;
+
+			for (int p = adj.offsets[idx]; p < adj.offsets[idx + 1]; p++)
+				sum += x[adj.neighbors[p]] * adj.weights[p];
+
+			y[idx] = sum;
+		}
+	}
 }
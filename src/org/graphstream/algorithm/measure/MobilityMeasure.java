@@ -152,50 +152,104 @@ public abstract class MobilityMeasure extends SinkAdapter implements
 //		return calculateCos(angleU, angleV); // <1,0> for degree difference <0,90>, (0,-1) for degree difference (90-180)
 //	}
 	
+	/**
+	 * Relative mobility of two nodes, with the speeds and angles read from a
+	 * vehicle state store.
+	 * 
+	 * @param state
+	 *            The vehicle state
+	 * @param u
+	 *            The first node
+	 * @param v
+	 *            The second node
+	 * @return The degree of spatial dependence of the two nodes
+	 */
+	public static double computeRelativeMobility(VehicleState state, Node u,
+			Node v) {
+		return spatialDependence(state.speed(u), state.speed(v),
+				state.angle(u), state.angle(v));
+	}
+
 	public static Double calculateDegreeOfSpatialDependence(Double speedU, Double speedV, Double angleU, Double angleV) {
-		return  calculateCos(angleU, angleV) * calculateSpeedRatio(speedU, speedV);
+		return spatialDependence(speedU, speedV, angleU, angleV);
 	}
 	
 	public static Double calculateDegreeOfCongestionDependence(Double speedU, Double speedV, Double angleU, Double angleV) {
+		return congestionDependence(speedU, speedV, angleU, angleV);
+	}
+
+	/**
+	 * Degree of congestion dependence of two nodes, with the angles and the
+	 * speeds read from a vehicle state store.
+	 * 
+	 * @param state
+	 *            The vehicle state
+	 * @param u
+	 *            The first node
+	 * @param v
+	 *            The second node
+	 * @param timeMean
+	 *            Use the time mean speed, 0 for nodes that have none, instead
+	 *            of the instantaneous speed
+	 * @return The degree of congestion dependence of the two nodes
+	 */
+	public static double calculateDegreeOfCongestionDependence(
+			VehicleState state, Node u, Node v, boolean timeMean) {
+		double speedU = timeMean ? state.timeMeanSpeed(u) : state.speed(u);
+		double speedV = timeMean ? state.timeMeanSpeed(v) : state.speed(v);
+		return congestionDependence(speedU, speedV, state.angle(u),
+				state.angle(v));
+	}
+	
+	public static Double calculateCos(Double angleU, Double angleV) {
+		return cos(angleU, angleV);
+	}
+	
+	public static Double calculateSpeedRatio(Double speedU, Double speedV) {
+		return speedRatio(speedU, speedV);
+	}
+
+	protected static double spatialDependence(double speedU, double speedV,
+			double angleU, double angleV) {
+		return cos(angleU, angleV) * speedRatio(speedU, speedV);
+	}
+
+	protected static double congestionDependence(double speedU,
+			double speedV, double angleU, double angleV) {
 		// if speedU is not within the same range as speedV return 0
 		if ((speedU <= congestionSpeedThreshold && speedV <= congestionSpeedThreshold ) || (speedU > congestionSpeedThreshold && speedV > congestionSpeedThreshold)) {
-			return  calculateCos(angleU, angleV) * calculateSpeedRatio(speedU, speedV);
+			return cos(angleU, angleV) * speedRatio(speedU, speedV);
 		}
 		return 0.0;
 	}
-	
-	public static Double calculateCos(Double angleU, Double angleV) {
+
+	protected static double cos(double angleU, double angleV) {
 		if (angleU < 0) {
 			angleU += 360;
 		}
 		if (angleV < 0) {
 			angleV += 360;
 		}
-		Double cos = Math.cos(Math.toRadians(angleU-angleV)); // <1,0> for degree difference <0,90>, (0,-1) for degree difference (90-180) -- different directions
-		cos = cos * 0.5 + 0.5; // <0,1>
-		
-//		System.out.println("angleU " + angleU + ", angleV " + angleV + ", cos " + cos);
-		return cos;
+		double cos = Math.cos(Math.toRadians(angleU-angleV)); // <1,0> for degree difference <0,90>, (0,-1) for degree difference (90-180) -- different directions
+		return cos * 0.5 + 0.5; // <0,1>
 	}
-	
-	public static Double calculateSpeedRatio(Double speedU, Double speedV) {
-		Double sr = 0.0;
-		if (speedU.equals(0.0) && speedV.equals(0.0)) {
+
+	protected static double speedRatio(double speedU, double speedV) {
+		// same test as Double.equals(0.0)
+		boolean stoppedU = Double.compare(speedU, 0.0) == 0;
+		boolean stoppedV = Double.compare(speedV, 0.0) == 0;
+		if (stoppedU && stoppedV) {
 			// both don't move
-			sr = 1.0;
+			return 1.0;
 		}
-		else { 
-			// if only one of node's speed is 0 then assume a low speed (0.1) so to never have relative mobility = 0
-			if (speedU.equals(0.0)) {
-				speedU = 0.1;
-			}
-			if (speedV.equals(0.0)) {
-				speedV = 0.1;
-			}
-
-			sr = Math.min(speedU, speedV)/Math.max(speedU, speedV);
+		// if only one of node's speed is 0 then assume a low speed (0.1) so to never have relative mobility = 0
+		if (stoppedU) {
+			speedU = 0.1;
+		}
+		if (stoppedV) {
+			speedV = 0.1;
 		}
-		return sr;
+		return Math.min(speedU, speedV)/Math.max(speedU, speedV);
 	}
 	
 	/*
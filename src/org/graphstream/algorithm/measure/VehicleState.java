@@ -0,0 +1,326 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.measure;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.stream.SinkAdapter;
+
+/**
+ * Mobility state of the vehicles of a graph, stored in columns indexed by node
+ * index.
+ * 
+ * <p>
+ * The speed, angle, time mean speed and lane of the vehicles are read once
+ * from the node attributes when the store is attached to the graph, then
+ * updated from the attribute events of the graph, so that the mobility-aware
+ * algorithms do not look up and cast the attributes for each pair of
+ * neighbors at each step. A missing or non numeric value is read as 0, and the
+ * lanes are given integer identifiers, -1 when the lane is unknown.
+ * </p>
+ * 
+ * <p>
+ * The rows follow the node indices of the graph. Each row remembers the node
+ * it was filled for, and is filled again from the attributes if another node
+ * has its index.
+ * </p>
+ */
+public class VehicleState extends SinkAdapter {
+	/**
+	 * The graph.
+	 */
+	protected Graph graph;
+
+	/**
+	 * Names of the attributes, null if not used.
+	 */
+	protected String speedMarker, angleMarker, timeMeanSpeedMarker,
+			laneMarker;
+
+	/**
+	 * Columns of the state, by node index.
+	 */
+	protected double[] speed, angle, timeMeanSpeed;
+
+	/**
+	 * Lane identifiers, by node index.
+	 */
+	protected int[] lane;
+
+	/**
+	 * Does the node have a time mean speed attribute ?
+	 */
+	protected boolean[] hasTimeMeanSpeed;
+
+	/**
+	 * Node of each row.
+	 */
+	protected Node[] owners;
+
+	/**
+	 * Identifiers of the lanes.
+	 */
+	protected HashMap<Object, Integer> lanes = new HashMap<Object, Integer>();
+
+	/**
+	 * New store reading the given attributes. Any of them may be null.
+	 * 
+	 * @param speedMarker
+	 *            Attribute of the instantaneous speed
+	 * @param angleMarker
+	 *            Attribute of the angle
+	 * @param timeMeanSpeedMarker
+	 *            Attribute of the time mean speed
+	 * @param laneMarker
+	 *            Attribute of the lane
+	 */
+	public VehicleState(String speedMarker, String angleMarker,
+			String timeMeanSpeedMarker, String laneMarker) {
+		this.speedMarker = speedMarker;
+		this.angleMarker = angleMarker;
+		this.timeMeanSpeedMarker = timeMeanSpeedMarker;
+		this.laneMarker = laneMarker;
+	}
+
+	/**
+	 * Attach the store to a graph and read the state of all its nodes.
+	 * 
+	 * @param graph
+	 *            The graph
+	 */
+	public void init(Graph graph) {
+		terminate();
+		this.graph = graph;
+		allocate(Math.max(16, graph.getNodeCount()));
+		for (Node node : graph)
+			load(node);
+		graph.addSink(this);
+	}
+
+	/**
+	 * Detach the store from its graph.
+	 */
+	public void terminate() {
+		if (graph != null)
+			graph.removeSink(this);
+		graph = null;
+	}
+
+	/**
+	 * Instantaneous speed of a node.
+	 * 
+	 * @param node
+	 *            The node
+	 * @return Its speed, 0 if unknown
+	 */
+	public double speed(Node node) {
+		return speed[row(node)];
+	}
+
+	/**
+	 * Angle of a node.
+	 * 
+	 * @param node
+	 *            The node
+	 * @return Its angle, 0 if unknown
+	 */
+	public double angle(Node node) {
+		return angle[row(node)];
+	}
+
+	/**
+	 * Time mean speed of a node.
+	 * 
+	 * @param node
+	 *            The node
+	 * @return Its time mean speed, 0 if unknown
+	 */
+	public double timeMeanSpeed(Node node) {
+		return timeMeanSpeed[row(node)];
+	}
+
+	/**
+	 * Does a node have a time mean speed ?
+	 * 
+	 * @param node
+	 *            The node
+	 * @return True if the attribute is set
+	 */
+	public boolean hasTimeMeanSpeed(Node node) {
+		return hasTimeMeanSpeed[row(node)];
+	}
+
+	/**
+	 * Lane of a node.
+	 * 
+	 * @param node
+	 *            The node
+	 * @return The identifier of its lane, -1 if unknown
+	 */
+	public int lane(Node node) {
+		return lane[row(node)];
+	}
+
+	/**
+	 * Row of a node, filled from its attributes if needed.
+	 */
+	protected int row(Node node) {
+		int i = node.getIndex();
+		if (i >= owners.length || owners[i] != node)
+			load(node);
+		return i;
+	}
+
+	protected void allocate(int capacity) {
+		speed = new double[capacity];
+		angle = new double[capacity];
+		timeMeanSpeed = new double[capacity];
+		hasTimeMeanSpeed = new boolean[capacity];
+		lane = new int[capacity];
+		owners = new Node[capacity];
+	}
+
+	protected void ensureCapacity(int n) {
+		if (n > owners.length) {
+			int capacity = Math.max(2 * owners.length, n);
+			speed = Arrays.copyOf(speed, capacity);
+			angle = Arrays.copyOf(angle, capacity);
+			timeMeanSpeed = Arrays.copyOf(timeMeanSpeed, capacity);
+			hasTimeMeanSpeed = Arrays.copyOf(hasTimeMeanSpeed, capacity);
+			lane = Arrays.copyOf(lane, capacity);
+			owners = Arrays.copyOf(owners, capacity);
+		}
+	}
+
+	/**
+	 * Fill the row of a node from its attributes.
+	 */
+	protected void load(Node node) {
+		int i = node.getIndex();
+		ensureCapacity(i + 1);
+		owners[i] = node;
+		speed[i] = value(node, speedMarker);
+		angle[i] = value(node, angleMarker);
+		timeMeanSpeed[i] = value(node, timeMeanSpeedMarker);
+		hasTimeMeanSpeed[i] = timeMeanSpeedMarker != null
+				&& node.hasAttribute(timeMeanSpeedMarker);
+		lane[i] = laneMarker == null ? -1 : laneId(node
+				.getAttribute(laneMarker));
+	}
+
+	protected static double value(Node node, String marker) {
+		if (marker == null)
+			return 0;
+		return value(node.getAttribute(marker));
+	}
+
+	protected static double value(Object value) {
+		return value instanceof Number ? ((Number) value).doubleValue() : 0;
+	}
+
+	protected int laneId(Object value) {
+		if (value == null)
+			return -1;
+		Integer id = lanes.get(value);
+		if (id == null) {
+			id = lanes.size();
+			lanes.put(value, id);
+		}
+		return id;
+	}
+
+	@Override
+	public void nodeAdded(String graphId, long timeId, String nodeId) {
+		load(graph.getNode(nodeId));
+	}
+
+	@Override
+	public void nodeRemoved(String graphId, long timeId, String nodeId) {
+		Node node = graph.getNode(nodeId);
+		int i = node.getIndex();
+		int last = graph.getNodeCount() - 1;
+		owners[i] = null;
+
+		/*
+		 * The last node takes the index of the removed node
+		 */
+		if (last != i && last < owners.length && owners[last] != null) {
+			speed[i] = speed[last];
+			angle[i] = angle[last];
+			timeMeanSpeed[i] = timeMeanSpeed[last];
+			hasTimeMeanSpeed[i] = hasTimeMeanSpeed[last];
+			lane[i] = lane[last];
+			owners[i] = owners[last];
+			owners[last] = null;
+		}
+	}
+
+	@Override
+	public void graphCleared(String graphId, long timeId) {
+		Arrays.fill(owners, null);
+	}
+
+	@Override
+	public void nodeAttributeAdded(String graphId, long timeId, String nodeId,
+			String attribute, Object value) {
+		nodeAttributeChanged(graphId, timeId, nodeId, attribute, null, value);
+	}
+
+	@Override
+	public void nodeAttributeChanged(String graphId, long timeId,
+			String nodeId, String attribute, Object oldValue, Object newValue) {
+		Node node = graph.getNode(nodeId);
+		int i = node.getIndex();
+		if (i >= owners.length || owners[i] != node)
+			return;
+
+		if (attribute.equals(speedMarker))
+			speed[i] = value(newValue);
+		if (attribute.equals(angleMarker))
+			angle[i] = value(newValue);
+		if (attribute.equals(timeMeanSpeedMarker)) {
+			timeMeanSpeed[i] = value(newValue);
+			hasTimeMeanSpeed[i] = newValue != null;
+		}
+		if (attribute.equals(laneMarker))
+			lane[i] = laneId(newValue);
+	}
+
+	@Override
+	public void nodeAttributeRemoved(String graphId, long timeId,
+			String nodeId, String attribute) {
+		nodeAttributeChanged(graphId, timeId, nodeId, attribute, null, null);
+	}
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.util;
+
+import java.util.Iterator;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+
+/**
+ * <p>
+ * A snapshot of the adjacency of a graph in compressed sparse row (CSR)
+ * arrays indexed by node indices. The neighbors of the node of index i are
+ * stored in {@link #neighbors} between the positions {@link #offsets}[i]
+ * (included) and {@link #offsets}[i + 1] (excluded). For each of these
+ * positions, {@link #edges} gives the index of the edge leading to the
+ * neighbor and {@link #weights} its weight.
+ * </p>
+ * 
+ * <p>
+ * Algorithms that iterate many times on the same graph use this snapshot to
+ * avoid the cost of edge iterators and attribute lookups in their inner
+ * loops. The snapshot is not updated when the graph changes, it must be
+ * rebuilt.
+ * </p>
+ * 
+ * <h3>Example</h3>
+ * 
+ * <pre>
+ * CompressedAdjacency adj = new CompressedAdjacency(graph, &quot;weight&quot;,
+ * 		CompressedAdjacency.Direction.LEAVING);
+ * 
+ * for (int p = adj.offsets[i]; p &lt; adj.offsets[i + 1]; p++) {
+ * 	int j = adj.neighbors[p];
+ * 	double w = adj.weights[p];
+ * 	// ...
+ * }
+ * </pre>
+ */
+public class CompressedAdjacency {
+	/**
+	 * Edges stored for each node.
+	 */
+	public static enum Direction {
+		/**
+		 * Edges leaving the node, including undirected edges.
+		 */
+		LEAVING,
+		/**
+		 * Edges entering the node, including undirected edges.
+		 */
+		ENTERING,
+		/**
+		 * All the edges of the node, regardless of their orientation.
+		 */
+		BOTH
+	}
+
+	/**
+	 * Number of nodes of the snapshot.
+	 */
+	public final int nodeCount;
+
+	/**
+	 * Start position of the neighbors of each node, of size nodeCount + 1.
+	 */
+	public final int[] offsets;
+
+	/**
+	 * Index of the neighbors.
+	 */
+	public final int[] neighbors;
+
+	/**
+	 * Index of the edges leading to the neighbors.
+	 */
+	public final int[] edges;
+
+	/**
+	 * Weight of the edges leading to the neighbors. Edges without weight
+	 * attribute have a weight of 1.
+	 */
+	public final double[] weights;
+
+	/**
+	 * True if at least one weight is not 1.
+	 */
+	public final boolean weighted;
+
+	/**
+	 * True if at least one weight is negative.
+	 */
+	public final boolean negativeWeights;
+
+	/**
+	 * Build the snapshot of a graph.
+	 * 
+	 * @param graph
+	 *            The graph.
+	 * @param weightAttribute
+	 *            Name of the edge attribute giving the weights. If null, all
+	 *            the weights are 1.
+	 * @param direction
+	 *            The edges to store for each node.
+	 */
+	public CompressedAdjacency(Graph graph, String weightAttribute,
+			Direction direction) {
+		int n = graph.getNodeCount();
+		int size = 0;
+
+		// Count the edges by iterating on them, degrees do not always match
+		// the edge sets when loops are present.
+
+		for (int i = 0; i < n; i++) {
+			for (Iterator<? extends Edge> it = edgeSet(graph.getNode(i),
+					direction).iterator(); it.hasNext(); it.next())
+				size++;
+		}
+
+		nodeCount = n;
+		offsets = new int[n + 1];
+		neighbors = new int[size];
+		edges = new int[size];
+		weights = new double[size];
+
+		boolean w = false, neg = false;
+		int p = 0;
+
+		for (int i = 0; i < n; i++) {
+			Node node = graph.getNode(i);
+
+			offsets[i] = p;
+
+			for (Edge edge : edgeSet(node, direction)) {
+				double weight = 1;
+
+				if (weightAttribute != null
+						&& edge.hasAttribute(weightAttribute))
+					weight = edge.getNumber(weightAttribute);
+
+				neighbors[p] = edge.getOpposite(node).getIndex();
+				edges[p] = edge.getIndex();
+				weights[p] = weight;
+
+				w |= weight != 1;
+				neg |= weight < 0;
+				p++;
+			}
+		}
+
+		offsets[n] = p;
+		weighted = w;
+		negativeWeights = neg;
+	}
+
+	/**
+	 * Number of neighbors of a node.
+	 * 
+	 * @param i
+	 *            The node index.
+	 * @return The number of stored edges of the node.
+	 */
+	public int degree(int i) {
+		return offsets[i + 1] - offsets[i];
+	}
+
+	/**
+	 * Number of stored edges.
+	 * 
+	 * @return The size of the neighbor arrays.
+	 */
+	public int size() {
+		return neighbors.length;
+	}
+
+	protected static Iterable<? extends Edge> edgeSet(Node node,
+			Direction direction) {
+		switch (direction) {
+		case LEAVING:
+			return node.getLeavingEdgeSet();
+		case ENTERING:
+			return node.getEnteringEdgeSet();
+		default:
+			return node.getEdgeSet();
+		}
+	}
+}
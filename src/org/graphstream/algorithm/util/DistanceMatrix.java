@@ -0,0 +1,354 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A dense square matrix of distances and predecessors indexed by integer node
+ * indices. It is used by all pair shortest path algorithms to store, for each
+ * pair (i, j), the length of the shortest path from i to j and the predecessor
+ * of j on this path. The predecessors form, for each row i, a shortest path
+ * tree rooted at i, so any path can be rebuilt in linear time by following
+ * them backwards from the target.
+ * </p>
+ * 
+ * <p>
+ * Missing paths are represented by a {@link Double#POSITIVE_INFINITY} distance
+ * and a predecessor equal to {@link #NO_PREDECESSOR}.
+ * </p>
+ * 
+ * <p>
+ * Two storages are provided. Small matrices are stored on the Java heap in two
+ * flat arrays. Large matrices can be stored outside of the heap in direct
+ * {@link java.nio.ByteBuffer}s, which avoids putting pressure on the garbage
+ * collector and allows to go beyond the maximal array size. Use
+ * {@link #create(int, long)} to choose automatically between them according
+ * to a size threshold.
+ * </p>
+ * 
+ * <p>
+ * The space taken by this structure is O(n^2), where n is the number of
+ * indices. Concurrent accesses to distinct cells are safe, however no
+ * synchronization is done.
+ * </p>
+ */
+public abstract class DistanceMatrix {
+	/**
+	 * Predecessor value used when there is no path between two indices.
+	 */
+	public static final int NO_PREDECESSOR = -1;
+
+	/**
+	 * Number of rows (and columns) of the matrix.
+	 */
+	protected int size;
+
+	protected DistanceMatrix(int size) {
+		if (size < 0)
+			throw new IllegalArgumentException("negative matrix size");
+
+		this.size = size;
+	}
+
+	/**
+	 * Creates a new matrix. The matrix is stored outside of the Java heap if
+	 * its number of cells is strictly greater than the given threshold. All
+	 * the distances are initialized to infinity and all the predecessors to
+	 * {@link #NO_PREDECESSOR}.
+	 * 
+	 * @param size
+	 *            The number of rows and columns.
+	 * @param offHeapThreshold
+	 *            Number of cells above which the matrix is stored off-heap. A
+	 *            negative value means always off-heap, {@link Long#MAX_VALUE}
+	 *            means never.
+	 * @return A new matrix.
+	 */
+	public static DistanceMatrix create(int size, long offHeapThreshold) {
+		long cells = (long) size * size;
+		DistanceMatrix matrix;
+
+		if (cells > offHeapThreshold)
+			matrix = new DirectDistanceMatrix(size);
+		else
+			matrix = new HeapDistanceMatrix(size);
+
+		matrix.fill(Double.POSITIVE_INFINITY, NO_PREDECESSOR);
+
+		return matrix;
+	}
+
+	/**
+	 * Number of rows (and columns) of the matrix.
+	 * 
+	 * @return The matrix size.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * True if this matrix is stored outside of the Java heap.
+	 * 
+	 * @return True if off-heap.
+	 */
+	public abstract boolean isOffHeap();
+
+	/**
+	 * Length of the path from i to j.
+	 * 
+	 * @param i
+	 *            Source index.
+	 * @param j
+	 *            Target index.
+	 * @return The distance, infinity if there is no path.
+	 */
+	public abstract double getDistance(int i, int j);
+
+	/**
+	 * Change the length of the path from i to j.
+	 * 
+	 * @param i
+	 *            Source index.
+	 * @param j
+	 *            Target index.
+	 * @param distance
+	 *            The new distance.
+	 */
+	public abstract void setDistance(int i, int j, double distance);
+
+	/**
+	 * Predecessor of j on the path from i to j.
+	 * 
+	 * @param i
+	 *            Source index.
+	 * @param j
+	 *            Target index.
+	 * @return The predecessor index or {@link #NO_PREDECESSOR}.
+	 */
+	public abstract int getPredecessor(int i, int j);
+
+	/**
+	 * Change the predecessor of j on the path from i to j.
+	 * 
+	 * @param i
+	 *            Source index.
+	 * @param j
+	 *            Target index.
+	 * @param predecessor
+	 *            The new predecessor index.
+	 */
+	public abstract void setPredecessor(int i, int j, int predecessor);
+
+	/**
+	 * Set both the distance and the predecessor of a cell.
+	 * 
+	 * @param i
+	 *            Source index.
+	 * @param j
+	 *            Target index.
+	 * @param distance
+	 *            The new distance.
+	 * @param predecessor
+	 *            The new predecessor index.
+	 */
+	public void set(int i, int j, double distance, int predecessor) {
+		setDistance(i, j, distance);
+		setPredecessor(i, j, predecessor);
+	}
+
+	/**
+	 * Set all the cells of the matrix to the same values.
+	 * 
+	 * @param distance
+	 *            The distance.
+	 * @param predecessor
+	 *            The predecessor index.
+	 */
+	public void fill(double distance, int predecessor) {
+		for (int i = 0; i < size; i++)
+			fillRow(i, distance, predecessor);
+	}
+
+	/**
+	 * Set all the cells of a row to the same values.
+	 * 
+	 * @param i
+	 *            The row index.
+	 * @param distance
+	 *            The distance.
+	 * @param predecessor
+	 *            The predecessor index.
+	 */
+	public void fillRow(int i, double distance, int predecessor) {
+		for (int j = 0; j < size; j++)
+			set(i, j, distance, predecessor);
+	}
+
+	/**
+	 * Free the resources held by this matrix. The matrix must not be used
+	 * after this call.
+	 */
+	public void release() {
+		size = 0;
+	}
+
+	/**
+	 * Matrix stored in two flat arrays on the heap, row after row.
+	 */
+	protected static class HeapDistanceMatrix extends DistanceMatrix {
+		protected double[] distances;
+
+		protected int[] predecessors;
+
+		protected HeapDistanceMatrix(int size) {
+			super(size);
+
+			long cells = (long) size * size;
+
+			if (cells > Integer.MAX_VALUE)
+				throw new IllegalArgumentException(
+						"matrix too large for the heap, store it off-heap");
+
+			distances = new double[(int) cells];
+			predecessors = new int[(int) cells];
+		}
+
+		public boolean isOffHeap() {
+			return false;
+		}
+
+		public double getDistance(int i, int j) {
+			return distances[i * size + j];
+		}
+
+		public void setDistance(int i, int j, double distance) {
+			distances[i * size + j] = distance;
+		}
+
+		public int getPredecessor(int i, int j) {
+			return predecessors[i * size + j];
+		}
+
+		public void setPredecessor(int i, int j, int predecessor) {
+			predecessors[i * size + j] = predecessor;
+		}
+
+		@Override
+		public void fillRow(int i, double distance, int predecessor) {
+			int from = i * size;
+			Arrays.fill(distances, from, from + size, distance);
+			Arrays.fill(predecessors, from, from + size, predecessor);
+		}
+
+		@Override
+		public void release() {
+			super.release();
+			distances = null;
+			predecessors = null;
+		}
+	}
+
+	/**
+	 * Matrix stored in direct buffers. Since a buffer cannot hold more than
+	 * 2^31 bytes, rows are grouped into several bands, each band having its
+	 * own buffers.
+	 */
+	protected static class DirectDistanceMatrix extends DistanceMatrix {
+		protected DoubleBuffer[] distances;
+
+		protected IntBuffer[] predecessors;
+
+		/**
+		 * Number of rows stored in each band.
+		 */
+		protected int rowsPerBand;
+
+		protected DirectDistanceMatrix(int size) {
+			super(size);
+
+			rowsPerBand = size == 0 ? 1 : Math.max(1, Integer.MAX_VALUE
+					/ (8 * size));
+
+			int bands = (size + rowsPerBand - 1) / rowsPerBand;
+
+			distances = new DoubleBuffer[bands];
+			predecessors = new IntBuffer[bands];
+
+			for (int b = 0; b < bands; b++) {
+				int rows = Math.min(rowsPerBand, size - b * rowsPerBand);
+				int cells = rows * size;
+
+				distances[b] = ByteBuffer.allocateDirect(cells * 8)
+						.order(ByteOrder.nativeOrder()).asDoubleBuffer();
+				predecessors[b] = ByteBuffer.allocateDirect(cells * 4)
+						.order(ByteOrder.nativeOrder()).asIntBuffer();
+			}
+		}
+
+		public boolean isOffHeap() {
+			return true;
+		}
+
+		public double getDistance(int i, int j) {
+			return distances[i / rowsPerBand].get((i % rowsPerBand) * size + j);
+		}
+
+		public void setDistance(int i, int j, double distance) {
+			distances[i / rowsPerBand].put((i % rowsPerBand) * size + j,
+					distance);
+		}
+
+		public int getPredecessor(int i, int j) {
+			return predecessors[i / rowsPerBand].get((i % rowsPerBand) * size
+					+ j);
+		}
+
+		public void setPredecessor(int i, int j, int predecessor) {
+			predecessors[i / rowsPerBand].put((i % rowsPerBand) * size + j,
+					predecessor);
+		}
+
+		@Override
+		public void release() {
+			super.release();
+			distances = null;
+			predecessors = null;
+		}
+	}
+}
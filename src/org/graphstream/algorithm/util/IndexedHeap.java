@@ -0,0 +1,365 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * A d-ary min-heap of integer elements taken in [0, capacity), ordered by a
+ * double priority. Since elements are integers, their position in the heap is
+ * stored in an array, which allows to decrease the priority of an element
+ * already in the heap or to test its presence in constant time. This is the
+ * priority queue of choice for shortest path algorithms working on node
+ * indices: it stores everything in three primitive arrays and creates no
+ * object during the search.
+ * </p>
+ * 
+ * <p>
+ * The heap is binary by default. A larger arity, such as 4, makes the heap
+ * less deep, so additions and decreases are faster, and puts the children of
+ * a node next to each other in memory, which suits the cache. Extractions
+ * compare more children per level, but in shortest path algorithms there are
+ * usually many more decreases than extractions.
+ * </p>
+ * 
+ * <p>
+ * The following operations are supported:
+ * </p>
+ * <ul>
+ * <li>adding an element and decreasing a priority in O(log(n)/log(d)), and
+ * extracting the minimum in O(d.log(n)/log(d)), where d is the arity</li>
+ * <li>finding the minimum and testing the presence of an element in O(1)</li>
+ * <li>clearing the heap in O(n) where n is the number of elements in the heap,
+ * not its capacity</li>
+ * </ul>
+ * 
+ * <h3>Example</h3>
+ * 
+ * <pre>
+ * IndexedHeap heap = new IndexedHeap(graph.getNodeCount());
+ * heap.add(source.getIndex(), 0);
+ * 
+ * while (!heap.isEmpty()) {
+ * 	double d = heap.getMinPriority();
+ * 	int u = heap.extractMin();
+ * 	// ... heap.add(v, d + w) or heap.decreasePriority(v, d + w)
+ * }
+ * </pre>
+ */
+public class IndexedHeap implements IndexedPriorityQueue {
+	/**
+	 * Elements in heap order.
+	 */
+	protected int[] heap;
+
+	/**
+	 * Priorities in heap order.
+	 */
+	protected double[] priorities;
+
+	/**
+	 * Position of each element in the heap, -1 if absent.
+	 */
+	protected int[] positions;
+
+	/**
+	 * Number of elements in the heap.
+	 */
+	protected int size;
+
+	/**
+	 * Number of children of each node of the heap.
+	 */
+	protected int arity;
+
+	/**
+	 * Creates an empty binary heap able to store the elements [0, capacity).
+	 * 
+	 * @param capacity
+	 *            The number of possible elements.
+	 */
+	public IndexedHeap(int capacity) {
+		this(capacity, 2);
+	}
+
+	/**
+	 * Creates an empty heap able to store the elements [0, capacity).
+	 * 
+	 * @param capacity
+	 *            The number of possible elements.
+	 * @param arity
+	 *            The number of children of each node of the heap, at least 2.
+	 */
+	public IndexedHeap(int capacity, int arity) {
+		if (arity < 2)
+			throw new IllegalArgumentException("arity must be at least 2");
+
+		this.arity = arity;
+		heap = new int[capacity];
+		priorities = new double[capacity];
+		positions = new int[capacity];
+
+		for (int i = 0; i < capacity; i++)
+			positions[i] = -1;
+	}
+
+	/**
+	 * Number of possible elements.
+	 * 
+	 * @return The capacity given at construction.
+	 */
+	public int getCapacity() {
+		return positions.length;
+	}
+
+	/**
+	 * Number of children of each node of the heap.
+	 * 
+	 * @return The arity given at construction.
+	 */
+	public int getArity() {
+		return arity;
+	}
+
+	/**
+	 * Number of elements in the heap.
+	 * 
+	 * @return The heap size.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * True if the heap is empty.
+	 * 
+	 * @return True if there is no element.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * True if the element is in the heap.
+	 * 
+	 * @param element
+	 *            The element.
+	 * @return True if present.
+	 */
+	public boolean contains(int element) {
+		return positions[element] >= 0;
+	}
+
+	/**
+	 * The priority of an element in the heap.
+	 * 
+	 * @param element
+	 *            The element, it must be in the heap.
+	 * @return Its priority.
+	 */
+	public double getPriority(int element) {
+		return priorities[positions[element]];
+	}
+
+	/**
+	 * The element with the smallest priority.
+	 * 
+	 * @return The minimal element.
+	 * @throws NoSuchElementException
+	 *             If the heap is empty.
+	 */
+	public int getMin() {
+		if (size == 0)
+			throw new NoSuchElementException();
+
+		return heap[0];
+	}
+
+	/**
+	 * The smallest priority.
+	 * 
+	 * @return The priority of the minimal element.
+	 * @throws NoSuchElementException
+	 *             If the heap is empty.
+	 */
+	public double getMinPriority() {
+		if (size == 0)
+			throw new NoSuchElementException();
+
+		return priorities[0];
+	}
+
+	/**
+	 * Add an element that is not already in the heap.
+	 * 
+	 * @param element
+	 *            The element.
+	 * @param priority
+	 *            Its priority.
+	 */
+	public void add(int element, double priority) {
+		if (positions[element] >= 0)
+			throw new IllegalArgumentException("element " + element
+					+ " is already in the heap");
+
+		heap[size] = element;
+		priorities[size] = priority;
+		positions[element] = size;
+		siftUp(size++);
+	}
+
+	/**
+	 * Decrease the priority of an element of the heap. Nothing is done if the
+	 * new priority is not smaller than the current one.
+	 * 
+	 * @param element
+	 *            The element, it must be in the heap.
+	 * @param priority
+	 *            Its new priority.
+	 */
+	public void decreasePriority(int element, double priority) {
+		int pos = positions[element];
+
+		if (priority < priorities[pos]) {
+			priorities[pos] = priority;
+			siftUp(pos);
+		}
+	}
+
+	/**
+	 * Add an element or decrease its priority if it is already in the heap.
+	 * 
+	 * @param element
+	 *            The element.
+	 * @param priority
+	 *            Its priority.
+	 */
+	public void addOrDecrease(int element, double priority) {
+		if (positions[element] >= 0)
+			decreasePriority(element, priority);
+		else
+			add(element, priority);
+	}
+
+	/**
+	 * Remove the element with the smallest priority.
+	 * 
+	 * @return The removed element.
+	 * @throws NoSuchElementException
+	 *             If the heap is empty.
+	 */
+	public int extractMin() {
+		if (size == 0)
+			throw new NoSuchElementException();
+
+		int min = heap[0];
+		positions[min] = -1;
+		size--;
+
+		if (size > 0) {
+			heap[0] = heap[size];
+			priorities[0] = priorities[size];
+			positions[heap[0]] = 0;
+			siftDown(0);
+		}
+
+		return min;
+	}
+
+	/**
+	 * Remove all the elements.
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++)
+			positions[heap[i]] = -1;
+
+		size = 0;
+	}
+
+	protected void siftUp(int pos) {
+		int element = heap[pos];
+		double priority = priorities[pos];
+
+		while (pos > 0) {
+			int parent = (pos - 1) / arity;
+
+			if (priorities[parent] <= priority)
+				break;
+
+			move(parent, pos);
+			pos = parent;
+		}
+
+		heap[pos] = element;
+		priorities[pos] = priority;
+		positions[element] = pos;
+	}
+
+	protected void siftDown(int pos) {
+		int element = heap[pos];
+		double priority = priorities[pos];
+
+		while (true) {
+			int first = arity * pos + 1;
+
+			if (first >= size)
+				break;
+
+			int last = Math.min(first + arity, size);
+			int child = first;
+
+			for (int c = first + 1; c < last; c++)
+				if (priorities[c] < priorities[child])
+					child = c;
+
+			if (priority <= priorities[child])
+				break;
+
+			move(child, pos);
+			pos = child;
+		}
+
+		heap[pos] = element;
+		priorities[pos] = priority;
+		positions[element] = pos;
+	}
+
+	/**
+	 * Move the element at position from to position to.
+	 */
+	protected void move(int from, int to) {
+		heap[to] = heap[from];
+		priorities[to] = priorities[from];
+		positions[heap[to]] = to;
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.util;
+
+/**
+ * A priority queue of integer elements taken in [0, capacity), ordered by a
+ * double priority, where the priority of an element can be decreased in place.
+ * This is the interface of the queues used by shortest path algorithms that
+ * work on node indices, see {@link Type} for the available implementations.
+ */
+public interface IndexedPriorityQueue {
+	/**
+	 * The available implementations.
+	 */
+	public static enum Type {
+		/**
+		 * A binary heap, {@link IndexedHeap} with arity 2.
+		 */
+		BINARY_HEAP,
+		/**
+		 * A 4-ary heap, {@link IndexedHeap} with arity 4. The tree is less
+		 * deep and the children of a node are contiguous in memory, which
+		 * usually makes it faster than the binary heap on large graphs.
+		 */
+		FOUR_ARY_HEAP,
+		/**
+		 * A {@link RadixHeap}, for nonnegative integer priorities extracted in
+		 * increasing order, as in Dijkstra's algorithm with integer weights.
+		 */
+		RADIX_HEAP;
+
+		/**
+		 * Create a queue of this type.
+		 * 
+		 * @param capacity
+		 *            The number of possible elements.
+		 * @return A new empty queue.
+		 */
+		public IndexedPriorityQueue create(int capacity) {
+			switch (this) {
+			case FOUR_ARY_HEAP:
+				return new IndexedHeap(capacity, 4);
+			case RADIX_HEAP:
+				return new RadixHeap(capacity);
+			default:
+				return new IndexedHeap(capacity);
+			}
+		}
+	}
+
+	/**
+	 * Number of possible elements.
+	 * 
+	 * @return The capacity given at construction.
+	 */
+	int getCapacity();
+
+	/**
+	 * Number of elements in the queue.
+	 * 
+	 * @return The queue size.
+	 */
+	int size();
+
+	/**
+	 * True if the queue is empty.
+	 * 
+	 * @return True if there is no element.
+	 */
+	boolean isEmpty();
+
+	/**
+	 * True if the element is in the queue.
+	 * 
+	 * @param element
+	 *            The element.
+	 * @return True if present.
+	 */
+	boolean contains(int element);
+
+	/**
+	 * The priority of an element in the queue.
+	 * 
+	 * @param element
+	 *            The element, it must be in the queue.
+	 * @return Its priority.
+	 */
+	double getPriority(int element);
+
+	/**
+	 * The element with the smallest priority.
+	 * 
+	 * @return The minimal element.
+	 * @throws java.util.NoSuchElementException
+	 *             If the queue is empty.
+	 */
+	int getMin();
+
+	/**
+	 * The smallest priority.
+	 * 
+	 * @return The priority of the minimal element.
+	 * @throws java.util.NoSuchElementException
+	 *             If the queue is empty.
+	 */
+	double getMinPriority();
+
+	/**
+	 * Add an element that is not already in the queue.
+	 * 
+	 * @param element
+	 *            The element.
+	 * @param priority
+	 *            Its priority.
+	 */
+	void add(int element, double priority);
+
+	/**
+	 * Decrease the priority of an element of the queue. Nothing is done if
+	 * the new priority is not smaller than the current one.
+	 * 
+	 * @param element
+	 *            The element, it must be in the queue.
+	 * @param priority
+	 *            Its new priority.
+	 */
+	void decreasePriority(int element, double priority);
+
+	/**
+	 * Add an element or decrease its priority if it is already in the queue.
+	 * 
+	 * @param element
+	 *            The element.
+	 * @param priority
+	 *            Its priority.
+	 */
+	void addOrDecrease(int element, double priority);
+
+	/**
+	 * Remove the element with the smallest priority.
+	 * 
+	 * @return The removed element.
+	 * @throws java.util.NoSuchElementException
+	 *             If the queue is empty.
+	 */
+	int extractMin();
+
+	/**
+	 * Remove all the elements.
+	 */
+	void clear();
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * A radix heap of integer elements taken in [0, capacity), for nonnegative
+ * integer priorities. A radix heap is a monotone priority queue: the priority
+ * of an element added or decreased can not be smaller than the last priority
+ * extracted. This is the case in Dijkstra's algorithm, and with integer edge
+ * weights a radix heap is often faster than a binary heap since its operations
+ * only move elements between buckets of doubly linked lists stored in arrays.
+ * </p>
+ * 
+ * <p>
+ * Elements are put in 65 buckets depending on the highest bit where their
+ * priority differs from the last priority extracted. Bucket 0 holds the
+ * elements with the same priority as the last one extracted. When it is
+ * empty, the first non-empty bucket is emptied into the lower buckets around
+ * its smallest priority. An element can only go down, at most 64 times.
+ * </p>
+ * 
+ * <p>
+ * The following operations are supported:
+ * </p>
+ * <ul>
+ * <li>adding an element and decreasing a priority in O(1)</li>
+ * <li>extracting the minimum in O(log(C)) amortized, where C is the largest
+ * priority</li>
+ * <li>testing the presence of an element in O(1)</li>
+ * </ul>
+ * 
+ * <p>
+ * Priorities are given as doubles to implement {@link IndexedPriorityQueue},
+ * but must hold nonnegative integer values, else an
+ * {@link IllegalArgumentException} is thrown.
+ * </p>
+ */
+public class RadixHeap implements IndexedPriorityQueue {
+	/**
+	 * Number of buckets.
+	 */
+	protected static final int BUCKETS = 65;
+
+	/**
+	 * Priority of each element.
+	 */
+	protected long[] keys;
+
+	/**
+	 * Bucket of each element, -1 if absent.
+	 */
+	protected int[] buckets;
+
+	/**
+	 * Links of the bucket lists, -1 at the ends.
+	 */
+	protected int[] next, previous;
+
+	/**
+	 * First element of each bucket, -1 if empty.
+	 */
+	protected int[] heads;
+
+	/**
+	 * The last priority extracted.
+	 */
+	protected long last;
+
+	/**
+	 * Number of elements.
+	 */
+	protected int size;
+
+	/**
+	 * Creates an empty heap able to store the elements [0, capacity).
+	 * 
+	 * @param capacity
+	 *            The number of possible elements.
+	 */
+	public RadixHeap(int capacity) {
+		keys = new long[capacity];
+		buckets = new int[capacity];
+		next = new int[capacity];
+		previous = new int[capacity];
+		heads = new int[BUCKETS];
+
+		for (int i = 0; i < capacity; i++)
+			buckets[i] = -1;
+
+		for (int b = 0; b < BUCKETS; b++)
+			heads[b] = -1;
+	}
+
+	public int getCapacity() {
+		return buckets.length;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(int element) {
+		return buckets[element] >= 0;
+	}
+
+	public double getPriority(int element) {
+		return keys[element];
+	}
+
+	public int getMin() {
+		if (size == 0)
+			throw new NoSuchElementException();
+
+		pull();
+
+		return heads[0];
+	}
+
+	public double getMinPriority() {
+		if (size == 0)
+			throw new NoSuchElementException();
+
+		pull();
+
+		return last;
+	}
+
+	public void add(int element, double priority) {
+		if (buckets[element] >= 0)
+			throw new IllegalArgumentException("element " + element
+					+ " is already in the heap");
+
+		keys[element] = key(priority);
+		insert(element);
+		size++;
+	}
+
+	public void decreasePriority(int element, double priority) {
+		long key = key(priority);
+
+		if (key < keys[element]) {
+			unlink(element);
+			keys[element] = key;
+			insert(element);
+		}
+	}
+
+	public void addOrDecrease(int element, double priority) {
+		if (buckets[element] >= 0)
+			decreasePriority(element, priority);
+		else
+			add(element, priority);
+	}
+
+	public int extractMin() {
+		if (size == 0)
+			throw new NoSuchElementException();
+
+		pull();
+
+		int min = heads[0];
+		unlink(min);
+		buckets[min] = -1;
+		size--;
+
+		return min;
+	}
+
+	/**
+	 * Remove all the elements. The heap can then be used again with any
+	 * priority.
+	 */
+	public void clear() {
+		for (int b = 0; b < BUCKETS; b++) {
+			for (int e = heads[b]; e >= 0; e = next[e])
+				buckets[e] = -1;
+
+			heads[b] = -1;
+		}
+
+		size = 0;
+		last = 0;
+	}
+
+	/**
+	 * Check a priority and convert it to a key.
+	 */
+	protected long key(double priority) {
+		long key = (long) priority;
+
+		if (key != priority || key < last)
+			throw new IllegalArgumentException("priority " + priority
+					+ " is not an integer not smaller than " + last);
+
+		return key;
+	}
+
+	/**
+	 * The bucket where a key goes.
+	 */
+	protected int bucketOf(long key) {
+		return key == last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+	}
+
+	protected void insert(int element) {
+		int b = bucketOf(keys[element]);
+		int head = heads[b];
+
+		buckets[element] = b;
+		previous[element] = -1;
+		next[element] = head;
+
+		if (head >= 0)
+			previous[head] = element;
+
+		heads[b] = element;
+	}
+
+	protected void unlink(int element) {
+		int p = previous[element];
+		int n = next[element];
+
+		if (p >= 0)
+			next[p] = n;
+		else
+			heads[buckets[element]] = n;
+
+		if (n >= 0)
+			previous[n] = p;
+	}
+
+	/**
+	 * Make sure bucket 0 is not empty, the heap must not be empty.
+	 */
+	protected void pull() {
+		if (heads[0] >= 0)
+			return;
+
+		int b = 1;
+
+		while (heads[b] < 0)
+			b++;
+
+		long min = Long.MAX_VALUE;
+
+		for (int e = heads[b]; e >= 0; e = next[e])
+			if (keys[e] < min)
+				min = keys[e];
+
+		last = min;
+
+		int e = heads[b];
+		heads[b] = -1;
+
+		while (e >= 0) {
+			int n = next[e];
+			insert(e);
+			e = n;
+		}
+	}
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2006 - 2013
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.algorithm.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>
+ * A small pool of worker threads used by the algorithms that can split their
+ * computation into independent tasks. Tasks are submitted in batches, and each
+ * call returns only when all the tasks of the batch are finished, so that the
+ * algorithms can be written as a sequence of parallel phases.
+ * </p>
+ * 
+ * <p>
+ * When the pool has only one thread, tasks are run directly in the calling
+ * thread and no thread is created. Worker threads are daemon threads created
+ * lazily on first use and kept until {@link #shutdown()} is called.
+ * </p>
+ * 
+ * <h3>Example</h3>
+ * 
+ * <pre>
+ * TaskPool pool = new TaskPool(4);
+ * final double[] data = new double[1000];
+ * 
+ * pool.forRange(0, data.length, 0, new TaskPool.RangeTask() {
+ * 	public void run(int from, int to) {
+ * 		for (int i = from; i &lt; to; i++)
+ * 			data[i] = Math.sqrt(i);
+ * 	}
+ * });
+ * 
+ * pool.shutdown();
+ * </pre>
+ */
+public class TaskPool {
+	/**
+	 * A task working on a range of integers.
+	 */
+	public static interface RangeTask {
+		/**
+		 * Process the range [from, to).
+		 * 
+		 * @param from
+		 *            First index, included.
+		 * @param to
+		 *            Last index, excluded.
+		 */
+		void run(int from, int to);
+	}
+
+	/**
+	 * Number of threads of the pool.
+	 */
+	protected int threads;
+
+	/**
+	 * The executor, created on first use.
+	 */
+	protected ExecutorService executor;
+
+	/**
+	 * Creates a pool with as many threads as available processors.
+	 */
+	public TaskPool() {
+		this(defaultThreadCount());
+	}
+
+	/**
+	 * Creates a pool with the given number of threads.
+	 * 
+	 * @param threads
+	 *            Number of threads, at least 1.
+	 */
+	public TaskPool(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("at least one thread is needed");
+
+		this.threads = threads;
+	}
+
+	/**
+	 * The number of available processors.
+	 * 
+	 * @return A default number of threads.
+	 */
+	public static int defaultThreadCount() {
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Number of threads of this pool.
+	 * 
+	 * @return The thread count.
+	 */
+	public int getThreadCount() {
+		return threads;
+	}
+
+	/**
+	 * Run all the given tasks and wait for their completion. If one of the
+	 * tasks fails, its exception is thrown again once all the tasks are
+	 * finished.
+	 * 
+	 * @param tasks
+	 *            The tasks to run.
+	 */
+	public void execute(List<? extends Runnable> tasks) {
+		if (threads == 1 || tasks.size() <= 1) {
+			for (Runnable task : tasks)
+				task.run();
+
+			return;
+		}
+
+		ArrayList<Callable<Object>> callables = new ArrayList<Callable<Object>>(
+				tasks.size());
+
+		for (Runnable task : tasks)
+			callables.add(Executors.callable(task));
+
+		try {
+			List<Future<Object>> futures = getExecutor().invokeAll(callables);
+
+			for (Future<Object> future : futures)
+				future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("interrupted while waiting for tasks", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+
+			if (cause instanceof Error)
+				throw (Error) cause;
+
+			throw new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * Split the range [from, to) in chunks and process them in parallel.
+	 * 
+	 * @param from
+	 *            First index, included.
+	 * @param to
+	 *            Last index, excluded.
+	 * @param grain
+	 *            Size of the chunks. If zero or negative, the range is split
+	 *            in four chunks per thread.
+	 * @param task
+	 *            The task processing each chunk.
+	 */
+	public void forRange(int from, int to, int grain, final RangeTask task) {
+		int length = to - from;
+
+		if (length <= 0)
+			return;
+
+		if (grain <= 0)
+			grain = Math.max(1, (length + 4 * threads - 1) / (4 * threads));
+
+		if (threads == 1 || length <= grain) {
+			task.run(from, to);
+			return;
+		}
+
+		ArrayList<Runnable> tasks = new ArrayList<Runnable>();
+
+		for (int start = from; start < to; start += grain) {
+			final int s = start;
+			final int e = Math.min(to, start + grain);
+
+			tasks.add(new Runnable() {
+				public void run() {
+					task.run(s, e);
+				}
+			});
+		}
+
+		execute(tasks);
+	}
+
+	/**
+	 * Stop the worker threads. The pool can still be used afterwards, new
+	 * threads are then created.
+	 */
+	public void shutdown() {
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+
+	protected ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(threads,
+					new ThreadFactory() {
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(r, "gs-algo-worker");
+							t.setDaemon(true);
+							return t;
+						}
+					});
+		}
+
+		return executor;
+	}
+}